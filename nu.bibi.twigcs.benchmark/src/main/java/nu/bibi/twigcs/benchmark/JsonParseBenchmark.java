@@ -0,0 +1,91 @@
+/**
+ * This file is part of the twigcs-plugin package.
+ *
+ * (c) Laurent Muller <bibi@bibi.nu>
+ *
+ * For the full copyright and license information, please view the LICENSE
+ * file that was distributed with this source code.
+ */
+package nu.bibi.twigcs.benchmark;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.StringReader;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Setup;
+
+import nu.bibi.twigcs.json.Json;
+import nu.bibi.twigcs.json.JsonValue;
+
+/**
+ * Benchmarks of {@link Json#parse} on the different input types.
+ *
+ * @author Laurent Muller
+ * @version 1.0
+ */
+public class JsonParseBenchmark extends AbstractBenchmark {
+
+	/*
+	 * the input string
+	 */
+	private String input;
+
+	/*
+	 * the input bytes
+	 */
+	private byte[] bytes;
+
+	/**
+	 * Parses the input bytes.
+	 *
+	 * @return the parsed value.
+	 */
+	@Benchmark
+	public JsonValue parseBytes() {
+		return Json.parse(bytes);
+	}
+
+	/**
+	 * Parses the input stream.
+	 *
+	 * @return the parsed value.
+	 * @throws IOException
+	 *             if an I/O error occurs.
+	 */
+	@Benchmark
+	public JsonValue parseInputStream() throws IOException {
+		return Json.parse(new ByteArrayInputStream(bytes));
+	}
+
+	/**
+	 * Parses the input reader.
+	 *
+	 * @return the parsed value.
+	 * @throws IOException
+	 *             if an I/O error occurs.
+	 */
+	@Benchmark
+	public JsonValue parseReader() throws IOException {
+		return Json.parse(new StringReader(input));
+	}
+
+	/**
+	 * Parses the input string.
+	 *
+	 * @return the parsed value.
+	 */
+	@Benchmark
+	public JsonValue parseString() {
+		return Json.parse(input);
+	}
+
+	/**
+	 * Generates the input.
+	 */
+	@Setup
+	public void setup() {
+		input = TwigcsOutput.generate(violations);
+		bytes = TwigcsOutput.generateBytes(violations);
+	}
+}
@@ -0,0 +1,112 @@
+/**
+ * This file is part of the twigcs-plugin package.
+ *
+ * (c) Laurent Muller <bibi@bibi.nu>
+ *
+ * For the full copyright and license information, please view the LICENSE
+ * file that was distributed with this source code.
+ */
+package nu.bibi.twigcs.benchmark;
+
+import java.io.IOException;
+import java.io.Writer;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Setup;
+
+import nu.bibi.twigcs.json.Json;
+import nu.bibi.twigcs.json.JsonValue;
+import nu.bibi.twigcs.json.WriterConfiguration;
+
+/**
+ * Benchmarks of {@link JsonValue#writeTo(Writer, WriterConfiguration)} with
+ * the minimal and the pretty print configurations.
+ *
+ * @author Laurent Muller
+ * @version 1.0
+ */
+public class JsonWriteBenchmark extends AbstractBenchmark {
+
+	/**
+	 * Writer discarding the characters, so only the serialization is measured.
+	 */
+	private static class CountWriter extends Writer {
+
+		private long count;
+
+		@Override
+		public void close() {
+		}
+
+		@Override
+		public void flush() {
+		}
+
+		@Override
+		public void write(final char[] cbuf, final int off, final int len) {
+			count += len;
+		}
+
+		@Override
+		public void write(final int c) {
+			count++;
+		}
+
+		@Override
+		public void write(final String str, final int off, final int len) {
+			count += len;
+		}
+	}
+
+	/*
+	 * the value to write
+	 */
+	private JsonValue value;
+
+	/**
+	 * Parses the value to write.
+	 */
+	@Setup
+	public void setup() {
+		value = Json.parse(TwigcsOutput.generate(violations));
+	}
+
+	/**
+	 * Writes the value with the minimal configuration.
+	 *
+	 * @return the number of written characters.
+	 * @throws IOException
+	 *             if an I/O error occurs.
+	 */
+	@Benchmark
+	public long writeMinimal() throws IOException {
+		return write(WriterConfiguration.MINIMAL);
+	}
+
+	/**
+	 * Writes the value with the pretty print configuration.
+	 *
+	 * @return the number of written characters.
+	 * @throws IOException
+	 *             if an I/O error occurs.
+	 */
+	@Benchmark
+	public long writePrettyPrint() throws IOException {
+		return write(WriterConfiguration.PRETTY_PRINT);
+	}
+
+	/**
+	 * Writes the value with the given configuration.
+	 *
+	 * @param config
+	 *            the writer configuration.
+	 * @return the number of written characters.
+	 * @throws IOException
+	 *             if an I/O error occurs.
+	 */
+	private long write(final WriterConfiguration config) throws IOException {
+		final CountWriter writer = new CountWriter();
+		value.writeTo(writer, config);
+		return writer.count;
+	}
+}
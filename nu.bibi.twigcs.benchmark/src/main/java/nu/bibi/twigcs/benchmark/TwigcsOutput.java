@@ -0,0 +1,161 @@
+/**
+ * This file is part of the twigcs-plugin package.
+ *
+ * (c) Laurent Muller <bibi@bibi.nu>
+ *
+ * For the full copyright and license information, please view the LICENSE
+ * file that was distributed with this source code.
+ */
+package nu.bibi.twigcs.benchmark;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Random;
+
+/**
+ * Generator of synthetic Twigcs outputs, in the format of the JSON reporter.
+ * <p>
+ * The outputs are generated with a fixed seed, so the same number of
+ * violations always gives the same output.
+ * </p>
+ *
+ * @author Laurent Muller
+ * @version 1.0
+ */
+public final class TwigcsOutput {
+
+	/*
+	 * the random seed
+	 */
+	private static final long SEED = 0x7769_6763_73L;
+
+	/*
+	 * the number of violations by file
+	 */
+	private static final int VIOLATIONS_BY_FILE = 10;
+
+	/*
+	 * the message patterns, the placeholder is replaced by an identifier
+	 */
+	private static final String[] MESSAGES = { //
+			"Unused variable \\\"%s\\\".", //$NON-NLS-1$
+			"Unused macro \\\"%s\\\".", //$NON-NLS-1$
+			"Unused macro import \\\"%s\\\".", //$NON-NLS-1$
+			"The variable \\\"%s\\\" is defined more than once.", //$NON-NLS-1$
+			"The \\\"%s\\\" variable should be in lower snake case.", //$NON-NLS-1$
+			"There should be 1 space(s) after the \\\"%s\\\" operator.", //$NON-NLS-1$
+			"A file must not contain trailing spaces.", //$NON-NLS-1$
+			"A file must end with 1 blank line." }; //$NON-NLS-1$
+
+	/*
+	 * the identifiers
+	 */
+	private static final String[] IDENTIFIERS = { "user", "item", "entity", //$NON-NLS-1$ //$NON-NLS-2$ //$NON-NLS-3$
+			"form", "path", "route_name", "loop", "value", "key", "title" }; //$NON-NLS-1$ //$NON-NLS-2$ //$NON-NLS-3$ //$NON-NLS-4$ //$NON-NLS-5$ //$NON-NLS-6$ //$NON-NLS-7$
+
+	/*
+	 * the folders
+	 */
+	private static final String[] FOLDERS = { "about", "admin", "calculation", //$NON-NLS-1$ //$NON-NLS-2$ //$NON-NLS-3$
+			"customer", "macros", "product", "security", "user" }; //$NON-NLS-1$ //$NON-NLS-2$ //$NON-NLS-3$ //$NON-NLS-4$ //$NON-NLS-5$
+
+	/*
+	 * the type of the violations
+	 */
+	private static final String[] TYPES = { "info", "warning", "error" }; //$NON-NLS-1$ //$NON-NLS-2$ //$NON-NLS-3$
+
+	/**
+	 * Generates the output for the given number of violations. The violations
+	 * are grouped by {@value #VIOLATIONS_BY_FILE} in each file.
+	 *
+	 * @param violations
+	 *            the number of violations.
+	 * @return the JSON output.
+	 */
+	public static String generate(final int violations) {
+		final Random random = new Random(SEED);
+		final StringBuilder builder = new StringBuilder(violations * 150 + 64);
+		builder.append("{\"failures\":").append(violations) //$NON-NLS-1$
+				.append(",\"files\":["); //$NON-NLS-1$
+
+		int remaining = violations;
+		int file = 0;
+		while (remaining > 0) {
+			final int count = Math.min(remaining, VIOLATIONS_BY_FILE);
+			if (file > 0) {
+				builder.append(',');
+			}
+			appendFile(builder, random, file++, count);
+			remaining -= count;
+		}
+
+		return builder.append("]}").toString(); //$NON-NLS-1$
+	}
+
+	/**
+	 * Generates the UTF-8 encoded output for the given number of violations.
+	 *
+	 * @param violations
+	 *            the number of violations.
+	 * @return the JSON output bytes.
+	 * @see #generate(int)
+	 */
+	public static byte[] generateBytes(final int violations) {
+		return generate(violations).getBytes(StandardCharsets.UTF_8);
+	}
+
+	/**
+	 * Appends a file and its violations.
+	 *
+	 * @param builder
+	 *            the builder to append to.
+	 * @param random
+	 *            the random generator.
+	 * @param index
+	 *            the file index.
+	 * @param count
+	 *            the number of violations.
+	 */
+	private static void appendFile(final StringBuilder builder,
+			final Random random, final int index, final int count) {
+		builder.append("{\"file\":\"templates/") //$NON-NLS-1$
+				.append(FOLDERS[random.nextInt(FOLDERS.length)]).append('/')
+				.append("template_").append(index) //$NON-NLS-1$
+				.append(".html.twig\",\"violations\":["); //$NON-NLS-1$
+		for (int i = 0; i < count; i++) {
+			if (i > 0) {
+				builder.append(',');
+			}
+			appendViolation(builder, random);
+		}
+		builder.append("]}"); //$NON-NLS-1$
+	}
+
+	/**
+	 * Appends a violation.
+	 *
+	 * @param builder
+	 *            the builder to append to.
+	 * @param random
+	 *            the random generator.
+	 */
+	private static void appendViolation(final StringBuilder builder,
+			final Random random) {
+		final int severity = 1 + random.nextInt(TYPES.length);
+		final String identifier = IDENTIFIERS[random
+				.nextInt(IDENTIFIERS.length)];
+		final String message = String.format(
+				MESSAGES[random.nextInt(MESSAGES.length)], identifier);
+		builder.append("{\"line\":").append(1 + random.nextInt(500)) //$NON-NLS-1$
+				.append(",\"column\":").append(random.nextInt(120)) //$NON-NLS-1$
+				.append(",\"severity\":").append(severity) //$NON-NLS-1$
+				.append(",\"type\":\"").append(TYPES[severity - 1]) //$NON-NLS-1$
+				.append("\",\"message\":\"").append(message) //$NON-NLS-1$
+				.append("\"}"); //$NON-NLS-1$
+	}
+
+	/*
+	 * prevent instance creation
+	 */
+	private TwigcsOutput() {
+	}
+}
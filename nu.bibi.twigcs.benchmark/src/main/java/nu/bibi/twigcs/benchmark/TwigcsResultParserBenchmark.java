@@ -0,0 +1,100 @@
+/**
+ * This file is part of the twigcs-plugin package.
+ *
+ * (c) Laurent Muller <bibi@bibi.nu>
+ *
+ * For the full copyright and license information, please view the LICENSE
+ * file that was distributed with this source code.
+ */
+package nu.bibi.twigcs.benchmark;
+
+import java.io.IOException;
+import java.io.StringReader;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Setup;
+
+import nu.bibi.twigcs.core.TwigcsResultParser;
+import nu.bibi.twigcs.model.TwigFile;
+import nu.bibi.twigcs.model.TwigResult;
+
+/**
+ * Benchmarks of {@link TwigcsResultParser#parse} on the different input types.
+ *
+ * @author Laurent Muller
+ * @version 1.0
+ */
+public class TwigcsResultParserBenchmark extends AbstractBenchmark {
+
+	/*
+	 * the parser
+	 */
+	private final TwigcsResultParser parser = new TwigcsResultParser();
+
+	/*
+	 * the input string
+	 */
+	private String input;
+
+	/*
+	 * the input bytes
+	 */
+	private byte[] bytes;
+
+	/**
+	 * Parses the input bytes.
+	 *
+	 * @return the parsed result.
+	 * @throws IOException
+	 *             if the input is not valid.
+	 */
+	@Benchmark
+	public TwigResult parseBytes() throws IOException {
+		return parser.parse(bytes);
+	}
+
+	/**
+	 * Parses the input reader.
+	 *
+	 * @return the parsed result.
+	 * @throws IOException
+	 *             if the input is not valid.
+	 */
+	@Benchmark
+	public TwigResult parseReader() throws IOException {
+		return parser.parse(new StringReader(input));
+	}
+
+	/**
+	 * Parses the input string.
+	 *
+	 * @return the parsed result.
+	 * @throws IOException
+	 *             if the input is not valid.
+	 */
+	@Benchmark
+	public TwigResult parseString() throws IOException {
+		return parser.parse(input);
+	}
+
+	/**
+	 * Generates the input and checks that all the violations are parsed.
+	 *
+	 * @throws IOException
+	 *             if the input is not valid.
+	 */
+	@Setup
+	public void setup() throws IOException {
+		input = TwigcsOutput.generate(violations);
+		bytes = TwigcsOutput.generateBytes(violations);
+
+		int count = 0;
+		for (final TwigFile file : parser.parse(input)) {
+			count += file.size();
+		}
+		if (count != violations) {
+			throw new IllegalStateException(String.format(
+					"Expected %d violations, found %d.", violations, count)); //$NON-NLS-1$
+		}
+	}
+}
@@ -0,0 +1,111 @@
+<?php
+/**
+ * This file is part of the twigcs-plugin package.
+ *
+ * (c) Laurent Muller <bibi@bibi.nu>
+ *
+ * For the full copyright and license information, please view the LICENSE
+ * file that was distributed with this source code.
+ */
+
+/*
+ * Resident Twigcs worker.
+ *
+ * Usage: php twigcs-worker.php <path to the composer autoload.php>
+ *
+ * Each line read from the standard input is a JSON request:
+ *
+ *   {"id": 1, "files": ["a.twig", "b.twig"], "version": "2",
+ *    "severity": "warning", "reporter": "json", "display": "blocking"}
+ *
+ * or a health check:
+ *
+ *   {"id": 2, "ping": true}
+ *
+ * Each request is answered by a single line written to the standard output,
+ * starting with the identifier of the request and containing either the
+ * Twigcs JSON report, "pong": true or "error": "message".
+ *
+ * The standard output is reserved to the responses: the PHP errors are sent
+ * to the standard error and any other output is discarded.
+ */
+
+use FriendsOfTwig\Twigcs\Console\LintCommand;
+use Symfony\Component\Console\Application;
+use Symfony\Component\Console\Input\ArrayInput;
+use Symfony\Component\Console\Output\BufferedOutput;
+
+if ($argc < 2 || !is_file($argv[1])) {
+    fwrite(STDERR, "The composer autoload file is not defined or does not exist.\n");
+    exit(1);
+}
+ini_set('display_errors', 'stderr');
+ob_start();
+require $argv[1];
+ob_end_clean();
+
+/**
+ * Writes the given response as a single line.
+ *
+ * @param mixed $id       the request identifier
+ * @param array $response the response to write
+ */
+function respond($id, array $response)
+{
+    fwrite(STDOUT, json_encode(['id' => $id] + $response, JSON_UNESCAPED_SLASHES) . "\n");
+    fflush(STDOUT);
+}
+
+$command = new LintCommand();
+$application = new Application('twigcs');
+$application->add($command);
+$application->setAutoExit(false);
+$application->setCatchExceptions(false);
+
+while (false !== ($line = fgets(STDIN))) {
+    $line = trim($line);
+    if ('' === $line) {
+        continue;
+    }
+
+    $request = json_decode($line, true);
+    if (!is_array($request)) {
+        respond(null, ['error' => 'The request is not a valid JSON object.']);
+        continue;
+    }
+    $id = isset($request['id']) ? $request['id'] : null;
+    if (isset($request['ping'])) {
+        respond($id, ['pong' => true]);
+        continue;
+    }
+    if (empty($request['files']) || !is_array($request['files'])) {
+        respond($id, ['error' => 'The request does not contain any file.']);
+        continue;
+    }
+
+    $parameters = [
+        'command' => $command->getName(),
+        'paths' => $request['files'],
+    ];
+    foreach (['version' => '-t', 'severity' => '-s', 'reporter' => '-r', 'display' => '-d'] as $key => $option) {
+        if (isset($request[$key])) {
+            $parameters[$option] = $request[$key];
+        }
+    }
+
+    ob_start();
+    try {
+        $output = new BufferedOutput();
+        $application->run(new ArrayInput($parameters), $output);
+        $result = json_decode($output->fetch(), true);
+        if (!is_array($result)) {
+            respond($id, ['error' => 'Twigcs returned an invalid JSON output.']);
+        } else {
+            respond($id, $result);
+        }
+    } catch (\Throwable $e) {
+        respond($id, ['error' => $e->getMessage()]);
+    } finally {
+        ob_end_clean();
+    }
+}
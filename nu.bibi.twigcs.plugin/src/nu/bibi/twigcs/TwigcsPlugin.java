@@ -8,13 +8,18 @@
  */
 package nu.bibi.twigcs;
 
+import java.io.File;
+import java.io.IOException;
+import java.net.URL;
 import java.util.Optional;
 
 import org.eclipse.core.resources.IResourceChangeEvent;
 import org.eclipse.core.resources.IWorkspace;
 import org.eclipse.core.resources.ResourcesPlugin;
 import org.eclipse.core.runtime.CoreException;
+import org.eclipse.core.runtime.FileLocator;
 import org.eclipse.core.runtime.IStatus;
+import org.eclipse.core.runtime.Path;
 import org.eclipse.core.runtime.Status;
 import org.eclipse.jface.resource.ImageDescriptor;
 import org.eclipse.jface.resource.ImageRegistry;
@@ -25,7 +30,14 @@ import org.osgi.framework.BundleContext;
 
 import nu.bibi.twigcs.core.IConstants;
 import nu.bibi.twigcs.core.ResourceListener;
+import nu.bibi.twigcs.core.TwigcsResultCache;
+import nu.bibi.twigcs.core.TwigcsSaveParticipant;
+import nu.bibi.twigcs.core.TwigcsStatistics;
+import nu.bibi.twigcs.core.TwigcsValidationJob;
+import nu.bibi.twigcs.core.TwigcsWorkerPool;
+import nu.bibi.twigcs.internal.Messages;
 import nu.bibi.twigcs.preferences.PluginScopedPreferenceStore;
+import nu.bibi.twigcs.preferences.ProjectSnapshotCache;
 
 /**
  * The Twigcs Plugin.
@@ -50,6 +62,17 @@ public class TwigcsPlugin extends AbstractUIPlugin implements IConstants {
 	 */
 	public static final String QUICK_FIX_WARNING = "icons/quickfix_warning.png"; //$NON-NLS-1$
 
+	/**
+	 * The validation results cache file name, relative to the state location
+	 * of this plug-in.
+	 */
+	public static final String RESULT_CACHE_FILE = "results.json"; //$NON-NLS-1$
+
+	/**
+	 * The resident worker script path, relative to the root of this bundle.
+	 */
+	public static final String WORKER_SCRIPT = "php/twigcs-worker.php"; //$NON-NLS-1$
+
 	/*
 	 * The shared instance
 	 */
@@ -120,6 +143,31 @@ public class TwigcsPlugin extends AbstractUIPlugin implements IConstants {
 	 */
 	private PluginScopedPreferenceStore preferenceStore;
 
+	/*
+	 * the validation results cache
+	 */
+	private TwigcsResultCache resultCache;
+
+	/*
+	 * the project settings snapshots
+	 */
+	private ProjectSnapshotCache snapshotCache;
+
+	/*
+	 * the validation timings
+	 */
+	private final TwigcsStatistics statistics = new TwigcsStatistics();
+
+	/*
+	 * the background validation job
+	 */
+	private TwigcsValidationJob validationJob;
+
+	/*
+	 * the resident workers
+	 */
+	private final TwigcsWorkerPool workerPool = new TwigcsWorkerPool();
+
 	/**
 	 * {@inheritDoc}
 	 * <p>
@@ -163,6 +211,100 @@ public class TwigcsPlugin extends AbstractUIPlugin implements IConstants {
 		return getImageRegistry().get(QUICK_FIX_WARNING);
 	}
 
+	/**
+	 * Gets the validation results cache. The cache is persisted in the state
+	 * location of this plug-in.
+	 *
+	 * @return the results cache.
+	 */
+	public synchronized TwigcsResultCache getResultCache() {
+		if (resultCache == null) {
+			final File file = getStateLocation().append(RESULT_CACHE_FILE)
+					.toFile();
+			resultCache = new TwigcsResultCache(file);
+		}
+		return resultCache;
+	}
+
+	/**
+	 * Gets the project settings snapshots cache.
+	 *
+	 * @return the snapshots cache.
+	 */
+	public synchronized ProjectSnapshotCache getSnapshotCache() {
+		if (snapshotCache == null) {
+			snapshotCache = new ProjectSnapshotCache();
+			final IWorkspace workspace = ResourcesPlugin.getWorkspace();
+			workspace.addResourceChangeListener(snapshotCache,
+					IResourceChangeEvent.PRE_CLOSE
+							| IResourceChangeEvent.PRE_DELETE);
+		}
+		return snapshotCache;
+	}
+
+	/**
+	 * Gets the validation timings.
+	 *
+	 * @return the statistics.
+	 */
+	public TwigcsStatistics getStatistics() {
+		return statistics;
+	}
+
+	/**
+	 * Gets the background validation job.
+	 *
+	 * @return the validation job.
+	 */
+	public synchronized TwigcsValidationJob getValidationJob() {
+		if (validationJob == null) {
+			validationJob = new TwigcsValidationJob();
+		}
+		return validationJob;
+	}
+
+	/**
+	 * Gets the resident workers pool.
+	 *
+	 * @return the workers pool.
+	 */
+	public TwigcsWorkerPool getWorkerPool() {
+		return workerPool;
+	}
+
+	/**
+	 * Gets the file system path of the resident worker script. The script is
+	 * extracted from the bundle if needed.
+	 *
+	 * @return the script path.
+	 * @throws IOException
+	 *             if the script cannot be found or extracted.
+	 */
+	public String getWorkerScript() throws IOException {
+		final URL url = FileLocator.find(getBundle(), new Path(WORKER_SCRIPT),
+				null);
+		if (url == null) {
+			throw new IOException(Messages.TwigcsPlugin_Error_Worker_Script);
+		}
+		final File file = new File(FileLocator.toFileURL(url).getPath());
+		return file.getAbsolutePath();
+	}
+
+	/**
+	 * Saves the validation results cache, if loaded and modified. An error is
+	 * logged if the cache cannot be saved.
+	 */
+	public synchronized void saveResultCache() {
+		if (resultCache != null) {
+			try {
+				resultCache.save();
+			} catch (final IOException e) {
+				log(new Status(IStatus.ERROR, PLUGIN_ID,
+						Messages.TwigcsPlugin_Error_Save_Cache, e));
+			}
+		}
+	}
+
 	/**
 	 * {@inheritDoc}
 	 */
@@ -171,12 +313,13 @@ public class TwigcsPlugin extends AbstractUIPlugin implements IConstants {
 		super.start(context);
 		setDefault(this);
 
+		final IWorkspace workspace = ResourcesPlugin.getWorkspace();
 		if (listener == null) {
 			listener = new ResourceListener();
-			final IWorkspace workspace = ResourcesPlugin.getWorkspace();
 			workspace.addResourceChangeListener(listener,
 					IResourceChangeEvent.POST_CHANGE);
 		}
+		workspace.addSaveParticipant(PLUGIN_ID, new TwigcsSaveParticipant());
 	}
 
 	/**
@@ -184,14 +327,32 @@ public class TwigcsPlugin extends AbstractUIPlugin implements IConstants {
 	 */
 	@Override
 	public void stop(final BundleContext context) throws Exception {
-		setDefault(null);
-		super.stop(context);
-
+		final IWorkspace workspace = ResourcesPlugin.getWorkspace();
+		workspace.removeSaveParticipant(PLUGIN_ID);
 		if (listener != null) {
-			final IWorkspace workspace = ResourcesPlugin.getWorkspace();
 			workspace.removeResourceChangeListener(listener);
 			listener = null;
 		}
+		if (validationJob != null) {
+			// wait for the running validation before releasing the plug-in
+			try {
+				validationJob.dispose();
+			} catch (final InterruptedException e) {
+				Thread.currentThread().interrupt();
+			}
+			validationJob = null;
+		}
+		workerPool.shutdown();
+		if (snapshotCache != null) {
+			workspace.removeResourceChangeListener(snapshotCache);
+			snapshotCache.dispose();
+			snapshotCache = null;
+		}
+		saveResultCache();
+		resultCache = null;
+
+		setDefault(null);
+		super.stop(context);
 	}
 
 	/**
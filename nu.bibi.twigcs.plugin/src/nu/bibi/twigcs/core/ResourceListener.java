@@ -8,9 +8,13 @@
  */
 package nu.bibi.twigcs.core;
 
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
 
-import org.eclipse.core.resources.IContainer;
 import org.eclipse.core.resources.IProject;
 import org.eclipse.core.resources.IResource;
 import org.eclipse.core.resources.IResourceChangeEvent;
@@ -24,6 +28,7 @@ import org.eclipse.osgi.util.NLS;
 import nu.bibi.twigcs.TwigcsPlugin;
 import nu.bibi.twigcs.internal.Messages;
 import nu.bibi.twigcs.preferences.ProjectPreferences;
+import nu.bibi.twigcs.preferences.ProjectSnapshot;
 
 /**
  * Resource listener to update include and exclude paths.
@@ -39,6 +44,12 @@ import nu.bibi.twigcs.preferences.ProjectPreferences;
  * workspace.addResourceChangeListener(listener,
  * 		IResourceChangeEvent.POST_CHANGE);
  * </pre>
+ * <p>
+ * Only the projects having the Twigcs nature and defining include or exclude
+ * paths are visited. Within such a project, only the folders leading to an
+ * include or exclude path are visited, so the changes of unrelated resources
+ * are rejected without walking the delta tree.
+ * </p>
  *
  * @author Laurent Muller
  * @version 1.0
@@ -46,15 +57,86 @@ import nu.bibi.twigcs.preferences.ProjectPreferences;
 public class ResourceListener implements IResourceChangeListener,
 		IResourceDeltaVisitor, ICoreException {
 
+	/**
+	 * The paths to watch for a project.
+	 */
+	private static class WatchedPaths {
+
+		/*
+		 * the snapshot the paths are built from
+		 */
+		private final ProjectSnapshot snapshot;
+
+		/*
+		 * the include and exclude paths
+		 */
+		private final Set<IPath> paths = new HashSet<>();
+
+		/*
+		 * the paths of the folders leading to the include and exclude paths
+		 */
+		private final Set<IPath> prefixes = new HashSet<>();
+
+		/**
+		 * Creates a new instance of this class.
+		 *
+		 * @param snapshot
+		 *            the project settings to get paths from.
+		 */
+		WatchedPaths(final ProjectSnapshot snapshot) {
+			this.snapshot = snapshot;
+			add(snapshot.getIncludePaths());
+			add(snapshot.getExcludePaths());
+		}
+
+		/**
+		 * Adds the given paths and their parent paths.
+		 *
+		 * @param list
+		 *            the project relative paths to add.
+		 */
+		private void add(final List<IPath> list) {
+			for (final IPath path : list) {
+				paths.add(path);
+				for (int i = path.segmentCount() - 1; i > 0; i--) {
+					prefixes.add(path.uptoSegment(i));
+				}
+			}
+		}
+	}
+
+	/*
+	 * the watched paths mapped by project. The resource change notifications
+	 * are sent serially, so no synchronization is required.
+	 */
+	private final Map<IProject, WatchedPaths> watchedPaths = new HashMap<>();
+
+	/*
+	 * the watched paths of the project being visited
+	 */
+	private WatchedPaths current;
+
 	/**
 	 * {@inheritDoc}
 	 */
 	@Override
 	public void resourceChanged(final IResourceChangeEvent event) {
+		final IResourceDelta delta = event.getDelta();
+		if (delta == null) {
+			return;
+		}
+
 		try {
-			event.getDelta().accept(this);
+			for (final IResourceDelta child : delta.getAffectedChildren()) {
+				current = getWatchedPaths(child);
+				if (current != null) {
+					child.accept(this);
+				}
+			}
 		} catch (final CoreException e) {
 			handleStatus(e.getStatus());
+		} finally {
+			current = null;
 		}
 	}
 
@@ -63,92 +145,55 @@ public class ResourceListener implements IResourceChangeListener,
 	 */
 	@Override
 	public boolean visit(final IResourceDelta delta) throws CoreException {
-		// get children delta
-		final IResourceDelta[] deltas = delta.getAffectedChildren(
-				IResourceDelta.ADDED | IResourceDelta.REMOVED);
-		if (deltas.length != 2) {
-			return true;
-		}
-
-		// find paths.
-		final IPath pathFrom = getPathFrom(deltas);
-		final IPath pathTo = getPathTo(deltas);
-		if (pathFrom == null || pathTo == null) {
-			return true;
-		}
-
-		// find project
-		final IProject project = getProject(delta);
-		if (project == null) {
+		final IResource resource = delta.getResource();
+		if (resource.getType() == IResource.PROJECT) {
 			return true;
 		}
 
-		// update
-		process(project, pathFrom, pathTo);
-
-		return true;
-	}
-
-	/**
-	 * Gets the moved from path.
-	 *
-	 * @param deltas
-	 *            the resource deltas to get path.
-	 * @return the moved from path, if found; <code>null</code> otherwise.
-	 * @see IResourceDelta#getMovedFromPath()
-	 */
-	private IPath getPathFrom(final IResourceDelta[] deltas) {
-		for (final IResourceDelta delta : deltas) {
-			if ((delta.getFlags() & IResourceDelta.MOVED_FROM) != 0) {
-				return delta.getMovedFromPath();
-			}
+		// moved away from a watched path?
+		final IPath path = resource.getProjectRelativePath();
+		if ((delta.getFlags() & IResourceDelta.MOVED_TO) != 0
+				&& current.paths.contains(path)) {
+			process(resource.getProject(), delta.getFullPath(),
+					delta.getMovedToPath());
 		}
-		return null;
-	}
 
-	/**
-	 * Gets the moved to path.
-	 *
-	 * @param deltas
-	 *            the resource deltas to get path.
-	 * @return the moved to path, if found; <code>null</code> otherwise.
-	 * @see IResourceDelta#getMovedToPath()
-	 */
-	private IPath getPathTo(final IResourceDelta[] deltas) {
-		for (final IResourceDelta delta : deltas) {
-			if ((delta.getFlags() & IResourceDelta.MOVED_TO) != 0) {
-				return delta.getMovedToPath();
-			}
-		}
-		return null;
+		// visit only folders leading to a watched path
+		return current.prefixes.contains(path);
 	}
 
 	/**
-	 * Gets the project from the given resource delta.
+	 * Gets the paths to watch for the given project delta.
 	 *
-	 * @param project
-	 *            the project to verify.
-	 * @return the project, if found and valid; <code>null</code> otherwise.
+	 * @param delta
+	 *            the project delta.
+	 * @return the paths to watch, if any; <code>null</code> if the project
+	 *         must not be visited.
 	 * @throws CoreException
-	 *             if an error occurs while searching the project.
+	 *             if the nature of the project cannot be checked.
 	 */
-	private IProject getProject(final IResourceDelta delta)
+	private WatchedPaths getWatchedPaths(final IResourceDelta delta)
 			throws CoreException {
-		// validate resource
-		final IResource resource = delta.getResource();
-		if (resource == null || !resource.isAccessible()
-				|| !(resource instanceof IContainer)) {
+		// validate project
+		final IProject project = (IProject) delta.getResource();
+		if (delta.getKind() == IResourceDelta.REMOVED
+				|| !project.isAccessible()) {
+			watchedPaths.remove(project);
 			return null;
 		}
-
-		// validate project
-		final IProject project = resource.getProject();
-		if (project == null || !project.isAccessible()
-				|| !project.hasNature(IConstants.NATURE_ID)) {
+		if (!project.hasNature(IConstants.NATURE_ID)) {
 			return null;
 		}
 
-		return project;
+		// rebuild if the preferences have changed
+		final ProjectSnapshot snapshot = ProjectSnapshot.of(project);
+		WatchedPaths watched = watchedPaths.get(project);
+		if (watched == null || watched.snapshot != snapshot) {
+			watched = new WatchedPaths(snapshot);
+			watchedPaths.put(project, watched);
+		}
+
+		return watched.paths.isEmpty() ? null : watched;
 	}
 
 	/**
@@ -163,23 +208,38 @@ public class ResourceListener implements IResourceChangeListener,
 	 */
 	private void process(final IProject project, final IPath pathFrom,
 			final IPath pathTo) {
-		// get paths
-		final ProjectPreferences preferences = new ProjectPreferences(project);
-		final List<IPath> includes = preferences.getIncludeRawPaths();
-		final List<IPath> excludes = preferences.getExcludeRawPaths();
+		// moved within the project?
+		final IPath fullPath = project.getFullPath();
+		if (pathTo == null || !fullPath.isPrefixOf(pathTo)) {
+			return;
+		}
 
 		// make relative
-		final IPath fullPath = project.getFullPath();
 		final IPath relativeFrom = pathFrom.makeRelativeTo(fullPath);
 		final IPath relativeTo = pathTo.makeRelativeTo(fullPath);
 
+		// find paths
+		final ProjectSnapshot snapshot = ProjectSnapshot.of(project);
+		final boolean included = snapshot.getIncludePaths()
+				.contains(relativeFrom);
+		final boolean excluded = snapshot.getExcludePaths()
+				.contains(relativeFrom);
+		if (!included && !excluded) {
+			return;
+		}
+
 		// update
-		if (includes.contains(relativeFrom)) {
+		final ProjectPreferences preferences = new ProjectPreferences(project);
+		if (included) {
+			final List<IPath> includes = new ArrayList<>(
+					snapshot.getIncludePaths());
 			includes.remove(relativeFrom);
 			includes.add(relativeTo);
 			preferences.setIncludePaths(includes);
 		}
-		if (excludes.contains(relativeFrom)) {
+		if (excluded) {
+			final List<IPath> excludes = new ArrayList<>(
+					snapshot.getExcludePaths());
 			excludes.remove(relativeFrom);
 			excludes.add(relativeTo);
 			preferences.setExcludePaths(excludes);
@@ -0,0 +1,119 @@
+/**
+ * This file is part of the twigcs-plugin package.
+ *
+ * (c) Laurent Muller <bibi@bibi.nu>
+ *
+ * For the full copyright and license information, please view the LICENSE
+ * file that was distributed with this source code.
+ */
+package nu.bibi.twigcs.core;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.eclipse.core.resources.IFile;
+import org.eclipse.core.resources.IProject;
+import org.eclipse.core.resources.IResource;
+import org.eclipse.core.resources.IResourceDelta;
+import org.eclipse.core.resources.IResourceDeltaVisitor;
+import org.eclipse.core.resources.IResourceProxy;
+import org.eclipse.core.resources.IResourceProxyVisitor;
+import org.eclipse.core.runtime.CoreException;
+
+import nu.bibi.twigcs.preferences.ProjectSnapshot;
+
+/**
+ * Resource visitor to collect Twig (*.twig) files in a single pass.
+ * <p>
+ * For a full build, this visitor must be given to
+ * {@link IProject#accept(IResourceProxyVisitor, int)} with the
+ * {@link IResource#NONE} flags, so resources are only created for the
+ * collected files. For an incremental build, the added and changed files of
+ * the delta are collected. In both cases, the folders that cannot contain any
+ * file to validate (not included or excluded) are skipped with their members,
+ * as defined by the {@link TwigcsPathFilter}.
+ * </p>
+ *
+ * @author Laurent Muller
+ * @version 1.0
+ */
+public class TwigCollectorVisitor
+		implements IResourceProxyVisitor, IResourceDeltaVisitor, IConstants {
+
+	/*
+	 * the Twig file name suffix
+	 */
+	private static final String TWIG_SUFFIX = '.' + TWIG_EXTENSION;
+
+	/*
+	 * the paths filter
+	 */
+	private final TwigcsPathFilter filter;
+
+	/*
+	 * the collected files
+	 */
+	private final List<IFile> files = new ArrayList<>();
+
+	/**
+	 * Creates a new instance of this class.
+	 *
+	 * @param project
+	 *            the project to get preferences.
+	 */
+	public TwigCollectorVisitor(final IProject project) {
+		filter = ProjectSnapshot.of(project).getFilter();
+	}
+
+	/**
+	 * Gets the collected files.
+	 *
+	 * @return the files.
+	 */
+	public List<IFile> getFiles() {
+		return files;
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public boolean visit(final IResourceDelta delta) throws CoreException {
+		if (delta.getKind() == IResourceDelta.REMOVED) {
+			return false;
+		}
+		final IResource resource = delta.getResource();
+		switch (resource.getType()) {
+		case IResource.FILE:
+			if (resource.isAccessible()
+					&& TWIG_EXTENSION.equals(resource.getFileExtension())) {
+				files.add((IFile) resource);
+			}
+			return false;
+		case IResource.FOLDER:
+			return filter.mustVisit(resource.getProjectRelativePath());
+		default:
+			return !filter.isEmpty();
+		}
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public boolean visit(final IResourceProxy proxy) throws CoreException {
+		switch (proxy.getType()) {
+		case IResource.FILE:
+			if (proxy.getName().endsWith(TWIG_SUFFIX)
+					&& proxy.isAccessible()) {
+				files.add((IFile) proxy.requestResource());
+			}
+			return false;
+		case IResource.FOLDER:
+			return filter.mustVisit(
+					proxy.requestFullPath().removeFirstSegments(1));
+		default:
+			return !filter.isEmpty();
+		}
+	}
+}
@@ -0,0 +1,643 @@
+/**
+ * This file is part of the twigcs-plugin package.
+ *
+ * (c) Laurent Muller <bibi@bibi.nu>
+ *
+ * For the full copyright and license information, please view the LICENSE
+ * file that was distributed with this source code.
+ */
+package nu.bibi.twigcs.core;
+
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.PrintStream;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import org.eclipse.core.resources.IFile;
+import org.eclipse.core.resources.IProject;
+import org.eclipse.core.resources.IProjectDescription;
+import org.eclipse.core.resources.IResource;
+import org.eclipse.core.resources.IWorkspace;
+import org.eclipse.core.resources.IWorkspaceRoot;
+import org.eclipse.core.resources.ResourcesPlugin;
+import org.eclipse.core.runtime.CoreException;
+import org.eclipse.core.runtime.IPath;
+import org.eclipse.core.runtime.IProgressMonitor;
+import org.eclipse.core.runtime.IStatus;
+import org.eclipse.core.runtime.NullProgressMonitor;
+import org.eclipse.core.runtime.Path;
+import org.eclipse.equinox.app.IApplication;
+import org.eclipse.equinox.app.IApplicationContext;
+import org.eclipse.osgi.util.NLS;
+
+import nu.bibi.twigcs.TwigcsPlugin;
+import nu.bibi.twigcs.internal.Messages;
+import nu.bibi.twigcs.json.Json;
+import nu.bibi.twigcs.json.JsonArray;
+import nu.bibi.twigcs.json.JsonObject;
+import nu.bibi.twigcs.json.WriterConfigurationPrettyPrint;
+import nu.bibi.twigcs.model.TwigFile;
+import nu.bibi.twigcs.model.TwigResult;
+import nu.bibi.twigcs.model.TwigSeverity;
+import nu.bibi.twigcs.model.TwigViolation;
+import nu.bibi.twigcs.preferences.ProjectSnapshot;
+
+/**
+ * Headless application to validate Twig files without the workbench, for
+ * example on a continuous integration server.
+ * <p>
+ * The application is launched with the <code>nu.bibi.twigcs.validate</code>
+ * identifier and accepts the following arguments:
+ * </p>
+ * <ul>
+ * <li><code>-project &lt;directory&gt;</code>: a project directory to
+ * validate. This argument can be repeated. A directory which is not yet a
+ * project of the workspace is imported for the duration of the run: if the
+ * directory does not contain a <code>.project</code> file, the import writes a
+ * new one in the directory, which is deleted, with the imported project, when
+ * the run ends. When no project is given, all the open projects of the
+ * workspace having the Twigcs nature are validated.</li>
+ * <li><code>-output &lt;file&gt;</code>: the report file. The report is written
+ * to the standard output if omitted.</li>
+ * <li><code>-processes &lt;count&gt;</code>: the number of concurrent Twigcs
+ * executions. The preference value is used if omitted.</li>
+ * </ul>
+ * <p>
+ * The files are selected and validated exactly like the builder does: the
+ * include and exclude paths and the severity of each project are read from
+ * the project preferences, and the files are passed by batches to concurrent
+ * Twigcs executions. A project without include path, for example a plain
+ * directory, is validated from its root, except for the exclude paths. The
+ * run fails if no file is validated. The global preferences (executable, batch size, etc.) are
+ * read from the workspace given with the <code>-data</code> argument and can be
+ * provided with the <code>-pluginCustomization</code> argument.
+ * </p>
+ * <p>
+ * The results of all projects are merged in a single report having the JSON
+ * format of Twigcs, so it can be read by the {@link TwigcsResultParser}. The
+ * file paths are the absolute file system paths. No marker is created.
+ * </p>
+ *
+ * @author Laurent Muller
+ * @version 1.0
+ */
+public class TwigcsApplication implements IApplication, ICoreException {
+
+	/**
+	 * The exit code when no violation is found.
+	 */
+	public static final Integer EXIT_SUCCESS = IApplication.EXIT_OK;
+
+	/**
+	 * The exit code when at least one violation is found.
+	 */
+	public static final Integer EXIT_VIOLATIONS = 1;
+
+	/**
+	 * The exit code when the arguments are invalid or a validation fails.
+	 */
+	public static final Integer EXIT_ERROR = 2;
+
+	/*
+	 * the output argument
+	 */
+	private static final String ARG_OUTPUT = "-output"; //$NON-NLS-1$
+
+	/*
+	 * the processes argument
+	 */
+	private static final String ARG_PROCESSES = "-processes"; //$NON-NLS-1$
+
+	/*
+	 * the project argument
+	 */
+	private static final String ARG_PROJECT = "-project"; //$NON-NLS-1$
+
+	/*
+	 * the failures member name
+	 */
+	private static final String KEY_FAILURES = "failures"; //$NON-NLS-1$
+
+	/*
+	 * the files member name
+	 */
+	private static final String KEY_FILES = "files"; //$NON-NLS-1$
+
+	/*
+	 * the file member name
+	 */
+	private static final String KEY_FILE = "file"; //$NON-NLS-1$
+
+	/*
+	 * the violations member name
+	 */
+	private static final String KEY_VIOLATIONS = "violations"; //$NON-NLS-1$
+
+	/*
+	 * the severity member name
+	 */
+	private static final String KEY_SEVERITY = "severity"; //$NON-NLS-1$
+
+	/*
+	 * the line member name
+	 */
+	private static final String KEY_LINE = "line"; //$NON-NLS-1$
+
+	/*
+	 * the column member name
+	 */
+	private static final String KEY_COLUMN = "column"; //$NON-NLS-1$
+
+	/*
+	 * the message member name
+	 */
+	private static final String KEY_MESSAGE = "message"; //$NON-NLS-1$
+
+	/*
+	 * the project description file name
+	 */
+	private static final String PROJECT_FILE = ".project"; //$NON-NLS-1$
+
+	/*
+	 * the project directories to validate
+	 */
+	private final List<String> directories = new ArrayList<>();
+
+	/*
+	 * the projects imported by this run
+	 */
+	private final List<IProject> imported = new ArrayList<>();
+
+	/*
+	 * the project description files created by this run
+	 */
+	private final List<File> createdFiles = new ArrayList<>();
+
+	/*
+	 * the report file or null to write to the standard output
+	 */
+	private String output;
+
+	/*
+	 * the number of concurrent executions or 0 to use the preference
+	 */
+	private int processes;
+
+	/*
+	 * the number of errors
+	 */
+	private int errors;
+
+	/*
+	 * the number of validated files
+	 */
+	private int validatedFiles;
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public Object start(final IApplicationContext context) throws Exception {
+		final String[] args = (String[]) context.getArguments()
+				.get(IApplicationContext.APPLICATION_ARGS);
+		if (!parseArguments(args)) {
+			System.err.println(Messages.TwigcsApplication_Usage);
+			return EXIT_ERROR;
+		}
+
+		final IWorkspace workspace = ResourcesPlugin.getWorkspace();
+		final IProgressMonitor monitor = new NullProgressMonitor();
+		try {
+			final List<IProject> projects = getProjects(workspace, monitor);
+			final TwigResult result = validate(projects, monitor);
+			writeReport(result);
+
+			System.err.println(NLS.bind(Messages.TwigcsApplication_Summary,
+					result.getFailures(), result.size()));
+			if (validatedFiles == 0) {
+				System.err.println(Messages.TwigcsApplication_Error_No_File);
+				return EXIT_ERROR;
+			}
+			if (errors > 0) {
+				return EXIT_ERROR;
+			}
+			return result.getFailures() > 0 ? EXIT_VIOLATIONS : EXIT_SUCCESS;
+		} catch (final CoreException e) {
+			printStatus(e.getStatus());
+			return EXIT_ERROR;
+		} catch (final IOException e) {
+			printStatus(createErrorStatus(
+					NLS.bind(Messages.TwigcsApplication_Error_Output, output),
+					e));
+			return EXIT_ERROR;
+		} finally {
+			removeImported(monitor);
+			workspace.save(true, monitor);
+		}
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public void stop() {
+		// nothing to do
+	}
+
+	/**
+	 * Gets the paths filter of the given project. If the project does not
+	 * define any include path, the project root is included.
+	 *
+	 * @param snapshot
+	 *            the project settings.
+	 * @return the paths filter.
+	 */
+	private TwigcsPathFilter getFilter(final ProjectSnapshot snapshot) {
+		final TwigcsPathFilter filter = snapshot.getFilter();
+		if (!filter.isEmpty()) {
+			return filter;
+		}
+		return new TwigcsPathFilter(Collections.singletonList(Path.EMPTY),
+				snapshot.getExcludePaths());
+	}
+
+	/**
+	 * Gets the project for the given directory. The directory is imported in
+	 * the workspace if no project is located in it; if the directory does not
+	 * contain a <code>.project</code> file, the import writes a new one. The
+	 * imported projects are removed by {@link #removeImported(IProgressMonitor)}.
+	 *
+	 * @param workspace
+	 *            the workspace.
+	 * @param directory
+	 *            the project directory.
+	 * @param monitor
+	 *            the progress monitor.
+	 * @return the open project.
+	 * @throws CoreException
+	 *             if the project cannot be created or opened.
+	 */
+	private IProject getProject(final IWorkspace workspace,
+			final String directory, final IProgressMonitor monitor)
+			throws CoreException {
+		final IPath location;
+		try {
+			location = Path.fromOSString(
+					Paths.get(directory).toRealPath().toString());
+		} catch (final IOException e) {
+			throw createCoreException(
+					NLS.bind(Messages.TwigcsApplication_Error_Project,
+							directory),
+					e);
+		}
+
+		// existing project?
+		final IWorkspaceRoot root = workspace.getRoot();
+		for (final IProject project : root.getProjects()) {
+			if (location.equals(project.getLocation())) {
+				if (!project.isOpen()) {
+					project.open(monitor);
+				}
+				project.refreshLocal(IResource.DEPTH_INFINITE, monitor);
+				return project;
+			}
+		}
+
+		// import
+		final IProjectDescription description;
+		final IPath descriptionFile = location.append(PROJECT_FILE);
+		if (descriptionFile.toFile().isFile()) {
+			description = workspace.loadProjectDescription(descriptionFile);
+		} else {
+			description = workspace
+					.newProjectDescription(location.lastSegment());
+			createdFiles.add(descriptionFile.toFile());
+		}
+		final IProject project = root.getProject(description.getName());
+		if (root.getLocation().equals(location.removeLastSegments(1))
+				&& location.lastSegment().equals(description.getName())) {
+			description.setLocation(null);
+		} else {
+			description.setLocation(location);
+		}
+		project.create(description, monitor);
+		imported.add(project);
+		project.open(monitor);
+		project.refreshLocal(IResource.DEPTH_INFINITE, monitor);
+
+		return project;
+	}
+
+	/**
+	 * Gets the projects to validate.
+	 *
+	 * @param workspace
+	 *            the workspace.
+	 * @param monitor
+	 *            the progress monitor.
+	 * @return the projects.
+	 * @throws CoreException
+	 *             if a project cannot be created or opened.
+	 */
+	private List<IProject> getProjects(final IWorkspace workspace,
+			final IProgressMonitor monitor) throws CoreException {
+		final List<IProject> projects = new ArrayList<>();
+		if (directories.isEmpty()) {
+			for (final IProject project : workspace.getRoot().getProjects()) {
+				if (project.isOpen()
+						&& project.hasNature(IConstants.NATURE_ID)) {
+					project.refreshLocal(IResource.DEPTH_INFINITE, monitor);
+					projects.add(project);
+				}
+			}
+		} else {
+			for (final String directory : directories) {
+				final IProject project = getProject(workspace, directory,
+						monitor);
+				if (!projects.contains(project)) {
+					projects.add(project);
+				}
+			}
+		}
+		return projects;
+	}
+
+	/**
+	 * Adds the violations of the given batch to the given result.
+	 *
+	 * @param result
+	 *            the result to update.
+	 * @param batch
+	 *            the completed batch.
+	 * @param severity
+	 *            the minimum severity of the violations to add.
+	 */
+	private void merge(final TwigResult result, final TwigcsBatch batch,
+			final TwigSeverity severity) {
+		final Map<IFile, TwigFile> results = batch.getResults();
+		for (final IFile file : batch.getFiles()) {
+			final TwigFile source = results.get(file);
+			if (source == null) {
+				continue;
+			}
+			final TwigFile target = new TwigFile();
+			target.setPath(file.getLocation().toOSString());
+			for (final TwigViolation violation : source) {
+				if (!violation.getSeverity().isBelow(severity)) {
+					target.addViolation(violation);
+				}
+			}
+			if (!target.isEmpty()) {
+				result.addFile(target);
+				result.setFailures(result.getFailures() + target.size());
+			}
+		}
+	}
+
+	/**
+	 * Parses the application arguments.
+	 *
+	 * @param args
+	 *            the arguments.
+	 * @return <code>true</code> if the arguments are valid.
+	 */
+	private boolean parseArguments(final String[] args) {
+		if (args == null) {
+			return true;
+		}
+		for (int i = 0; i < args.length; i++) {
+			final String arg = args[i];
+			if (i + 1 >= args.length) {
+				return false;
+			}
+			final String value = args[++i];
+			switch (arg) {
+			case ARG_PROJECT:
+				directories.add(value);
+				break;
+			case ARG_OUTPUT:
+				output = value;
+				break;
+			case ARG_PROCESSES:
+				try {
+					processes = Integer.parseInt(value);
+				} catch (final NumberFormatException e) {
+					return false;
+				}
+				if (processes <= 0) {
+					return false;
+				}
+				break;
+			default:
+				return false;
+			}
+		}
+		return true;
+	}
+
+	/**
+	 * Prints the given status to the standard error and logs it.
+	 *
+	 * @param status
+	 *            the status to print.
+	 */
+	private void printStatus(final IStatus status) {
+		System.err.println(status.getMessage());
+		if (status.getException() != null) {
+			System.err.println(status.getException().getMessage());
+		}
+		TwigcsPlugin.log(status);
+	}
+
+	/**
+	 * Removes the projects imported by this run from the workspace, without
+	 * deleting their contents, and deletes the project description files
+	 * created by the import.
+	 *
+	 * @param monitor
+	 *            the progress monitor.
+	 */
+	private void removeImported(final IProgressMonitor monitor) {
+		for (final IProject project : imported) {
+			try {
+				project.delete(IResource.NEVER_DELETE_PROJECT_CONTENT
+						| IResource.FORCE, monitor);
+			} catch (final CoreException e) {
+				printStatus(e.getStatus());
+			}
+		}
+		imported.clear();
+		for (final File file : createdFiles) {
+			try {
+				Files.deleteIfExists(file.toPath());
+			} catch (final IOException e) {
+				printStatus(createErrorStatus(NLS.bind(
+						Messages.TwigcsApplication_Error_Delete, file), e));
+			}
+		}
+		createdFiles.clear();
+	}
+
+	/**
+	 * Converts the given result to the Twigcs JSON format.
+	 *
+	 * @param result
+	 *            the result to convert.
+	 * @return the JSON object.
+	 */
+	private JsonObject toJson(final TwigResult result) {
+		final JsonArray files = Json.array();
+		for (final TwigFile file : result) {
+			final JsonArray violations = Json.array();
+			for (final TwigViolation violation : file) {
+				violations.add(Json.object() //
+						.add(KEY_LINE, violation.getLine())
+						.add(KEY_COLUMN, violation.getColumn())
+						.add(KEY_SEVERITY, violation.getSeverity().value())
+						.add(KEY_MESSAGE, violation.getMessage()));
+			}
+			files.add(Json.object().add(KEY_FILE, file.getPath())
+					.add(KEY_VIOLATIONS, violations));
+		}
+		return Json.object().add(KEY_FAILURES, result.getFailures())
+				.add(KEY_FILES, files);
+	}
+
+	/**
+	 * Validates the files of the given projects.
+	 *
+	 * @param projects
+	 *            the projects to validate.
+	 * @param monitor
+	 *            the progress monitor.
+	 * @return the merged result. The files without violations are not
+	 *         included.
+	 * @throws CoreException
+	 *             if the files cannot be collected or if the Twigcs command
+	 *             cannot be built.
+	 */
+	private TwigResult validate(final List<IProject> projects,
+			final IProgressMonitor monitor) throws CoreException {
+		final TwigResult result = new TwigResult();
+		final List<TwigSeverity> severities = new ArrayList<>();
+		final List<Future<TwigcsBatch>> futures = new ArrayList<>();
+		ExecutorService executor = null;
+
+		try {
+			for (final IProject project : projects) {
+				// collect
+				final ProjectSnapshot snapshot = ProjectSnapshot.of(project);
+				final TwigCollectorVisitor collector = new TwigCollectorVisitor(
+						project);
+				project.accept(collector, IResource.NONE);
+				final TwigcsPathFilter filter = getFilter(snapshot);
+				final List<IFile> files = new ArrayList<>();
+				for (final IFile file : collector.getFiles()) {
+					if (filter.isIncluded(file.getProjectRelativePath())) {
+						files.add(file);
+					}
+				}
+				if (files.isEmpty()) {
+					continue;
+				}
+				validatedFiles += files.size();
+
+				// submit
+				if (executor == null) {
+					final int count = processes > 0 ? processes
+							: snapshot.getMaxProcesses();
+					executor = Executors.newFixedThreadPool(count);
+				}
+				final TwigcsProcessor processor = TwigcsProcessor
+						.instance(snapshot);
+				for (final TwigcsBatch batch : TwigcsBatch.createBatches(
+						processor, files, snapshot.getBatchSize())) {
+					futures.add(executor.submit(batch));
+					severities.add(snapshot.getTwigSeverity());
+				}
+			}
+
+			// merge
+			for (int i = 0; i < futures.size(); i++) {
+				final TwigcsBatch batch = waitFor(futures.get(i));
+				if (batch.getStatus() != null) {
+					printStatus(batch.getStatus());
+					errors++;
+				} else {
+					merge(result, batch, severities.get(i));
+				}
+			}
+		} finally {
+			if (executor != null) {
+				executor.shutdownNow();
+			}
+		}
+
+		result.sort();
+		return result;
+	}
+
+	/**
+	 * Waits for the given batch to complete.
+	 *
+	 * @param future
+	 *            the submitted batch.
+	 * @return the completed batch.
+	 * @throws CoreException
+	 *             if the batch execution throws an unexpected exception or if
+	 *             the current thread is interrupted.
+	 */
+	private TwigcsBatch waitFor(final Future<TwigcsBatch> future)
+			throws CoreException {
+		try {
+			return future.get();
+		} catch (final ExecutionException e) {
+			throw createCoreException(e.getCause().getMessage(), e.getCause());
+		} catch (final InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw createCoreException(e.getMessage(), e);
+		}
+	}
+
+	/**
+	 * Writes the given result to the output file or to the standard output.
+	 *
+	 * @param result
+	 *            the result to write.
+	 * @throws IOException
+	 *             if an I/O exception occurs.
+	 */
+	private void writeReport(final TwigResult result) throws IOException {
+		final JsonObject json = toJson(result);
+		final WriterConfigurationPrettyPrint configuration = WriterConfigurationPrettyPrint
+				.indentWithSpaces(4);
+		if (output == null) {
+			final PrintStream stream = System.out;
+			final Writer writer = new OutputStreamWriter(stream,
+					StandardCharsets.UTF_8);
+			json.writeTo(writer, configuration);
+			writer.flush();
+			stream.println();
+		} else {
+			try (OutputStream stream = Files.newOutputStream(Paths.get(output));
+					Writer writer = new BufferedWriter(new OutputStreamWriter(
+							stream, StandardCharsets.UTF_8))) {
+				json.writeTo(writer, configuration);
+			}
+		}
+	}
+}
@@ -0,0 +1,492 @@
+/**
+ * This file is part of the twigcs-plugin package.
+ *
+ * (c) Laurent Muller <bibi@bibi.nu>
+ *
+ * For the full copyright and license information, please view the LICENSE
+ * file that was distributed with this source code.
+ */
+package nu.bibi.twigcs.core;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.InvalidPathException;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+
+import org.eclipse.core.resources.IFile;
+import org.eclipse.core.runtime.CoreException;
+import org.eclipse.core.runtime.IPath;
+import org.eclipse.core.runtime.IStatus;
+import org.eclipse.core.runtime.Status;
+import org.eclipse.osgi.util.NLS;
+
+import nu.bibi.twigcs.internal.Messages;
+import nu.bibi.twigcs.io.IOExecutor;
+import nu.bibi.twigcs.io.IOTimedReader;
+import nu.bibi.twigcs.io.IOWorker;
+import nu.bibi.twigcs.json.Json;
+import nu.bibi.twigcs.json.JsonValue;
+import nu.bibi.twigcs.model.TwigFile;
+import nu.bibi.twigcs.model.TwigResult;
+
+/**
+ * A batch of Twig files validated by a single Twigcs execution.
+ * <p>
+ * The {@link #call()} method runs the Twigcs process and parses its output
+ * while the process writes it. It does not access the workspace, so it can be
+ * invoked from any thread. The markers must be updated by the caller from the
+ * results.
+ * </p>
+ * <p>
+ * If a resident worker is {@link #setWorker(TwigcsWorkerPool, List, String, int)
+ * set}, the request is first sent to a worker of the pool. The Twigcs process
+ * is only executed if no worker can answer.
+ * </p>
+ *
+ * @author Laurent Muller
+ * @version 1.0
+ */
+public class TwigcsBatch implements Callable<TwigcsBatch>, ICoreException {
+
+	/*
+	 * the key of the worker error response
+	 */
+	private static final String KEY_ERROR = "error"; //$NON-NLS-1$
+
+	/*
+	 * the start of the worker error response
+	 */
+	private static final String ERROR_PREFIX = "{\"" + KEY_ERROR + "\":"; //$NON-NLS-1$ //$NON-NLS-2$
+
+	/**
+	 * The maximum length of the search paths for a single execution. Windows
+	 * batch files are limited to 8191 characters for the whole command line.
+	 */
+	public static final int MAX_PATHS_LENGTH = 6000;
+
+	/**
+	 * Creates a batch for the given files.
+	 *
+	 * @param processor
+	 *            the processor to build the command with. The search paths of
+	 *            the processor are set to the paths of the files.
+	 * @param files
+	 *            the files to validate.
+	 * @return the batch.
+	 * @throws CoreException
+	 *             if some parameters are missing or invalid.
+	 */
+	public static TwigcsBatch create(final TwigcsProcessor processor,
+			final List<IFile> files) throws CoreException {
+		final List<String> paths = new ArrayList<>(files.size());
+		for (final IFile file : files) {
+			paths.add(getSearchPath(file));
+		}
+		processor.setSearchPaths(paths);
+		return new TwigcsBatch(files, processor.buildCommand());
+	}
+
+	/**
+	 * Creates the batches for the given files. The files are split by the
+	 * batch size and by the maximum length of the search paths.
+	 *
+	 * @param processor
+	 *            the processor to build the commands with.
+	 * @param files
+	 *            the files to validate.
+	 * @param batchSize
+	 *            the maximum number of files by batch.
+	 * @return the batches.
+	 * @throws CoreException
+	 *             if some parameters are missing or invalid.
+	 * @see #isFull(int, int, int)
+	 */
+	public static List<TwigcsBatch> createBatches(
+			final TwigcsProcessor processor, final List<IFile> files,
+			final int batchSize) throws CoreException {
+		final List<TwigcsBatch> batches = new ArrayList<>();
+		List<IFile> batchFiles = new ArrayList<>();
+		int length = 0;
+		for (final IFile file : files) {
+			batchFiles.add(file);
+			length += getSearchPath(file).length() + 1;
+			if (isFull(batchFiles.size(), length, batchSize)) {
+				batches.add(create(processor, batchFiles));
+				batchFiles = new ArrayList<>();
+				length = 0;
+			}
+		}
+		if (!batchFiles.isEmpty()) {
+			batches.add(create(processor, batchFiles));
+		}
+		return batches;
+	}
+
+	/**
+	 * Gets the search path (location) of the given file.
+	 *
+	 * @param file
+	 *            the file to get path for.
+	 * @return the search path.
+	 */
+	public static String getSearchPath(final IFile file) {
+		return file.getLocation().toPortableString();
+	}
+
+	/**
+	 * Returns if a batch with the given files must be submitted without
+	 * adding more files.
+	 *
+	 * @param count
+	 *            the number of files.
+	 * @param pathsLength
+	 *            the length of the search paths, including a separator for
+	 *            each path.
+	 * @param batchSize
+	 *            the maximum number of files by batch.
+	 * @return <code>true</code> if the batch size or the maximum length of
+	 *         the search paths is reached.
+	 */
+	public static boolean isFull(final int count, final int pathsLength,
+			final int batchSize) {
+		return count >= batchSize || pathsLength >= MAX_PATHS_LENGTH;
+	}
+
+	/*
+	 * the files to validate
+	 */
+	private final List<IFile> files;
+
+	/*
+	 * the command to execute
+	 */
+	private final List<String> command;
+
+	/*
+	 * the file results
+	 */
+	private Map<IFile, TwigFile> results;
+
+	/*
+	 * true if all the reported violations are mapped
+	 */
+	private boolean complete;
+
+	/*
+	 * the error status
+	 */
+	private IStatus status;
+
+	/*
+	 * the resident workers pool
+	 */
+	private TwigcsWorkerPool pool;
+
+	/*
+	 * the command to start a resident worker
+	 */
+	private List<String> workerCommand;
+
+	/*
+	 * the request to send to a resident worker
+	 */
+	private String request;
+
+	/*
+	 * the maximum number of resident workers
+	 */
+	private int maxWorkers;
+
+	/*
+	 * the statistics to record timings into
+	 */
+	private TwigcsBuildStatistics statistics = TwigcsBuildStatistics.DISABLED;
+
+	/**
+	 * Creates a new instance of this class.
+	 *
+	 * @param files
+	 *            the files to validate.
+	 * @param command
+	 *            the Twigcs program and its arguments.
+	 */
+	public TwigcsBatch(final List<IFile> files, final List<String> command) {
+		this.files = files;
+		this.command = command;
+		results = Collections.emptyMap();
+	}
+
+	/**
+	 * {@inheritDoc}
+	 * <p>
+	 * The implementation of <code>TwigcsBatch</code> runs the Twigcs process
+	 * and maps the parsed result to the validated files. The returned value is
+	 * this instance.
+	 * </p>
+	 */
+	@Override
+	public TwigcsBatch call() {
+		// resident worker?
+		if (request != null && callWorker()) {
+			return this;
+		}
+
+		try {
+			// run and convert the output while reading
+			final TwigcsResultParser parser = new TwigcsResultParser();
+			final IOExecutor executor = new IOExecutor();
+			final long start = statistics.start();
+			final int exitCode = executor.run(command, reader -> {
+				// exclude the time waiting for the process output
+				final IOTimedReader timedReader = new IOTimedReader(reader);
+				final long parseStart = statistics.start();
+				final TwigResult result = parser.parse(timedReader);
+				if (parseStart != 0L) {
+					statistics.record(TwigcsPhase.PARSE, System.nanoTime()
+							- parseStart - timedReader.getReadNanos());
+				}
+				results = mapResult(result);
+			});
+			statistics.stop(TwigcsPhase.PROCESS, start);
+
+			// output?
+			if (executor.getOutputException() != null) {
+				status = createErrorStatus(getErrorMessage(-1),
+						executor.getOutputException());
+			} else if (executor.isOutputEmpty() && exitCode != 0) { // error?
+				IOException e = executor.getErrorException();
+				final String error = executor.getError();
+				if (!error.isEmpty()) {
+					e = new IOException(error, e);
+				}
+				status = createErrorStatus(getErrorMessage(exitCode), e);
+			} else if (!executor.isOutputEmpty() && !complete
+					&& status == null) { // not parsed?
+				status = createErrorStatus(getErrorMessage(-1),
+						new IOException(Messages.TwigcsBatch_Error_No_Result));
+			}
+		} catch (final IOException e) {
+			status = createErrorStatus(getErrorMessage(-1), e);
+		}
+
+		return this;
+	}
+
+	/**
+	 * Gets the validated files.
+	 *
+	 * @return the files.
+	 */
+	public List<IFile> getFiles() {
+		return files;
+	}
+
+	/**
+	 * Gets the file results. Files without violations may be absent.
+	 *
+	 * @return the file results mapped by their corresponding file.
+	 */
+	public Map<IFile, TwigFile> getResults() {
+		return results;
+	}
+
+	/**
+	 * Gets the error status. The status is {@link Status#CANCEL_STATUS} if the
+	 * thread running this batch has been interrupted.
+	 *
+	 * @return the error status, if an error occurred or if the validation has
+	 *         been canceled; <code>null</code> otherwise.
+	 */
+	public IStatus getStatus() {
+		return status;
+	}
+
+	/**
+	 * Returns if all the violations reported by Twigcs are mapped to the
+	 * validated files. If <code>true</code>, the files absent from the
+	 * {@link #getResults() results} have no violation.
+	 *
+	 * @return <code>true</code> if the results are complete.
+	 */
+	public boolean isComplete() {
+		return complete;
+	}
+
+	/**
+	 * Sets the statistics to record the process and parsing timings into.
+	 *
+	 * @param statistics
+	 *            the build statistics.
+	 */
+	public void setStatistics(final TwigcsBuildStatistics statistics) {
+		this.statistics = statistics;
+	}
+
+	/**
+	 * Sets the resident worker to send the request to.
+	 *
+	 * @param pool
+	 *            the workers pool.
+	 * @param workerCommand
+	 *            the command to start a worker.
+	 * @param request
+	 *            the request to send.
+	 * @param maxWorkers
+	 *            the maximum number of workers.
+	 */
+	public void setWorker(final TwigcsWorkerPool pool,
+			final List<String> workerCommand, final String request,
+			final int maxWorkers) {
+		this.pool = pool;
+		this.workerCommand = workerCommand;
+		this.request = request;
+		this.maxWorkers = maxWorkers;
+	}
+
+	/**
+	 * Sends the request to a resident worker and parses its response.
+	 *
+	 * @return <code>true</code> if the worker has answered or if the
+	 *         validation is canceled; <code>false</code> if the Twigcs process
+	 *         must be executed.
+	 */
+	private boolean callWorker() {
+		IOWorker worker = null;
+		try {
+			worker = pool.borrow(workerCommand, maxWorkers);
+			final long start = statistics.start();
+			final String output = worker.request(request);
+			statistics.stop(TwigcsPhase.WORKER, start);
+			if (output.startsWith(ERROR_PREFIX)) {
+				final JsonValue error = Json.parse(output).asObject()
+						.get(KEY_ERROR);
+				status = createErrorStatus(getErrorMessage(-1),
+						new IOException(error.asString()));
+			} else {
+				final long parseStart = statistics.start();
+				final TwigResult result = new TwigcsResultParser()
+						.parse(output);
+				statistics.stop(TwigcsPhase.PARSE, parseStart);
+				results = mapResult(result);
+			}
+			return true;
+		} catch (final IOException | RuntimeException e) {
+			if (Thread.currentThread().isInterrupted()) {
+				status = Status.CANCEL_STATUS;
+				return true;
+			}
+			// fall back to the process
+			return false;
+		} catch (final InterruptedException e) {
+			Thread.currentThread().interrupt();
+			status = Status.CANCEL_STATUS;
+			return true;
+		} finally {
+			if (worker != null) {
+				pool.release(worker);
+			}
+		}
+	}
+
+	/**
+	 * Gets the error message.
+	 *
+	 * @param exitCode
+	 *            the exit code or -1 if the execution fails.
+	 * @return the error message.
+	 */
+	private String getErrorMessage(final int exitCode) {
+		if (files.size() == 1) {
+			final String name = files.get(0).getName();
+			if (exitCode == -1) {
+				return NLS.bind(Messages.ValidationVisitor_Error_Validate_Name,
+						name);
+			}
+			return NLS.bind(Messages.ValidationVisitor_Error_Validate_Code,
+					name, exitCode);
+		}
+		if (exitCode == -1) {
+			return NLS.bind(Messages.ValidationVisitor_Error_Validate_Batch,
+					files.size());
+		}
+		return NLS.bind(Messages.ValidationVisitor_Error_Validate_Batch_Code,
+				files.size(), exitCode);
+	}
+
+	/**
+	 * Maps the execution result to the validated files. The paths are
+	 * compared once resolved to real paths, so the same file is found
+	 * whatever the way Twigcs reports it. If a reported file is not found or
+	 * if some violations are not mapped, the error status is set.
+	 *
+	 * @param result
+	 *            the execution result.
+	 * @return the file results mapped by their corresponding file.
+	 */
+	private Map<IFile, TwigFile> mapResult(final TwigResult result) {
+		final Map<IFile, TwigFile> map = new HashMap<>();
+		if (result.isEmpty() && result.getFailures() == 0) {
+			complete = true;
+			return map;
+		}
+
+		// map by real path
+		final Map<String, IFile> locations = new HashMap<>();
+		for (final IFile file : files) {
+			final IPath location = file.getLocation();
+			if (location != null) {
+				locations.put(toRealPath(location.toOSString()), file);
+			}
+		}
+		int violations = 0;
+		for (final TwigFile twigFile : result) {
+			final String path = twigFile.getPath();
+			final IFile file = path == null ? null
+					: locations.get(toRealPath(path));
+			if (file == null) {
+				status = createErrorStatus(getErrorMessage(-1),
+						new IOException(NLS.bind(
+								Messages.TwigcsBatch_Error_Unknown_File,
+								path)));
+				return map;
+			}
+			map.put(file, twigFile);
+			violations += twigFile.size();
+		}
+
+		// all violations mapped?
+		if (result.getFailures() > violations) {
+			status = createErrorStatus(getErrorMessage(-1),
+					new IOException(NLS.bind(
+							Messages.TwigcsBatch_Error_Failures,
+							result.getFailures(), violations)));
+		} else {
+			complete = true;
+		}
+
+		return map;
+	}
+
+	/**
+	 * Resolves the given path to the real path of the file. If the file cannot
+	 * be resolved, the path is made absolute and normalized.
+	 *
+	 * @param path
+	 *            the path to resolve.
+	 * @return the resolved path.
+	 */
+	private String toRealPath(final String path) {
+		try {
+			return Paths.get(path).toRealPath().toString();
+		} catch (final IOException | InvalidPathException e) {
+			return new File(path).getAbsoluteFile().toPath().normalize()
+					.toString();
+		}
+	}
+}
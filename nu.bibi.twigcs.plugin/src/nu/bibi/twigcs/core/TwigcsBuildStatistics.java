@@ -0,0 +1,403 @@
+/**
+ * This file is part of the twigcs-plugin package.
+ *
+ * (c) Laurent Muller <bibi@bibi.nu>
+ *
+ * For the full copyright and license information, please view the LICENSE
+ * file that was distributed with this source code.
+ */
+package nu.bibi.twigcs.core;
+
+import java.util.Arrays;
+
+/**
+ * The timings of the phases of a single validation (build).
+ * <p>
+ * The duration of each phase is measured with {@link #start()} and
+ * {@link #stop(TwigcsPhase, long)}, like the following example:
+ * </p>
+ *
+ * <pre>
+ * final long start = statistics.start();
+ * // measured code
+ * statistics.stop(TwigcsPhase.PARSE, start);
+ * </pre>
+ * <p>
+ * For each phase, the number of calls, the total, minimum and maximum
+ * durations and a histogram of the durations are aggregated. The histogram
+ * buckets are bounded by powers of ten, from 1 microsecond to 10 seconds.
+ * </p>
+ * <p>
+ * The statistics returned when the collection is disabled do not read the
+ * clock and record nothing. This class is thread-safe.
+ * </p>
+ *
+ * @author Laurent Muller
+ * @version 1.0
+ * @see TwigcsStatistics
+ */
+public class TwigcsBuildStatistics {
+
+	/**
+	 * The upper bounds, in nanoseconds, of the histogram buckets. The last
+	 * bucket contains the durations greater than or equal to the last bound.
+	 */
+	private static final long[] BUCKET_BOUNDS = { //
+			1_000L, // 1 microsecond
+			10_000L, //
+			100_000L, //
+			1_000_000L, // 1 millisecond
+			10_000_000L, //
+			100_000_000L, //
+			1_000_000_000L, // 1 second
+			10_000_000_000L };
+
+	/**
+	 * The number of histogram buckets.
+	 */
+	public static final int BUCKET_COUNT = BUCKET_BOUNDS.length + 1;
+
+	/*
+	 * the statistics recording nothing
+	 */
+	static final TwigcsBuildStatistics DISABLED = new TwigcsBuildStatistics(
+			"", false); //$NON-NLS-1$
+
+	/*
+	 * the number of phases
+	 */
+	private static final int PHASE_COUNT = TwigcsPhase.values().length;
+
+	/**
+	 * Formats the given duration in milliseconds.
+	 *
+	 * @param nanos
+	 *            the duration, in nanoseconds.
+	 * @return the formatted duration.
+	 */
+	public static String formatDuration(final long nanos) {
+		return String.format("%.3f ms", nanos / 1_000_000.0); //$NON-NLS-1$
+	}
+
+	/**
+	 * Gets the label of the given histogram bucket.
+	 *
+	 * @param bucket
+	 *            the bucket index.
+	 * @return the bucket label.
+	 */
+	public static String getBucketLabel(final int bucket) {
+		if (bucket < BUCKET_BOUNDS.length) {
+			return "< " + formatBound(BUCKET_BOUNDS[bucket]); //$NON-NLS-1$
+		}
+		return ">= " + formatBound(BUCKET_BOUNDS[bucket - 1]); //$NON-NLS-1$
+	}
+
+	/**
+	 * Formats the given bucket bound.
+	 *
+	 * @param nanos
+	 *            the bound, in nanoseconds.
+	 * @return the formatted bound.
+	 */
+	private static String formatBound(final long nanos) {
+		if (nanos >= 1_000_000_000L) {
+			return nanos / 1_000_000_000L + " s"; //$NON-NLS-1$
+		}
+		if (nanos >= 1_000_000L) {
+			return nanos / 1_000_000L + " ms"; //$NON-NLS-1$
+		}
+		return nanos / 1_000L + " \u00b5s"; //$NON-NLS-1$
+	}
+
+	/**
+	 * Gets the histogram bucket of the given duration.
+	 *
+	 * @param nanos
+	 *            the duration, in nanoseconds.
+	 * @return the bucket index.
+	 */
+	private static int getBucket(final long nanos) {
+		int bucket = 0;
+		while (bucket < BUCKET_BOUNDS.length
+				&& nanos >= BUCKET_BOUNDS[bucket]) {
+			bucket++;
+		}
+		return bucket;
+	}
+
+	/*
+	 * the build name
+	 */
+	private final String name;
+
+	/*
+	 * the enablement state
+	 */
+	private final boolean enabled;
+
+	/*
+	 * the start time, in milliseconds
+	 */
+	private final long startTime;
+
+	/*
+	 * the start of the build, in nanoseconds
+	 */
+	private final long startNanos;
+
+	/*
+	 * the duration of the build, in nanoseconds
+	 */
+	private long elapsed;
+
+	/*
+	 * the number of calls by phase
+	 */
+	private final long[] counts = new long[PHASE_COUNT];
+
+	/*
+	 * the total durations by phase
+	 */
+	private final long[] totals = new long[PHASE_COUNT];
+
+	/*
+	 * the minimum durations by phase
+	 */
+	private final long[] minimums = new long[PHASE_COUNT];
+
+	/*
+	 * the maximum durations by phase
+	 */
+	private final long[] maximums = new long[PHASE_COUNT];
+
+	/*
+	 * the histograms by phase
+	 */
+	private final long[][] histograms = new long[PHASE_COUNT][BUCKET_COUNT];
+
+	/*
+	 * the number of files validated by Twigcs
+	 */
+	private int files;
+
+	/*
+	 * the number of files restored from the results cache
+	 */
+	private int cachedFiles;
+
+	/**
+	 * Creates a new instance of this class.
+	 *
+	 * @param name
+	 *            the build name.
+	 * @param enabled
+	 *            <code>true</code> to record the durations.
+	 */
+	TwigcsBuildStatistics(final String name, final boolean enabled) {
+		this.name = name;
+		this.enabled = enabled;
+		startTime = enabled ? System.currentTimeMillis() : 0L;
+		startNanos = enabled ? System.nanoTime() : 0L;
+		Arrays.fill(minimums, Long.MAX_VALUE);
+	}
+
+	/**
+	 * Adds a file restored from the results cache.
+	 */
+	public synchronized void addCachedFile() {
+		if (enabled) {
+			cachedFiles++;
+		}
+	}
+
+	/**
+	 * Adds the given number of files validated by Twigcs.
+	 *
+	 * @param count
+	 *            the number of files.
+	 */
+	public synchronized void addFiles(final int count) {
+		if (enabled) {
+			files += count;
+		}
+	}
+
+	/**
+	 * Gets the average duration of the given phase.
+	 *
+	 * @param phase
+	 *            the phase.
+	 * @return the average duration, in nanoseconds.
+	 */
+	public synchronized long getAverage(final TwigcsPhase phase) {
+		final long count = counts[phase.ordinal()];
+		return count == 0 ? 0L : totals[phase.ordinal()] / count;
+	}
+
+	/**
+	 * Gets the number of files restored from the results cache.
+	 *
+	 * @return the number of files.
+	 */
+	public synchronized int getCachedFiles() {
+		return cachedFiles;
+	}
+
+	/**
+	 * Gets the number of calls of the given phase.
+	 *
+	 * @param phase
+	 *            the phase.
+	 * @return the number of calls.
+	 */
+	public synchronized long getCount(final TwigcsPhase phase) {
+		return counts[phase.ordinal()];
+	}
+
+	/**
+	 * Gets the duration of the build.
+	 *
+	 * @return the duration, in nanoseconds.
+	 */
+	public synchronized long getElapsed() {
+		return elapsed;
+	}
+
+	/**
+	 * Gets the number of files validated by Twigcs.
+	 *
+	 * @return the number of files.
+	 */
+	public synchronized int getFiles() {
+		return files;
+	}
+
+	/**
+	 * Gets the histogram of the given phase.
+	 *
+	 * @param phase
+	 *            the phase.
+	 * @return a copy of the number of calls by bucket.
+	 * @see #getBucketLabel(int)
+	 */
+	public synchronized long[] getHistogram(final TwigcsPhase phase) {
+		return histograms[phase.ordinal()].clone();
+	}
+
+	/**
+	 * Gets the maximum duration of the given phase.
+	 *
+	 * @param phase
+	 *            the phase.
+	 * @return the maximum duration, in nanoseconds.
+	 */
+	public synchronized long getMaximum(final TwigcsPhase phase) {
+		return maximums[phase.ordinal()];
+	}
+
+	/**
+	 * Gets the minimum duration of the given phase.
+	 *
+	 * @param phase
+	 *            the phase.
+	 * @return the minimum duration, in nanoseconds.
+	 */
+	public synchronized long getMinimum(final TwigcsPhase phase) {
+		final int index = phase.ordinal();
+		return counts[index] == 0 ? 0L : minimums[index];
+	}
+
+	/**
+	 * Gets the build name.
+	 *
+	 * @return the name.
+	 */
+	public String getName() {
+		return name;
+	}
+
+	/**
+	 * Gets the start time of the build.
+	 *
+	 * @return the start time, in milliseconds.
+	 * @see System#currentTimeMillis()
+	 */
+	public long getStartTime() {
+		return startTime;
+	}
+
+	/**
+	 * Gets the total duration of the given phase.
+	 *
+	 * @param phase
+	 *            the phase.
+	 * @return the total duration, in nanoseconds.
+	 */
+	public synchronized long getTotal(final TwigcsPhase phase) {
+		return totals[phase.ordinal()];
+	}
+
+	/**
+	 * Returns if the durations are recorded.
+	 *
+	 * @return <code>true</code> if enabled.
+	 */
+	public boolean isEnabled() {
+		return enabled;
+	}
+
+	/**
+	 * Adds the given duration to the given phase.
+	 *
+	 * @param phase
+	 *            the phase.
+	 * @param nanos
+	 *            the duration, in nanoseconds.
+	 */
+	public synchronized void record(final TwigcsPhase phase,
+			final long nanos) {
+		if (!enabled) {
+			return;
+		}
+		final int index = phase.ordinal();
+		counts[index]++;
+		totals[index] += nanos;
+		minimums[index] = Math.min(minimums[index], nanos);
+		maximums[index] = Math.max(maximums[index], nanos);
+		histograms[index][getBucket(nanos)]++;
+	}
+
+	/**
+	 * Starts measuring a phase.
+	 *
+	 * @return the start time, in nanoseconds, to give to
+	 *         {@link #stop(TwigcsPhase, long)}; 0 if disabled.
+	 */
+	public long start() {
+		return enabled ? System.nanoTime() : 0L;
+	}
+
+	/**
+	 * Stops measuring a phase and records its duration.
+	 *
+	 * @param phase
+	 *            the measured phase.
+	 * @param start
+	 *            the value returned by {@link #start()}.
+	 */
+	public void stop(final TwigcsPhase phase, final long start) {
+		if (start != 0L) {
+			record(phase, System.nanoTime() - start);
+		}
+	}
+
+	/**
+	 * Ends the build.
+	 */
+	synchronized void end() {
+		if (enabled) {
+			elapsed = System.nanoTime() - startNanos;
+		}
+	}
+}
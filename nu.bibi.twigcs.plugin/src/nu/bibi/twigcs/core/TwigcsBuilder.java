@@ -13,6 +13,7 @@ import java.util.List;
 import java.util.Map;
 import java.util.stream.Collectors;
 
+import org.eclipse.core.resources.IFile;
 import org.eclipse.core.resources.IProject;
 import org.eclipse.core.resources.IResource;
 import org.eclipse.core.resources.IResourceDelta;
@@ -22,10 +23,15 @@ import org.eclipse.core.resources.ResourcesPlugin;
 import org.eclipse.core.runtime.CoreException;
 import org.eclipse.core.runtime.IProgressMonitor;
 
-import nu.bibi.twigcs.internal.Messages;
+import nu.bibi.twigcs.TwigcsPlugin;
+import nu.bibi.twigcs.preferences.ProjectSnapshot;
 
 /**
  * Twigcs project builder.
+ * <p>
+ * If the background validation is enabled, the builder only collects the
+ * files to validate and enqueues them in the {@link TwigcsValidationJob}.
+ * </p>
  *
  * @author Laurent Muller
  * @version 1.0
@@ -102,44 +108,19 @@ public class TwigcsBuilder extends IncrementalProjectBuilder
 	 * {@inheritDoc}
 	 * <p>
 	 * The implementation of <code>TwigcsBuilder</code> delete all Twigcs
-	 * markers.
+	 * markers and the files of the project waiting for a background
+	 * validation.
 	 * </p>
 	 */
 	@Override
 	protected void clean(final IProgressMonitor monitor) throws CoreException {
+		final TwigcsPlugin plugin = TwigcsPlugin.getDefault();
+		if (plugin != null) {
+			plugin.getValidationJob().remove(getProject());
+		}
 		getProject().deleteMarkers(MARKER_TYPE, true, IResource.DEPTH_INFINITE);
 	}
 
-	/**
-	 * Gets the number of Twig files.
-	 *
-	 * @param project
-	 *            the project to visit.
-	 * @return the number of files.
-	 * @throws CoreException
-	 *             if the visit fails.
-	 */
-	private int countFiles(final IProject project) throws CoreException {
-		final TwigCounterVisitor counter = new TwigCounterVisitor();
-		project.accept(counter);
-		return counter.getFiles();
-	}
-
-	/**
-	 * Gets the number of Twig files.
-	 *
-	 * @param delta
-	 *            the resource delta to visit.
-	 * @return the number of files.
-	 * @throws CoreException
-	 *             if the visit fails.
-	 */
-	private int countFiles(final IResourceDelta delta) throws CoreException {
-		final TwigCounterVisitor counter = new TwigCounterVisitor();
-		delta.accept(counter);
-		return counter.getFiles();
-	}
-
 	/**
 	 * Runs the full build.
 	 *
@@ -151,13 +132,10 @@ public class TwigcsBuilder extends IncrementalProjectBuilder
 	private void fullBuild(final IProgressMonitor monitor)
 			throws CoreException {
 		final IProject project = getProject();
-		final int totalWork = countFiles(project);
-		try {
-			monitor.beginTask(Messages.TwigcsBuilder_Process_Files, totalWork);
-			project.accept(new TwigcsValidationVisitor(project, monitor));
-		} finally {
-			monitor.done();
-		}
+		final TwigCollectorVisitor collector = new TwigCollectorVisitor(
+				project);
+		project.accept(collector, IResource.NONE);
+		validate(collector.getFiles(), monitor);
 	}
 
 	/**
@@ -170,13 +148,37 @@ public class TwigcsBuilder extends IncrementalProjectBuilder
 	 */
 	private void incrementalBuild(final IResourceDelta delta,
 			final IProgressMonitor monitor) throws CoreException {
-		final IProject project = getProject();
-		final int totalWork = countFiles(delta);
-		try {
-			monitor.beginTask(Messages.TwigcsBuilder_Process_Files, totalWork);
-			delta.accept(new TwigcsValidationVisitor(project, monitor));
-		} finally {
-			monitor.done();
+		final TwigCollectorVisitor collector = new TwigCollectorVisitor(
+				getProject());
+		delta.accept(collector);
+		validate(collector.getFiles(), monitor);
+	}
+
+	/**
+	 * Validates the given files.
+	 *
+	 * @param files
+	 *            the collected files to validate.
+	 * @param monitor
+	 *            the progress monitor.
+	 * @throws CoreException
+	 *             if the build fails.
+	 */
+	private void validate(final List<IFile> files,
+			final IProgressMonitor monitor) throws CoreException {
+		if (files.isEmpty()) {
+			return;
 		}
+
+		// background?
+		if (ProjectSnapshot.of(getProject()).isBackgroundValidation()) {
+			TwigcsPlugin.getDefault().getValidationJob().enqueue(getProject(),
+					files);
+			return;
+		}
+
+		final TwigcsValidationVisitor visitor = new TwigcsValidationVisitor(
+				getProject(), monitor);
+		visitor.validate(files);
 	}
 }
@@ -0,0 +1,194 @@
+/**
+ * This file is part of the twigcs-plugin package.
+ *
+ * (c) Laurent Muller <bibi@bibi.nu>
+ *
+ * For the full copyright and license information, please view the LICENSE
+ * file that was distributed with this source code.
+ */
+package nu.bibi.twigcs.core;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.eclipse.core.runtime.IPath;
+
+/**
+ * Filter of the project relative paths to validate.
+ * <p>
+ * The include and exclude paths are compiled into a prefix tree of path
+ * segments. A path is filtered by the deepest include or exclude path that is
+ * a prefix of it (longest match). If the same path is both included and
+ * excluded, the include path has priority.
+ * </p>
+ * <p>
+ * A container must be visited only if it is included or if it contains an
+ * include path, so the excluded and the never included subtrees are skipped.
+ * </p>
+ *
+ * @author Laurent Muller
+ * @version 1.0
+ */
+public class TwigcsPathFilter {
+
+	/**
+	 * A node of the prefix tree.
+	 */
+	private static class Node {
+
+		/*
+		 * the child nodes mapped by segment
+		 */
+		private Map<String, Node> children;
+
+		/*
+		 * the match state
+		 */
+		private int state = STATE_NONE;
+
+		/*
+		 * true if an include path is at or below this node
+		 */
+		private boolean includeBelow;
+
+		/**
+		 * Gets the child node for the given segment.
+		 *
+		 * @param segment
+		 *            the path segment.
+		 * @return the child node, if any; <code>null</code> otherwise.
+		 */
+		Node get(final String segment) {
+			return children != null ? children.get(segment) : null;
+		}
+
+		/**
+		 * Gets or creates the child node for the given segment.
+		 *
+		 * @param segment
+		 *            the path segment.
+		 * @return the child node.
+		 */
+		Node getOrCreate(final String segment) {
+			if (children == null) {
+				children = new HashMap<>();
+			}
+			return children.computeIfAbsent(segment, s -> new Node());
+		}
+	}
+
+	/*
+	 * the state for nodes without include or exclude path
+	 */
+	private static final int STATE_NONE = 0;
+
+	/*
+	 * the state for excluded nodes
+	 */
+	private static final int STATE_EXCLUDE = 1;
+
+	/*
+	 * the state for included nodes
+	 */
+	private static final int STATE_INCLUDE = 2;
+
+	/*
+	 * the root node (project)
+	 */
+	private final Node root = new Node();
+
+	/**
+	 * Creates a new instance of this class.
+	 *
+	 * @param includePaths
+	 *            the project relative paths to include.
+	 * @param excludePaths
+	 *            the project relative paths to exclude.
+	 */
+	public TwigcsPathFilter(final List<IPath> includePaths,
+			final List<IPath> excludePaths) {
+		for (final IPath path : excludePaths) {
+			add(path, STATE_EXCLUDE);
+		}
+		for (final IPath path : includePaths) {
+			add(path, STATE_INCLUDE);
+		}
+	}
+
+	/**
+	 * Returns if this filter does not include any path.
+	 *
+	 * @return <code>true</code> if no path is included.
+	 */
+	public boolean isEmpty() {
+		return !root.includeBelow;
+	}
+
+	/**
+	 * Returns if the given path is included. The state of the deepest include
+	 * or exclude path that is a prefix of the given path is returned.
+	 *
+	 * @param path
+	 *            the project relative path to test.
+	 * @return <code>true</code> if included.
+	 */
+	public boolean isIncluded(final IPath path) {
+		Node node = root;
+		int state = root.state;
+		for (int i = 0, count = path.segmentCount(); i < count; i++) {
+			node = node.get(path.segment(i));
+			if (node == null) {
+				break;
+			}
+			if (node.state != STATE_NONE) {
+				state = node.state;
+			}
+		}
+		return state == STATE_INCLUDE;
+	}
+
+	/**
+	 * Returns if the members of the given container must be visited. The
+	 * members must be visited if the container is included or if it contains
+	 * an include path.
+	 *
+	 * @param path
+	 *            the project relative path of the container.
+	 * @return <code>true</code> to visit members; <code>false</code> to skip
+	 *         the whole subtree.
+	 */
+	public boolean mustVisit(final IPath path) {
+		Node node = root;
+		int state = root.state;
+		for (int i = 0, count = path.segmentCount(); i < count; i++) {
+			node = node.get(path.segment(i));
+			if (node == null) {
+				return state == STATE_INCLUDE;
+			}
+			if (node.state != STATE_NONE) {
+				state = node.state;
+			}
+		}
+		return state == STATE_INCLUDE || node.includeBelow;
+	}
+
+	/**
+	 * Adds the given path.
+	 *
+	 * @param path
+	 *            the project relative path to add.
+	 * @param state
+	 *            the path state.
+	 */
+	private void add(final IPath path, final int state) {
+		final boolean include = state == STATE_INCLUDE;
+		Node node = root;
+		node.includeBelow |= include;
+		for (int i = 0, count = path.segmentCount(); i < count; i++) {
+			node = node.getOrCreate(path.segment(i));
+			node.includeBelow |= include;
+		}
+		node.state = state;
+	}
+}
@@ -0,0 +1,76 @@
+/**
+ * This file is part of the twigcs-plugin package.
+ *
+ * (c) Laurent Muller <bibi@bibi.nu>
+ *
+ * For the full copyright and license information, please view the LICENSE
+ * file that was distributed with this source code.
+ */
+package nu.bibi.twigcs.core;
+
+import nu.bibi.twigcs.internal.Messages;
+
+/**
+ * The measured phases of a validation.
+ *
+ * @author Laurent Muller
+ * @version 1.0
+ * @see TwigcsStatistics
+ */
+public enum TwigcsPhase {
+
+	/**
+	 * The execution of a Twigcs process, from the start of the process to its
+	 * termination. This includes the parsing of the output, which is done
+	 * while the process writes it.
+	 */
+	PROCESS(Messages.TwigcsPhase_Process),
+
+	/**
+	 * The request sent to a resident worker, from the request to the response.
+	 */
+	WORKER(Messages.TwigcsPhase_Worker),
+
+	/**
+	 * The conversion of the Twigcs output to a result. For a process, the time
+	 * waiting for its output is excluded; for a resident worker, the response
+	 * is parsed once received. The mapping of the result to the validated
+	 * files is not included.
+	 */
+	PARSE(Messages.TwigcsPhase_Parse),
+
+	/**
+	 * The loading of the file contents used to compute the marker offsets.
+	 */
+	RESOURCE_TEXT(Messages.TwigcsPhase_Resource_Text),
+
+	/**
+	 * The update of the markers of a file. This includes the loading of the
+	 * file contents.
+	 */
+	MARKERS(Messages.TwigcsPhase_Markers);
+
+	/*
+	 * the label
+	 */
+	private final String label;
+
+	/**
+	 * Creates a new instance of this enumeration.
+	 *
+	 * @param label
+	 *            the label to display.
+	 */
+	TwigcsPhase(final String label) {
+		this.label = label;
+	}
+
+	/**
+	 * Gets the label to display.
+	 *
+	 * @return the label.
+	 */
+	public String getLabel() {
+		return label;
+	}
+}
@@ -21,11 +21,13 @@ import org.eclipse.core.runtime.IStatus;
 import org.eclipse.core.runtime.Status;
 
 import nu.bibi.twigcs.internal.Messages;
+import nu.bibi.twigcs.json.Json;
+import nu.bibi.twigcs.json.JsonObject;
 import nu.bibi.twigcs.model.TwigDisplay;
 import nu.bibi.twigcs.model.TwigReporter;
 import nu.bibi.twigcs.model.TwigSeverity;
 import nu.bibi.twigcs.model.TwigVersion;
-import nu.bibi.twigcs.preferences.PreferencesInitializer;
+import nu.bibi.twigcs.preferences.ProjectSnapshot;
 
 /**
  * This class contains properties used to build command arguments for Twigcs.
@@ -35,17 +37,34 @@ import nu.bibi.twigcs.preferences.PreferencesInitializer;
  */
 public class TwigcsProcessor implements ICoreException {
 
+	/*
+	 * the composer autoload file name
+	 */
+	private static final String AUTOLOAD_FILE = "autoload.php"; //$NON-NLS-1$
+
+	/*
+	 * the composer vendor directory name
+	 */
+	private static final String VENDOR_DIR = "vendor"; //$NON-NLS-1$
+
+	/*
+	 * the maximum number of parent directories to search for the autoload file
+	 */
+	private static final int AUTOLOAD_DEPTH = 4;
+
 	/**
-	 * Creates an instance of processor from the preference store.
+	 * Creates an instance of processor from the given project settings.
 	 *
-	 * @return the processor,.
+	 * @param snapshot
+	 *            the project settings.
+	 * @return the processor.
 	 */
-	public static TwigcsProcessor instance() {
+	public static TwigcsProcessor instance(final ProjectSnapshot snapshot) {
 		final TwigcsProcessor processor = new TwigcsProcessor();
-		processor.setProgramPath(PreferencesInitializer.getExecutable());
-		processor.setTwigVersion(PreferencesInitializer.getTwigVersion());
-		processor.setTwigSeverity(PreferencesInitializer.getTwigSeverity());
-		processor.setTwigReporter(PreferencesInitializer.getTwigReporter());
+		processor.setProgramPath(snapshot.getExecutable());
+		processor.setTwigVersion(snapshot.getTwigVersion());
+		processor.setTwigSeverity(snapshot.getProcessSeverity());
+		processor.setTwigReporter(snapshot.getTwigReporter());
 
 		return processor;
 	}
@@ -170,6 +189,55 @@ public class TwigcsProcessor implements ICoreException {
 
 	}
 
+	/**
+	 * Builds the request to send to a resident worker. The request contains
+	 * the search paths and the options as a single line JSON object.
+	 *
+	 * @return the request.
+	 * @throws CoreException
+	 *             if some parameters are missing or invalid.
+	 */
+	public String buildRequest() throws CoreException {
+		// check status
+		final IStatus status = validate();
+		if (!status.isOK()) {
+			throw new CoreException(status);
+		}
+
+		// build
+		final JsonObject request = Json.object();
+		request.add("files", //$NON-NLS-1$
+				Json.array(searchPaths.toArray(new String[0])));
+		request.add("reporter", reporter.getParameter()); //$NON-NLS-1$
+		request.add("version", version.getParameter()); //$NON-NLS-1$
+		request.add("severity", severity.getParameter()); //$NON-NLS-1$
+		request.add("display", display.getParameter()); //$NON-NLS-1$
+
+		return request.toString();
+	}
+
+	/**
+	 * Builds the command to start a resident worker. The composer autoload
+	 * file is searched in the parent directories of the Twigcs executable.
+	 *
+	 * @param phpPath
+	 *            the PHP interpreter path.
+	 * @param scriptPath
+	 *            the worker script path.
+	 * @return a string list containing the PHP interpreter and its arguments.
+	 * @throws CoreException
+	 *             if the executable is not valid or if the autoload file is
+	 *             not found.
+	 */
+	public List<String> buildWorkerCommand(final String phpPath,
+			final String scriptPath) throws CoreException {
+		final List<String> command = new ArrayList<>();
+		command.add(phpPath);
+		command.add(scriptPath);
+		command.add(findAutoload());
+		return command;
+	}
+
 	/**
 	 * Gets the exclude paths.
 	 *
@@ -197,6 +265,32 @@ public class TwigcsProcessor implements ICoreException {
 		return searchPaths;
 	}
 
+	/**
+	 * Gets the signature of this processor. The signature identifies the
+	 * executable (real path, size and last modification time) and the options
+	 * changing the output. The search and the exclude paths are not part of
+	 * the signature.
+	 *
+	 * @return the signature.
+	 * @throws CoreException
+	 *             if the executable is not valid.
+	 */
+	public String getSignature() throws CoreException {
+		final String realPath = toRealPath();
+		try {
+			final Path path = Paths.get(realPath);
+			final long size = Files.size(path);
+			final long modified = Files.getLastModifiedTime(path).toMillis();
+			return String.join("|", realPath, Long.toString(size), //$NON-NLS-1$
+					Long.toString(modified), version.getParameter(),
+					severity.getParameter(), reporter.getParameter(),
+					display.getParameter());
+		} catch (final IOException e) {
+			throw createCoreException(Messages.TwigcsProcessor_Error_Real_Path,
+					e);
+		}
+	}
+
 	/**
 	 * Gets how violations are returned. The default value is
 	 * {@link TwigDisplay#BLOCKING blocking}.
@@ -255,6 +349,19 @@ public class TwigcsProcessor implements ICoreException {
 		addSearchPath(path);
 	}
 
+	/**
+	 * Sets the search paths to the given paths.
+	 *
+	 * @param paths
+	 *            the search paths to set.
+	 */
+	public void setSearchPaths(final List<String> paths) {
+		searchPaths.clear();
+		for (final String path : paths) {
+			addSearchPath(path);
+		}
+	}
+
 	/**
 	 * Define how violations are returned. The default value is
 	 * {@link TwigDisplay#BLOCKING blocking}.
@@ -325,6 +432,30 @@ public class TwigcsProcessor implements ICoreException {
 		return Status.OK_STATUS;
 	}
 
+	/**
+	 * Finds the composer autoload file for the Twigcs executable.
+	 *
+	 * @return the autoload file path.
+	 * @throws CoreException
+	 *             if the executable is not valid or if the file is not found.
+	 */
+	private String findAutoload() throws CoreException {
+		Path dir = Paths.get(toRealPath()).getParent();
+		for (int i = 0; i < AUTOLOAD_DEPTH && dir != null; i++) {
+			Path file = dir.resolve(AUTOLOAD_FILE);
+			if (Files.isRegularFile(file)) {
+				return file.toString().replace('\\', '/');
+			}
+			file = dir.resolve(VENDOR_DIR).resolve(AUTOLOAD_FILE);
+			if (Files.isRegularFile(file)) {
+				return file.toString().replace('\\', '/');
+			}
+			dir = dir.getParent();
+		}
+		throw createCoreException(Messages.TwigcsProcessor_Error_Autoload,
+				null);
+	}
+
 	/**
 	 * Gets the real path of Twigcs executable.
 	 *
@@ -0,0 +1,342 @@
+/**
+ * This file is part of the twigcs-plugin package.
+ *
+ * (c) Laurent Muller <bibi@bibi.nu>
+ *
+ * For the full copyright and license information, please view the LICENSE
+ * file that was distributed with this source code.
+ */
+package nu.bibi.twigcs.core;
+
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import org.eclipse.core.resources.IFile;
+import org.eclipse.core.runtime.CoreException;
+import org.eclipse.osgi.util.NLS;
+
+import nu.bibi.twigcs.internal.Messages;
+import nu.bibi.twigcs.io.IOStream;
+import nu.bibi.twigcs.json.Json;
+import nu.bibi.twigcs.json.JsonArray;
+import nu.bibi.twigcs.json.JsonObject;
+import nu.bibi.twigcs.json.JsonValue;
+import nu.bibi.twigcs.model.TwigFile;
+import nu.bibi.twigcs.model.TwigViolation;
+
+/**
+ * Persistent cache of the validation results.
+ * <p>
+ * The results are mapped by a key computed from the file contents and from the
+ * processor {@link TwigcsProcessor#getSignature() signature}, so a file is
+ * validated again only if its contents, the Twigcs executable or the options
+ * have changed. The least recently used results are removed when the maximum
+ * number of entries is reached.
+ * </p>
+ * <p>
+ * The cache is loaded on first access and must be {@link #save() saved}
+ * explicitly. An invalid persisted file is discarded.
+ * </p>
+ *
+ * @author Laurent Muller
+ * @version 1.0
+ */
+public class TwigcsResultCache implements ICoreException {
+
+	/*
+	 * the digest algorithm used to compute keys
+	 */
+	private static final String ALGORITHM = "SHA-1"; //$NON-NLS-1$
+
+	/*
+	 * the hexadecimal digits
+	 */
+	private static final char[] HEX_DIGITS = "0123456789abcdef".toCharArray(); //$NON-NLS-1$
+
+	/*
+	 * the format version
+	 */
+	private static final int FORMAT_VERSION = 1;
+
+	/*
+	 * the format version member name
+	 */
+	private static final String KEY_FORMAT = "format"; //$NON-NLS-1$
+
+	/*
+	 * the entries member name
+	 */
+	private static final String KEY_ENTRIES = "entries"; //$NON-NLS-1$
+
+	/*
+	 * the entry key member name
+	 */
+	private static final String KEY_KEY = "key"; //$NON-NLS-1$
+
+	/*
+	 * the entry violations member name
+	 */
+	private static final String KEY_VIOLATIONS = "violations"; //$NON-NLS-1$
+
+	/**
+	 * Converts the given bytes to a hexadecimal string.
+	 *
+	 * @param bytes
+	 *            the bytes to convert.
+	 * @return the hexadecimal string.
+	 */
+	private static String toHex(final byte[] bytes) {
+		final char[] chars = new char[bytes.length * 2];
+		for (int i = 0; i < bytes.length; i++) {
+			chars[i * 2] = HEX_DIGITS[bytes[i] >> 4 & 0x0F];
+			chars[i * 2 + 1] = HEX_DIGITS[bytes[i] & 0x0F];
+		}
+		return new String(chars);
+	}
+
+	/*
+	 * the file to persist the cache
+	 */
+	private final File file;
+
+	/*
+	 * the entries in access order
+	 */
+	private Map<String, TwigFile> entries;
+
+	/*
+	 * the maximum number of entries
+	 */
+	private int maxEntries = Integer.MAX_VALUE;
+
+	/*
+	 * the modified state
+	 */
+	private boolean dirty;
+
+	/**
+	 * Creates a new instance of this class.
+	 *
+	 * @param file
+	 *            the file to persist the cache or <code>null</code> for an
+	 *            in-memory cache.
+	 */
+	public TwigcsResultCache(final File file) {
+		this.file = file;
+	}
+
+	/**
+	 * Removes all the results, including the persisted ones.
+	 *
+	 * @throws IOException
+	 *             if the persisted file cannot be deleted.
+	 */
+	public synchronized void clear() throws IOException {
+		entries = createEntries();
+		dirty = false;
+		if (file != null) {
+			Files.deleteIfExists(file.toPath());
+		}
+	}
+
+	/**
+	 * Computes the key of the given file.
+	 *
+	 * @param file
+	 *            the file to compute key for.
+	 * @param signature
+	 *            the processor signature.
+	 * @return the key.
+	 * @throws CoreException
+	 *             if the file contents cannot be read.
+	 */
+	public String computeKey(final IFile file, final String signature)
+			throws CoreException {
+		try (InputStream stream = file.getContents()) {
+			final MessageDigest digest = MessageDigest.getInstance(ALGORITHM);
+			digest.update(signature.getBytes(StandardCharsets.UTF_8));
+			int len;
+			final byte[] buffer = new byte[IOStream.BUFFER_SIZE];
+			while ((len = stream.read(buffer)) != -1) {
+				digest.update(buffer, 0, len);
+			}
+			return toHex(digest.digest());
+		} catch (final IOException | NoSuchAlgorithmException e) {
+			final String msg = NLS.bind(Messages.ResourceText_Error_Read,
+					file.getName());
+			throw createCoreException(msg, e);
+		}
+	}
+
+	/**
+	 * Gets the result for the given key.
+	 *
+	 * @param key
+	 *            the key to search for.
+	 * @return the result, if found; <code>null</code> otherwise.
+	 */
+	public synchronized TwigFile get(final String key) {
+		return getEntries().get(key);
+	}
+
+	/**
+	 * Adds the given result.
+	 *
+	 * @param key
+	 *            the key of the result.
+	 * @param result
+	 *            the result to add.
+	 */
+	public synchronized void put(final String key, final TwigFile result) {
+		getEntries().put(key, result);
+		dirty = true;
+	}
+
+	/**
+	 * Saves the results to the persisted file. Do nothing if the results are
+	 * not modified.
+	 *
+	 * @throws IOException
+	 *             if an I/O exception occurs.
+	 */
+	public synchronized void save() throws IOException {
+		if (!dirty || file == null) {
+			return;
+		}
+
+		// convert
+		final JsonArray array = Json.array();
+		for (final Map.Entry<String, TwigFile> entry : entries.entrySet()) {
+			final JsonArray violations = Json.array();
+			for (final TwigViolation violation : entry.getValue()) {
+				violations.add(Json.array().add(violation.getLine())
+						.add(violation.getColumn())
+						.add(violation.getSeverity().value())
+						.add(violation.getMessage()));
+			}
+			array.add(Json.object().add(KEY_KEY, entry.getKey())
+					.add(KEY_VIOLATIONS, violations));
+		}
+		final JsonObject root = Json.object().add(KEY_FORMAT, FORMAT_VERSION)
+				.add(KEY_ENTRIES, array);
+
+		// write to a temporary file and replace
+		final File parent = file.getParentFile();
+		if (parent != null) {
+			parent.mkdirs();
+		}
+		final File temp = new File(file.getPath() + ".tmp"); //$NON-NLS-1$
+		try (Writer writer = new BufferedWriter(new OutputStreamWriter(
+				Files.newOutputStream(temp.toPath()),
+				StandardCharsets.UTF_8))) {
+			root.writeTo(writer);
+		}
+		Files.move(temp.toPath(), file.toPath(),
+				StandardCopyOption.REPLACE_EXISTING);
+		dirty = false;
+	}
+
+	/**
+	 * Sets the maximum number of entries. The least recently used entries are
+	 * removed if the cache contains more entries.
+	 *
+	 * @param maxEntries
+	 *            the maximum number of entries to set.
+	 */
+	public synchronized void setMaxEntries(final int maxEntries) {
+		this.maxEntries = Math.max(1, maxEntries);
+		if (entries != null && entries.size() > this.maxEntries) {
+			final Map<String, TwigFile> oldEntries = entries;
+			entries = createEntries();
+			entries.putAll(oldEntries);
+			dirty = true;
+		}
+	}
+
+	/**
+	 * Creates the entries map. The least recently used entries are removed
+	 * when the maximum number of entries is reached.
+	 *
+	 * @return the entries map.
+	 */
+	private Map<String, TwigFile> createEntries() {
+		return new LinkedHashMap<String, TwigFile>(16, 0.75f, true) {
+			private static final long serialVersionUID = 1L;
+
+			@Override
+			protected boolean removeEldestEntry(
+					final Map.Entry<String, TwigFile> eldest) {
+				return size() > maxEntries;
+			}
+		};
+	}
+
+	/**
+	 * Gets the entries. The entries are loaded from the persisted file on
+	 * first access.
+	 *
+	 * @return the entries.
+	 */
+	private Map<String, TwigFile> getEntries() {
+		if (entries == null) {
+			entries = createEntries();
+			if (file != null && file.isFile()) {
+				try {
+					load();
+				} catch (final IOException | RuntimeException e) {
+					// discard invalid content
+					entries.clear();
+					dirty = true;
+				}
+			}
+		}
+		return entries;
+	}
+
+	/**
+	 * Loads the entries from the persisted file.
+	 *
+	 * @throws IOException
+	 *             if an I/O exception occurs.
+	 * @throws RuntimeException
+	 *             if the content is not a valid cache (invalid JSON, missing
+	 *             member, unexpected type, etc.).
+	 */
+	private void load() throws IOException {
+		final JsonObject root = Json.parse(Files.readAllBytes(file.toPath()))
+				.asObject();
+		if (root.getInt(KEY_FORMAT, 0) != FORMAT_VERSION) {
+			return;
+		}
+
+		// entries are saved from the least to the most recently used
+		final TwigViolation violation = new TwigViolation();
+		for (final JsonValue value : root.get(KEY_ENTRIES).asArray()) {
+			final JsonObject entry = value.asObject();
+			final TwigFile result = new TwigFile();
+			for (final JsonValue item : entry.get(KEY_VIOLATIONS).asArray()) {
+				final JsonArray values = item.asArray();
+				violation.setLine(values.get(0).asInt());
+				violation.setColumn(values.get(1).asInt());
+				violation.setSeverity(values.get(2).asInt());
+				violation.setMessage(values.get(3).asString());
+				result.addViolation(violation);
+			}
+			final String key = entry.getString(KEY_KEY, null);
+			if (key != null) {
+				entries.put(key, result);
+			}
+		}
+	}
+}
@@ -9,25 +9,278 @@
 package nu.bibi.twigcs.core;
 
 import java.io.IOException;
+import java.io.Reader;
 
 import nu.bibi.twigcs.internal.Messages;
-import nu.bibi.twigcs.json.Json;
-import nu.bibi.twigcs.json.JsonArray;
 import nu.bibi.twigcs.json.JsonException;
-import nu.bibi.twigcs.json.JsonObject;
-import nu.bibi.twigcs.json.JsonValue;
+import nu.bibi.twigcs.json.JsonHandler;
+import nu.bibi.twigcs.json.JsonParser;
 import nu.bibi.twigcs.model.TwigFile;
 import nu.bibi.twigcs.model.TwigResult;
 import nu.bibi.twigcs.model.TwigViolation;
 
 /**
- * Class to parse a JSON string to a {@link TwigResult}.
+ * Class to parse a JSON string or a JSON stream to a {@link TwigResult}.
+ * <p>
+ * The result is filled directly from the events of the {@link JsonParser}, so
+ * no JSON value is allocated, whatever the number of violations. The members
+ * not used by the result are skipped without being decoded. The handler and
+ * its parser are reused by the calls of the same thread.
+ * </p>
  *
  * @author Laurent Muller
  * @version 1.0
  */
 public class TwigcsResultParser {
 
+	/**
+	 * Handler building the Twig result from the parser events. The array
+	 * handler is the file owning the violations array and the object handler
+	 * is the violation being parsed.
+	 */
+	private static class ResultHandler
+			extends JsonHandler<TwigFile, TwigViolation> {
+
+		/*
+		 * the nesting levels of the root object, of the file objects and of
+		 * the violation objects
+		 */
+		private static final int ROOT_LEVEL = 1;
+		private static final int FILE_LEVEL = 3;
+		private static final int VIOLATION_LEVEL = 5;
+
+		/*
+		 * the parsed result
+		 */
+		private TwigResult result;
+
+		/*
+		 * the file being parsed
+		 */
+		private TwigFile file;
+
+		/*
+		 * the violation being parsed, reused for all violations
+		 */
+		private final TwigViolation violation = new TwigViolation();
+
+		/*
+		 * the current nesting level
+		 */
+		private int level;
+
+		/*
+		 * the name of the current member
+		 */
+		private String name;
+
+		/*
+		 * the flags set while parsing the files array and a violations array
+		 */
+		private boolean inFiles;
+		private boolean inViolations;
+
+		/*
+		 * the last number and string values read
+		 */
+		private int number;
+		private String string;
+
+		@Override
+		public void endArray(final TwigFile array) {
+			if (level == ROOT_LEVEL + 1) {
+				inFiles = false;
+			} else if (level == FILE_LEVEL + 1) {
+				inViolations = false;
+			}
+			level--;
+		}
+
+		@Override
+		public void endBoolean(final boolean value) {
+			clearValue();
+		}
+
+		@Override
+		public void endDouble(final double value) {
+			clearValue();
+			number = (int) value;
+		}
+
+		@Override
+		public void endLong(final long value) {
+			clearValue();
+			number = (int) Math.max(Integer.MIN_VALUE,
+					Math.min(Integer.MAX_VALUE, value));
+		}
+
+		@Override
+		public void endNull() {
+			clearValue();
+		}
+
+		@Override
+		public void endObject(final TwigViolation object) {
+			if (object != null) {
+				file.addViolation(object);
+			} else if (level == FILE_LEVEL && file != null) {
+				result.addFile(file);
+				file = null;
+			}
+			level--;
+		}
+
+		@Override
+		public void endObjectValue(final TwigViolation object,
+				final String name) {
+			if (object != null) {
+				switch (name) {
+				case KEY_LINE:
+					object.setLine(number);
+					break;
+				case KEY_COLUMN:
+					object.setColumn(number);
+					break;
+				case KEY_SEVERITY:
+					object.setSeverity(number);
+					break;
+				case KEY_MESSAGE:
+					if (string != null) {
+						object.setMessage(string);
+					}
+					break;
+				default:
+					break;
+				}
+			} else if (level == ROOT_LEVEL && KEY_FAILURES.equals(name)) {
+				result.setFailures(number);
+			} else if (level == FILE_LEVEL && file != null
+					&& KEY_FILE.equals(name) && string != null) {
+				file.setPath(string);
+			}
+			clearValue();
+		}
+
+		@Override
+		public void endString(final String value) {
+			clearValue();
+			string = value;
+		}
+
+		/**
+		 * Gets the parser reporting events to this handler.
+		 *
+		 * @return the parser.
+		 */
+		public JsonParser<TwigFile, TwigViolation> getParser() {
+			return parser;
+		}
+
+		/**
+		 * Gets the parsed result. The result is no more referenced by this
+		 * handler.
+		 *
+		 * @return the Twig result.
+		 */
+		public TwigResult getResult() {
+			final TwigResult parsed = result;
+			result = null;
+
+			// failures?
+			if (parsed.getFailures() == 0) {
+				return new TwigResult();
+			}
+			return parsed;
+		}
+
+		/**
+		 * Clears the state of this handler and creates a new result.
+		 */
+		public void reset() {
+			result = new TwigResult();
+			file = null;
+			level = 0;
+			name = null;
+			inFiles = false;
+			inViolations = false;
+			clearValue();
+		}
+
+		@Override
+		public TwigFile startArray() {
+			level++;
+			if (level == ROOT_LEVEL + 1) {
+				inFiles = KEY_FILES.equals(name);
+			} else if (level == FILE_LEVEL + 1 && file != null) {
+				inViolations = KEY_VIOLATIONS.equals(name);
+				if (inViolations) {
+					return file;
+				}
+			}
+			return null;
+		}
+
+		@Override
+		public TwigViolation startObject() {
+			level++;
+			if (level == FILE_LEVEL && inFiles) {
+				file = new TwigFile();
+				file.setPath(UNKNOWN_VALUE);
+			} else if (level == VIOLATION_LEVEL && inViolations) {
+				// the values are copied when the violation is added
+				violation.setLine(0);
+				violation.setColumn(0);
+				violation.setSeverity(0);
+				violation.setMessage(UNKNOWN_VALUE);
+				return violation;
+			}
+			return null;
+		}
+
+		@Override
+		public void startObjectValue(final TwigViolation object,
+				final String name) {
+			this.name = name;
+			if (!isRequired(object, name)) {
+				skipValue();
+			}
+		}
+
+		/**
+		 * Clears the last parsed value.
+		 */
+		private void clearValue() {
+			number = 0;
+			string = null;
+		}
+
+		/**
+		 * Returns if the value of the given member is used to build the
+		 * result. The other values are skipped by the parser.
+		 *
+		 * @param object
+		 *            the violation being parsed, if any.
+		 * @param name
+		 *            the member name.
+		 * @return <code>true</code> if the value is used.
+		 */
+		private boolean isRequired(final TwigViolation object,
+				final String name) {
+			if (object != null) {
+				return KEY_LINE.equals(name) || KEY_COLUMN.equals(name)
+						|| KEY_SEVERITY.equals(name)
+						|| KEY_MESSAGE.equals(name);
+			}
+			if (level == ROOT_LEVEL) {
+				return KEY_FAILURES.equals(name) || KEY_FILES.equals(name);
+			}
+			if (level == FILE_LEVEL && file != null) {
+				return KEY_FILE.equals(name) || KEY_VIOLATIONS.equals(name);
+			}
+			return false;
+		}
+	}
+
 	/*
 	 * the failures member name
 	 */
@@ -73,111 +326,109 @@ public class TwigcsResultParser {
 	 */
 	private static final String UNKNOWN_VALUE = "Unknown"; //$NON-NLS-1$
 
-	/**
-	 * Parses the given JSON string and return a Twig result.
-	 *
-	 * @param input
-	 *            the input string to parse.
-	 * @return the Twig result.
-	 * @throws IOException
-	 *             if the input string is not a valid representation of a
-	 *             {@link TwigResult} type.
+	/*
+	 * the handler, and its parser, available for the current thread
 	 */
-	public TwigResult parse(final String input) throws IOException {
-		try {
-			// parse
-			final JsonObject value = Json.parse(input).asObject();
-
-			// parse failures
-			final TwigResult result = new TwigResult();
-			final int failures = value.getInt(KEY_FAILURES, 0);
-			result.setFailures(failures);
-
-			// failures and files?
-			if (failures == 0 || !isArray(value, KEY_FILES)) {
-				return result;
-			}
-
-			// parse files
-			parseFiles(result, value.get(KEY_FILES).asArray());
-
-			return result;
-
-		} catch (final JsonException e) {
-			throw new IOException(Messages.TwigcsResultParser_Error, e);
-		}
-	}
+	private static final ThreadLocal<ResultHandler> HANDLER = new ThreadLocal<>();
 
 	/**
-	 * Creates a Twig file from the given JSON object.
+	 * Gets a handler to parse an input. The handler of the current thread is
+	 * returned, if not already used; a new handler is created otherwise.
 	 *
-	 * @param obj
-	 *            the JSON object to get values from.
-	 * @return the Twig file.
+	 * @return the handler.
 	 */
-	private TwigFile createFile(final JsonObject obj) {
-		final TwigFile file = new TwigFile();
-		file.setPath(obj.getString(KEY_FILE, UNKNOWN_VALUE));
-		if (isArray(obj, KEY_VIOLATIONS)) {
-			parseViolations(file, obj.get(KEY_VIOLATIONS).asArray());
+	private static ResultHandler acquireHandler() {
+		ResultHandler handler = HANDLER.get();
+		if (handler == null) {
+			handler = new ResultHandler();
+			new JsonParser<>(handler);
+		} else {
+			HANDLER.set(null);
 		}
-		return file;
+		handler.reset();
+		return handler;
 	}
 
 	/**
-	 * Creates a Twig violation from the given JSON object.
+	 * Makes the given handler available for the next input of the current
+	 * thread.
 	 *
-	 * @param obj
-	 *            the JSON object to get values from.
-	 * @return the Twig violation.
-	 */
-	private TwigViolation createViolation(final JsonObject obj) {
-		final TwigViolation violation = new TwigViolation();
-		violation.setLine(obj.getInt(KEY_LINE, 0));
-		violation.setColumn(obj.getInt(KEY_COLUMN, 0));
-		violation.setSeverity(obj.getInt(KEY_SEVERITY, 0));
-		violation.setMessage(obj.getString(KEY_MESSAGE, UNKNOWN_VALUE));
-		return violation;
+	 * @param handler
+	 *            the handler to release.
+	 */
+	private static void releaseHandler(final ResultHandler handler) {
+		handler.result = null;
+		handler.file = null;
+		HANDLER.set(handler);
 	}
 
 	/**
-	 * Checks if a specified member is present as a child of the given object
-	 * and represents a JSON array.
+	 * Parses the given UTF-8 encoded JSON bytes and return a Twig result. The
+	 * bytes are parsed in place; only the kept values are decoded.
 	 *
-	 * @param name
-	 *            the name of the member to check for.
-	 * @return <code>true</code> if present and the value is an instance of
-	 *         {@link JsonArray}.
+	 * @param input
+	 *            the input bytes to parse.
+	 * @return the Twig result.
+	 * @throws IOException
+	 *             if the input bytes are not a valid representation of a
+	 *             {@link TwigResult} type.
 	 */
-	private boolean isArray(final JsonObject obj, final String name) {
-		return obj.contains(name) && obj.get(name).isArray();
+	public TwigResult parse(final byte[] input) throws IOException {
+		final ResultHandler handler = acquireHandler();
+		try {
+			handler.getParser().parse(input);
+			return handler.getResult();
+		} catch (final JsonException | NumberFormatException e) {
+			throw new IOException(Messages.TwigcsResultParser_Error, e);
+		} finally {
+			releaseHandler(handler);
+		}
 	}
 
 	/**
-	 * Parses the Twig files from the given JSON array.
+	 * Parses the given JSON string and return a Twig result. The violations
+	 * are created while parsing, without building an intermediate JSON tree.
 	 *
-	 * @param result
-	 *            the Twig result to append files to.
-	 * @param array
-	 *            the JSON array to parse.
+	 * @param input
+	 *            the input string to parse.
+	 * @return the Twig result.
+	 * @throws IOException
+	 *             if the input string is not a valid representation of a
+	 *             {@link TwigResult} type.
 	 */
-	private void parseFiles(final TwigResult result, final JsonArray array) {
-		for (final JsonValue value : array) {
-			result.addFile(createFile(value.asObject()));
+	public TwigResult parse(final String input) throws IOException {
+		final ResultHandler handler = acquireHandler();
+		try {
+			handler.getParser().parse(input);
+			return handler.getResult();
+		} catch (final JsonException | NumberFormatException e) {
+			throw new IOException(Messages.TwigcsResultParser_Error, e);
+		} finally {
+			releaseHandler(handler);
 		}
 	}
 
 	/**
-	 * Parses the Twig violations from the given JSON array.
+	 * Parses the JSON stream of the given reader and return a Twig result. The
+	 * violations are created while reading, without building an intermediate
+	 * JSON tree.
 	 *
-	 * @param file
-	 *            the Twig file to append violations to.
-	 * @param array
-	 *            the JSON array to parse.
-	 */
-	private void parseViolations(final TwigFile file, final JsonArray array) {
-		for (final JsonValue value : array) {
-			file.addViolation(createViolation(value.asObject()));
+	 * @param reader
+	 *            the reader to read the input from.
+	 * @return the Twig result.
+	 * @throws IOException
+	 *             if an I/O exception occurs or if the input is not a valid
+	 *             representation of a {@link TwigResult} type.
+	 */
+	public TwigResult parse(final Reader reader) throws IOException {
+		final ResultHandler handler = acquireHandler();
+		try {
+			handler.getParser().parse(reader);
+			return handler.getResult();
+		} catch (final JsonException | NumberFormatException e) {
+			throw new IOException(Messages.TwigcsResultParser_Error, e);
+		} finally {
+			releaseHandler(handler);
 		}
 	}
 }
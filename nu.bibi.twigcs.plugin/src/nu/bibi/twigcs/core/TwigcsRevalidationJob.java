@@ -0,0 +1,229 @@
+/**
+ * This file is part of the twigcs-plugin package.
+ *
+ * (c) Laurent Muller <bibi@bibi.nu>
+ *
+ * For the full copyright and license information, please view the LICENSE
+ * file that was distributed with this source code.
+ */
+package nu.bibi.twigcs.core;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.eclipse.core.resources.IFile;
+import org.eclipse.core.resources.IMarker;
+import org.eclipse.core.resources.IProject;
+import org.eclipse.core.resources.IResource;
+import org.eclipse.core.resources.IWorkspace;
+import org.eclipse.core.resources.ResourcesPlugin;
+import org.eclipse.core.resources.WorkspaceJob;
+import org.eclipse.core.runtime.CoreException;
+import org.eclipse.core.runtime.IProgressMonitor;
+import org.eclipse.core.runtime.IStatus;
+import org.eclipse.core.runtime.Status;
+
+import nu.bibi.twigcs.TwigcsPlugin;
+import nu.bibi.twigcs.internal.Messages;
+import nu.bibi.twigcs.model.TwigSeverity;
+import nu.bibi.twigcs.preferences.ProjectSnapshot;
+
+/**
+ * Job to update the markers of projects after a change of the preferences.
+ * <p>
+ * The settings {@link ProjectSnapshot snapshots} taken before the change are
+ * compared with the current settings, so only the difference is applied:
+ * </p>
+ * <ul>
+ * <li>If the executable or the Twig version have changed, a clean build of the
+ * project is triggered.</li>
+ * <li>The markers of the files no more included and the markers below the new
+ * minimum severity are deleted, without running Twigcs.</li>
+ * <li>The newly included files are validated. If the minimum severity has been
+ * lowered, all the included files are validated; the unchanged files are
+ * restored from the results cache, if enabled.</li>
+ * </ul>
+ *
+ * @author Laurent Muller
+ * @version 1.0
+ */
+public class TwigcsRevalidationJob extends WorkspaceJob implements IConstants {
+
+	/**
+	 * Takes the settings snapshots of all accessible projects having the Twigcs
+	 * nature.
+	 *
+	 * @return the snapshots.
+	 * @throws CoreException
+	 *             if the nature of a project cannot be checked.
+	 */
+	public static List<ProjectSnapshot> takeSnapshots() throws CoreException {
+		final List<ProjectSnapshot> snapshots = new ArrayList<>();
+		for (final IProject project : TwigcsBuilder.getProjects()) {
+			if (project.hasNature(NATURE_ID)) {
+				snapshots.add(ProjectSnapshot.of(project));
+			}
+		}
+		return snapshots;
+	}
+
+	/*
+	 * the snapshots taken before the change
+	 */
+	private final List<ProjectSnapshot> snapshots;
+
+	/**
+	 * Creates a new instance of this class.
+	 *
+	 * @param snapshots
+	 *            the settings snapshots taken before the change.
+	 */
+	public TwigcsRevalidationJob(final List<ProjectSnapshot> snapshots) {
+		super(Messages.TwigcsRevalidationJob_Name);
+		this.snapshots = snapshots;
+		setRule(ResourcesPlugin.getWorkspace().getRuleFactory().buildRule());
+		setPriority(BUILD);
+		setUser(false);
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public boolean belongsTo(final Object family) {
+		return BUILDER_ID.equals(family);
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public IStatus runInWorkspace(final IProgressMonitor monitor)
+			throws CoreException {
+		for (final ProjectSnapshot oldSnapshot : snapshots) {
+			if (monitor.isCanceled()) {
+				return Status.CANCEL_STATUS;
+			}
+			final IProject project = oldSnapshot.getProject();
+			if (project.isAccessible() && project.hasNature(NATURE_ID)) {
+				update(oldSnapshot, ProjectSnapshot.of(project), monitor);
+			}
+		}
+		return Status.OK_STATUS;
+	}
+
+	/**
+	 * Deletes the markers of the files no more included and the markers below
+	 * the minimum severity.
+	 *
+	 * @param snapshot
+	 *            the current settings.
+	 * @throws CoreException
+	 *             if the markers cannot be deleted.
+	 */
+	private void deleteMarkers(final ProjectSnapshot snapshot)
+			throws CoreException {
+		final IProject project = snapshot.getProject();
+		final TwigcsPathFilter filter = snapshot.getFilter();
+		final int minimum = snapshot.getMinimumSeverity().getMarkerSeverity();
+		final IMarker[] markers = project.findMarkers(MARKER_TYPE, false,
+				IResource.DEPTH_INFINITE);
+
+		final List<IMarker> obsoletes = new ArrayList<>();
+		for (final IMarker marker : markers) {
+			final IResource resource = marker.getResource();
+			if (!filter.isIncluded(resource.getProjectRelativePath())
+					|| marker.getAttribute(IMarker.SEVERITY,
+							IMarker.SEVERITY_INFO) < minimum) {
+				obsoletes.add(marker);
+			}
+		}
+
+		if (!obsoletes.isEmpty()) {
+			final IWorkspace workspace = project.getWorkspace();
+			workspace.deleteMarkers(
+					obsoletes.toArray(new IMarker[obsoletes.size()]));
+		}
+	}
+
+	/**
+	 * Applies the difference between the given settings to the markers of the
+	 * project.
+	 *
+	 * @param oldSnapshot
+	 *            the settings before the change.
+	 * @param newSnapshot
+	 *            the current settings.
+	 * @param monitor
+	 *            the progress monitor.
+	 * @throws CoreException
+	 *             if the update fails.
+	 */
+	private void update(final ProjectSnapshot oldSnapshot,
+			final ProjectSnapshot newSnapshot, final IProgressMonitor monitor)
+			throws CoreException {
+		// unchanged?
+		if (newSnapshot.isSame(oldSnapshot)) {
+			return;
+		}
+
+		// previous results are obsolete?
+		final IProject project = newSnapshot.getProject();
+		if (newSnapshot.isFullValidation(oldSnapshot)) {
+			TwigcsBuilder.triggerCleanBuild(project);
+			return;
+		}
+
+		// remove excluded and filtered markers
+		deleteMarkers(newSnapshot);
+
+		// nothing to validate?
+		if (newSnapshot.getFilter().isEmpty()) {
+			return;
+		}
+
+		// collect included files
+		final TwigCollectorVisitor collector = new TwigCollectorVisitor(
+				project);
+		project.accept(collector, IResource.NONE);
+		final List<IFile> files = collector.getFiles();
+
+		// keep only the newly included files, unless the severity is lowered
+		final TwigSeverity oldMinimum = oldSnapshot.getMinimumSeverity();
+		if (!newSnapshot.getMinimumSeverity().isBelow(oldMinimum)) {
+			final TwigcsPathFilter oldFilter = oldSnapshot.getFilter();
+			files.removeIf(f -> oldFilter.isIncluded(f.getProjectRelativePath()));
+		}
+		validate(project, files, monitor);
+	}
+
+	/**
+	 * Validates the given files.
+	 *
+	 * @param project
+	 *            the project of the files.
+	 * @param files
+	 *            the files to validate.
+	 * @param monitor
+	 *            the progress monitor.
+	 * @throws CoreException
+	 *             if the validation fails.
+	 */
+	private void validate(final IProject project, final List<IFile> files,
+			final IProgressMonitor monitor) throws CoreException {
+		if (files.isEmpty()) {
+			return;
+		}
+
+		// background?
+		if (ProjectSnapshot.of(project).isBackgroundValidation()) {
+			TwigcsPlugin.getDefault().getValidationJob().enqueue(project,
+					files);
+			return;
+		}
+
+		final TwigcsValidationVisitor visitor = new TwigcsValidationVisitor(
+				project, monitor);
+		visitor.validate(files);
+	}
+}
@@ -0,0 +1,71 @@
+/**
+ * This file is part of the twigcs-plugin package.
+ *
+ * (c) Laurent Muller <bibi@bibi.nu>
+ *
+ * For the full copyright and license information, please view the LICENSE
+ * file that was distributed with this source code.
+ */
+package nu.bibi.twigcs.core;
+
+import org.eclipse.core.resources.ISaveContext;
+import org.eclipse.core.resources.ISaveParticipant;
+
+import nu.bibi.twigcs.TwigcsPlugin;
+
+/**
+ * Workspace save participant to persist the validation results cache.
+ * <p>
+ * The cache is saved on each full save and snapshot of the workspace, so the
+ * results survive a crash of the workbench. This participant must be
+ * registered like the following example:
+ * </p>
+ *
+ * <pre>
+ * IWorkspace workspace = ResourcesPlugin.getWorkspace();
+ * workspace.addSaveParticipant(PLUGIN_ID, new TwigcsSaveParticipant());
+ * </pre>
+ *
+ * @author Laurent Muller
+ * @version 1.0
+ */
+public class TwigcsSaveParticipant implements ISaveParticipant {
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public void doneSaving(final ISaveContext context) {
+		// nothing to do
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public void prepareToSave(final ISaveContext context) {
+		// nothing to do
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public void rollback(final ISaveContext context) {
+		// the cache file is replaced atomically
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public void saving(final ISaveContext context) {
+		if (context.getKind() == ISaveContext.PROJECT_SAVE) {
+			return;
+		}
+		final TwigcsPlugin plugin = TwigcsPlugin.getDefault();
+		if (plugin != null) {
+			plugin.saveResultCache();
+		}
+	}
+}
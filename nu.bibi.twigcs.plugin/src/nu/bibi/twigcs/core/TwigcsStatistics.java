@@ -0,0 +1,233 @@
+/**
+ * This file is part of the twigcs-plugin package.
+ *
+ * (c) Laurent Muller <bibi@bibi.nu>
+ *
+ * For the full copyright and license information, please view the LICENSE
+ * file that was distributed with this source code.
+ */
+package nu.bibi.twigcs.core;
+
+import java.text.DateFormat;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.Consumer;
+
+import org.eclipse.osgi.util.NLS;
+
+import nu.bibi.twigcs.TwigcsPlugin;
+import nu.bibi.twigcs.internal.Messages;
+
+/**
+ * The timings of the recent validations (builds).
+ * <p>
+ * The collection is disabled by default; it is enabled while the statistics
+ * view is open. When disabled, {@link #beginBuild(String)} returns a shared
+ * statistics instance that records nothing, so the measured code only tests a
+ * flag.
+ * </p>
+ *
+ * @author Laurent Muller
+ * @version 1.0
+ * @see TwigcsBuildStatistics
+ */
+public class TwigcsStatistics {
+
+	/*
+	 * the maximum number of builds to keep
+	 */
+	private static final int MAX_BUILDS = 50;
+
+	/*
+	 * the new line separator
+	 */
+	private static final String NEW_LINE = System.lineSeparator();
+
+	/*
+	 * the indentation of the phases
+	 */
+	private static final String PHASE_INDENT = "  "; //$NON-NLS-1$
+
+	/*
+	 * the indentation of the histogram buckets
+	 */
+	private static final String BUCKET_INDENT = "    "; //$NON-NLS-1$
+
+	/*
+	 * the recent builds, the most recent first
+	 */
+	private final LinkedList<TwigcsBuildStatistics> builds = new LinkedList<>();
+
+	/*
+	 * the listeners notified when a build ends
+	 */
+	private final List<Consumer<TwigcsBuildStatistics>> listeners = new CopyOnWriteArrayList<>();
+
+	/*
+	 * the enablement state
+	 */
+	private volatile boolean enabled;
+
+	/**
+	 * Adds a listener notified when a build ends. The listener may be called
+	 * from any thread.
+	 *
+	 * @param listener
+	 *            the listener to add.
+	 */
+	public void addListener(final Consumer<TwigcsBuildStatistics> listener) {
+		listeners.add(listener);
+	}
+
+	/**
+	 * Begins a new build.
+	 *
+	 * @param name
+	 *            the build name.
+	 * @return the build statistics to record durations into.
+	 */
+	public TwigcsBuildStatistics beginBuild(final String name) {
+		if (enabled) {
+			return new TwigcsBuildStatistics(name, true);
+		}
+		return TwigcsBuildStatistics.DISABLED;
+	}
+
+	/**
+	 * Removes all the recent builds.
+	 */
+	public void clear() {
+		synchronized (builds) {
+			builds.clear();
+		}
+	}
+
+	/**
+	 * Ends the given build. The build is added to the recent builds and the
+	 * listeners are notified. Do nothing if the build is not enabled.
+	 *
+	 * @param build
+	 *            the build to end.
+	 */
+	public void endBuild(final TwigcsBuildStatistics build) {
+		if (!build.isEnabled()) {
+			return;
+		}
+		build.end();
+		synchronized (builds) {
+			builds.addFirst(build);
+			while (builds.size() > MAX_BUILDS) {
+				builds.removeLast();
+			}
+		}
+		for (final Consumer<TwigcsBuildStatistics> listener : listeners) {
+			listener.accept(build);
+		}
+	}
+
+	/**
+	 * Writes the recent builds to the log of this plug-in.
+	 */
+	public void export() {
+		final List<TwigcsBuildStatistics> list = getBuilds();
+		final StringBuilder builder = new StringBuilder(
+				NLS.bind(Messages.TwigcsStatistics_Export, list.size()));
+		for (final TwigcsBuildStatistics build : list) {
+			builder.append(NEW_LINE).append(toString(build));
+		}
+		TwigcsPlugin.logInfo(builder.toString());
+	}
+
+	/**
+	 * Gets the recent builds.
+	 *
+	 * @return a copy of the recent builds, the most recent first.
+	 */
+	public List<TwigcsBuildStatistics> getBuilds() {
+		synchronized (builds) {
+			return new ArrayList<>(builds);
+		}
+	}
+
+	/**
+	 * Returns if the collection is enabled.
+	 *
+	 * @return <code>true</code> if enabled.
+	 */
+	public boolean isEnabled() {
+		return enabled;
+	}
+
+	/**
+	 * Removes the given listener.
+	 *
+	 * @param listener
+	 *            the listener to remove.
+	 */
+	public void removeListener(
+			final Consumer<TwigcsBuildStatistics> listener) {
+		listeners.remove(listener);
+	}
+
+	/**
+	 * Sets the enablement state. The builds already started are not affected.
+	 *
+	 * @param enabled
+	 *            <code>true</code> to collect the durations of the next
+	 *            builds.
+	 */
+	public void setEnabled(final boolean enabled) {
+		this.enabled = enabled;
+	}
+
+	/**
+	 * Converts the given build to a text.
+	 *
+	 * @param build
+	 *            the build to convert.
+	 * @return the text.
+	 */
+	private String toString(final TwigcsBuildStatistics build) {
+		final DateFormat format = DateFormat.getDateTimeInstance();
+		final StringBuilder builder = new StringBuilder();
+		builder.append(NLS.bind(Messages.TwigcsStatistics_Build,
+				new Object[] { build.getName(),
+						format.format(new Date(build.getStartTime())),
+						TwigcsBuildStatistics
+								.formatDuration(build.getElapsed()),
+						build.getFiles(), build.getCachedFiles() }));
+
+		for (final TwigcsPhase phase : TwigcsPhase.values()) {
+			final long count = build.getCount(phase);
+			if (count == 0) {
+				continue;
+			}
+			final String text = NLS.bind(Messages.TwigcsStatistics_Phase,
+					new Object[] { phase.getLabel(), count,
+							TwigcsBuildStatistics
+									.formatDuration(build.getTotal(phase)),
+							TwigcsBuildStatistics
+									.formatDuration(build.getAverage(phase)),
+							TwigcsBuildStatistics
+									.formatDuration(build.getMinimum(phase)),
+							TwigcsBuildStatistics
+									.formatDuration(build.getMaximum(phase)) });
+			builder.append(NEW_LINE).append(PHASE_INDENT).append(text);
+
+			final long[] histogram = build.getHistogram(phase);
+			for (int i = 0; i < histogram.length; i++) {
+				if (histogram[i] != 0) {
+					builder.append(NEW_LINE).append(BUCKET_INDENT)
+							.append(NLS.bind(Messages.TwigcsStatistics_Bucket,
+									TwigcsBuildStatistics.getBucketLabel(i),
+									histogram[i]));
+				}
+			}
+		}
+
+		return builder.toString();
+	}
+}
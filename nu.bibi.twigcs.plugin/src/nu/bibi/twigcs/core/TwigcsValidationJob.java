@@ -0,0 +1,273 @@
+/**
+ * This file is part of the twigcs-plugin package.
+ *
+ * (c) Laurent Muller <bibi@bibi.nu>
+ *
+ * For the full copyright and license information, please view the LICENSE
+ * file that was distributed with this source code.
+ */
+package nu.bibi.twigcs.core;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.eclipse.core.resources.IFile;
+import org.eclipse.core.resources.IProject;
+import org.eclipse.core.resources.WorkspaceJob;
+import org.eclipse.core.runtime.CoreException;
+import org.eclipse.core.runtime.IProgressMonitor;
+import org.eclipse.core.runtime.IStatus;
+import org.eclipse.core.runtime.Status;
+
+import nu.bibi.twigcs.internal.Messages;
+
+/**
+ * Job to validate Twig files outside of the builder.
+ * <p>
+ * The builder {@link #enqueue(IProject, List) enqueues} the changed files and
+ * returns immediately. The queued files are validated by this job, which does
+ * not hold any scheduling rule; the markers of each file are updated under the
+ * marker rule of that file only. Repeated requests for the same file are
+ * merged and a request is dropped if the file has been modified since it was
+ * queued, because the next build queues it again.
+ * </p>
+ * <p>
+ * If the job is canceled or if the validation fails, the files of the
+ * interrupted validation are put back in the queue and the job is scheduled
+ * again. After some successive failures, the files wait for the next request.
+ * </p>
+ *
+ * @author Laurent Muller
+ * @version 1.0
+ */
+public class TwigcsValidationJob extends WorkspaceJob {
+
+	/*
+	 * the delay, in milliseconds, before running the job, so successive saves
+	 * are merged
+	 */
+	private static final long SCHEDULE_DELAY = 300;
+
+	/*
+	 * the delay, in milliseconds, before running the job again after a
+	 * cancellation or a failure
+	 */
+	private static final long RETRY_DELAY = 5000;
+
+	/*
+	 * the maximum number of successive failures before waiting for a new
+	 * request to run the job again
+	 */
+	private static final int MAX_FAILURES = 3;
+
+	/*
+	 * the queued files with their modification stamp, mapped by project
+	 */
+	private final Map<IProject, Map<IFile, Long>> queue = new LinkedHashMap<>();
+
+	/*
+	 * the number of successive failures
+	 */
+	private int failures;
+
+	/*
+	 * true if the job must not be scheduled anymore
+	 */
+	private volatile boolean disposed;
+
+	/**
+	 * Creates a new instance of this class.
+	 */
+	public TwigcsValidationJob() {
+		super(Messages.TwigcsValidationJob_Name);
+		setPriority(LONG);
+		setUser(false);
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public boolean belongsTo(final Object family) {
+		return IConstants.BUILDER_ID.equals(family);
+	}
+
+	/**
+	 * Cancels this job, waits for the running validation, if any, to complete
+	 * and prevents any further scheduling.
+	 *
+	 * @throws InterruptedException
+	 *             if the current thread is interrupted while waiting.
+	 */
+	public void dispose() throws InterruptedException {
+		disposed = true;
+		cancel();
+		join();
+	}
+
+	/**
+	 * Adds the given files to the validation queue and schedules this job.
+	 *
+	 * @param project
+	 *            the project of the files.
+	 * @param files
+	 *            the files to validate.
+	 */
+	public void enqueue(final IProject project, final List<IFile> files) {
+		synchronized (queue) {
+			final Map<IFile, Long> projectFiles = queue
+					.computeIfAbsent(project, p -> new LinkedHashMap<>());
+			for (final IFile file : files) {
+				// remove first to keep the order of the last request
+				projectFiles.remove(file);
+				projectFiles.put(file, file.getModificationStamp());
+			}
+		}
+		schedule(SCHEDULE_DELAY);
+	}
+
+	/**
+	 * Removes the queued files of the given project.
+	 *
+	 * @param project
+	 *            the project to remove files for.
+	 */
+	public void remove(final IProject project) {
+		synchronized (queue) {
+			queue.remove(project);
+		}
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public IStatus runInWorkspace(final IProgressMonitor monitor)
+			throws CoreException {
+		IProject project;
+		while ((project = nextProject()) != null) {
+			if (monitor.isCanceled()) {
+				reschedule();
+				return Status.CANCEL_STATUS;
+			}
+			final List<IFile> files = takeFiles(project);
+			if (!files.isEmpty() && project.isAccessible()) {
+				try {
+					validate(project, files, monitor);
+				} catch (final CoreException | RuntimeException e) {
+					requeue(project, files);
+					if (++failures < MAX_FAILURES) {
+						reschedule();
+					}
+					throw e;
+				}
+				if (monitor.isCanceled()) {
+					requeue(project, files);
+					reschedule();
+					return Status.CANCEL_STATUS;
+				}
+			}
+		}
+		failures = 0;
+		return Status.OK_STATUS;
+	}
+
+	/**
+	 * {@inheritDoc}
+	 * <p>
+	 * The implementation of <code>TwigcsValidationJob</code> returns
+	 * <code>false</code> if this job is disposed.
+	 * </p>
+	 */
+	@Override
+	public boolean shouldSchedule() {
+		return !disposed;
+	}
+
+	/**
+	 * Gets the first project having queued files.
+	 *
+	 * @return the project, if any; <code>null</code> if the queue is empty.
+	 */
+	private IProject nextProject() {
+		synchronized (queue) {
+			return queue.isEmpty() ? null : queue.keySet().iterator().next();
+		}
+	}
+
+	/**
+	 * Puts back the given files in the validation queue. The files queued in
+	 * the meantime keep their modification stamp and their order.
+	 *
+	 * @param project
+	 *            the project of the files.
+	 * @param files
+	 *            the files to put back.
+	 */
+	private void requeue(final IProject project, final List<IFile> files) {
+		synchronized (queue) {
+			final Map<IFile, Long> projectFiles = queue
+					.computeIfAbsent(project, p -> new LinkedHashMap<>());
+			for (final IFile file : files) {
+				projectFiles.putIfAbsent(file, file.getModificationStamp());
+			}
+		}
+	}
+
+	/**
+	 * Schedules this job again, after the retry delay. The job is not
+	 * scheduled if it is disposed.
+	 */
+	private void reschedule() {
+		schedule(RETRY_DELAY);
+	}
+
+	/**
+	 * Removes and returns the queued files of the given project. The files
+	 * modified since they were queued are dropped.
+	 *
+	 * @param project
+	 *            the project to get files for.
+	 * @return the files to validate.
+	 */
+	private List<IFile> takeFiles(final IProject project) {
+		final Map<IFile, Long> projectFiles;
+		synchronized (queue) {
+			projectFiles = queue.remove(project);
+		}
+		final List<IFile> files = new ArrayList<>();
+		if (projectFiles != null) {
+			for (final Map.Entry<IFile, Long> entry : projectFiles
+					.entrySet()) {
+				final IFile file = entry.getKey();
+				if (file.isAccessible() && file
+						.getModificationStamp() == entry.getValue()) {
+					files.add(file);
+				}
+			}
+		}
+		return files;
+	}
+
+	/**
+	 * Validates the given files.
+	 *
+	 * @param project
+	 *            the project of the files.
+	 * @param files
+	 *            the files to validate.
+	 * @param monitor
+	 *            the progress monitor.
+	 * @throws CoreException
+	 *             if the validation fails.
+	 */
+	private void validate(final IProject project, final List<IFile> files,
+			final IProgressMonitor monitor) throws CoreException {
+		final TwigcsValidationVisitor visitor = new TwigcsValidationVisitor(
+				project, monitor);
+		visitor.setMarkerRule(true);
+		visitor.validate(files);
+	}
+}
@@ -9,30 +9,61 @@
 package nu.bibi.twigcs.core;
 
 import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
 import java.util.List;
-import java.util.function.Predicate;
+import java.util.Map;
+import java.util.concurrent.CompletionService;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorCompletionService;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import org.eclipse.core.resources.IFile;
 import org.eclipse.core.resources.IMarker;
 import org.eclipse.core.resources.IProject;
 import org.eclipse.core.resources.IResource;
+import org.eclipse.core.resources.IWorkspace;
 import org.eclipse.core.runtime.CoreException;
-import org.eclipse.core.runtime.IPath;
+import org.eclipse.core.runtime.ICoreRunnable;
 import org.eclipse.core.runtime.IProgressMonitor;
-import org.eclipse.osgi.util.NLS;
+import org.eclipse.core.runtime.Status;
+import org.eclipse.core.runtime.jobs.ISchedulingRule;
 
+import nu.bibi.twigcs.TwigcsPlugin;
 import nu.bibi.twigcs.internal.Messages;
-import nu.bibi.twigcs.io.IOExecutor;
 import nu.bibi.twigcs.model.TwigFile;
-import nu.bibi.twigcs.model.TwigResult;
+import nu.bibi.twigcs.model.TwigMessage;
 import nu.bibi.twigcs.model.TwigSeverity;
-import nu.bibi.twigcs.model.TwigVersion;
 import nu.bibi.twigcs.model.TwigViolation;
-import nu.bibi.twigcs.preferences.ProjectPreferences;
+import nu.bibi.twigcs.preferences.ProjectSnapshot;
 import nu.bibi.twigcs.resolution.IResolutionConstants;
 
 /**
  * Resource visitor to validate Twig files.
+ * <p>
+ * The files to validate are collected while visiting and are passed by batches
+ * to a single Twigcs execution. The batches are executed concurrently by a
+ * bounded pool of threads, while the markers are always updated by the thread
+ * running the visit. The {@link #flush()} method must be called when the visit
+ * is complete to validate the remaining files and the {@link #dispose()} method
+ * must be called to release the pool.
+ * </p>
+ * <p>
+ * When the resident worker mode is enabled, the batches are sent to the
+ * resident Twigcs workers of the plugin. If the workers cannot be started, the
+ * batches are validated by a new Twigcs process.
+ * </p>
+ * <p>
+ * When the results cache is enabled, the markers of a file whose contents and
+ * validation options are unchanged are restored from the cache, without
+ * running Twigcs.
+ * </p>
  *
  * @author Laurent Muller
  * @version 1.0
@@ -41,9 +72,57 @@ public class TwigcsValidationVisitor extends AbstractResouceVisitor
 		implements IConstants, IResolutionConstants, ICoreException {
 
 	/*
-	 * the double quote character
+	 * the marker attributes compared to find the unchanged markers
 	 */
-	private static final char QUOTE_CHAR = '"';
+	private static final String[] MARKER_KEYS = { //
+			IMarker.MESSAGE, //
+			IMarker.SEVERITY, //
+			IMarker.LINE_NUMBER, //
+			IMarker.CHAR_START, //
+			IMarker.CHAR_END, //
+			IMarker.SOURCE_ID //
+	};
+
+	/*
+	 * the delay, in milliseconds, to wait for a batch before checking the
+	 * progress monitor cancellation
+	 */
+	private static final long POLL_DELAY = 100;
+
+	/*
+	 * the worker threads counter
+	 */
+	private static final AtomicInteger THREAD_COUNTER = new AtomicInteger();
+
+	/**
+	 * Gets the compared attributes of the given marker.
+	 *
+	 * @param marker
+	 *            the marker.
+	 * @return the attribute values.
+	 * @throws CoreException
+	 *             if the marker does not exist.
+	 */
+	private static List<Object> getMarkerKey(final IMarker marker)
+			throws CoreException {
+		return Arrays.asList(marker.getAttributes(MARKER_KEYS));
+	}
+
+	/**
+	 * Gets the compared attributes of the given marker attributes.
+	 *
+	 * @param attributes
+	 *            the marker attributes.
+	 * @return the attribute values.
+	 */
+	private static List<Object> getMarkerKey(
+			final Map<String, Object> attributes) {
+		final Object[] values = new Object[MARKER_KEYS.length];
+		for (int i = 0; i < values.length; i++) {
+			values[i] = attributes.get(MARKER_KEYS[i]);
+		}
+		return Arrays.asList(values);
+	}
 
 	/**
 	 * Returns if the given resource is a Twig file.
@@ -58,14 +137,9 @@ public class TwigcsValidationVisitor extends AbstractResouceVisitor
 	}
 
 	/*
-	 * the include paths and stream
-	 */
-	private final List<IPath> includePaths;
-
-	/*
-	 * the exclude paths and stream
+	 * the paths filter
 	 */
-	private final List<IPath> excludePaths;
+	private final TwigcsPathFilter filter;
 
 	/*
 	 * the Twigcs processor
@@ -73,14 +147,9 @@ public class TwigcsValidationVisitor extends AbstractResouceVisitor
 	private TwigcsProcessor processor;
 
 	/*
-	 * the Twig result parser
-	 */
-	private TwigcsResultParser parser;
-
-	/*
-	 * the twig version
+	 * the project settings
 	 */
-	private final TwigVersion version;
+	private final ProjectSnapshot snapshot;
 
 	/*
 	 * the severity level
@@ -92,6 +161,76 @@ public class TwigcsValidationVisitor extends AbstractResouceVisitor
 	 */
 	private final IProgressMonitor monitor;
 
+	/*
+	 * the maximum number of files to validate by a single execution
+	 */
+	private final int batchSize;
+
+	/*
+	 * the files waiting to be validated
+	 */
+	private final List<IFile> pendingFiles;
+
+	/*
+	 * the length of the pending files paths
+	 */
+	private int pendingLength;
+
+	/*
+	 * the maximum number of concurrent Twigcs executions
+	 */
+	private final int maxProcesses;
+
+	/*
+	 * the worker threads pool
+	 */
+	private ExecutorService executor;
+
+	/*
+	 * the service to get completed batches
+	 */
+	private CompletionService<TwigcsBatch> completion;
+
+	/*
+	 * the number of submitted batches not yet completed
+	 */
+	private int running;
+
+	/*
+	 * the resident worker mode
+	 */
+	private boolean residentWorker;
+
+	/*
+	 * the command to start a resident worker
+	 */
+	private List<String> workerCommand;
+
+	/*
+	 * the validation results cache
+	 */
+	private TwigcsResultCache cache;
+
+	/*
+	 * the processor signature used to compute cache keys
+	 */
+	private String signature;
+
+	/*
+	 * the cache keys of the files being validated
+	 */
+	private final Map<IFile, String> cacheKeys = new HashMap<>();
+
+	/*
+	 * the marker rule mode
+	 */
+	private boolean markerRule;
+
+	/*
+	 * the statistics to record timings into
+	 */
+	private final TwigcsBuildStatistics statistics;
+
 	/**
 	 * Creates a new instance of this class.
 	 *
@@ -104,12 +243,92 @@ public class TwigcsValidationVisitor extends AbstractResouceVisitor
 			final IProgressMonitor monitor) {
 		this.monitor = monitor;
 
+		// statistics
+		statistics = TwigcsPlugin.getDefault().getStatistics()
+				.beginBuild(project.getName());
+
 		// get preferences
-		final ProjectPreferences preferences = new ProjectPreferences(project);
-		version = preferences.getTwigVersion();
-		severity = preferences.getTwigSeverity();
-		includePaths = preferences.getIncludePaths();
-		excludePaths = preferences.getExcludePaths();
+		snapshot = ProjectSnapshot.of(project);
+		severity = snapshot.getTwigSeverity();
+		filter = snapshot.getFilter();
+
+		// batch
+		batchSize = snapshot.getBatchSize();
+		pendingFiles = new ArrayList<>(batchSize);
+		maxProcesses = snapshot.getMaxProcesses();
+		residentWorker = snapshot.isResidentWorker();
+
+		// cache
+		if (snapshot.isResultCache()) {
+			cache = TwigcsPlugin.getDefault().getResultCache();
+			cache.setMaxEntries(snapshot.getCacheSize());
+		}
+	}
+
+	/**
+	 * Releases the worker threads pool. Batches not yet completed are
+	 * cancelled.
+	 */
+	public void dispose() {
+		if (executor != null) {
+			executor.shutdownNow();
+			executor = null;
+			completion = null;
+			running = 0;
+		}
+	}
+
+	/**
+	 * Validates the files collected and not yet validated and waits for all
+	 * batches to complete. This method must be called when the visit is
+	 * complete.
+	 *
+	 * @throws CoreException
+	 *             if an error occurs while processing the files.
+	 */
+	public void flush() throws CoreException {
+		submitPending();
+		while (running > 0 && !monitor.isCanceled()) {
+			waitForBatch();
+		}
+	}
+
+	/**
+	 * Sets if the markers of each file are updated under the marker rule of
+	 * that file. This mode must be set when validating outside of the builder.
+	 *
+	 * @param markerRule
+	 *            <code>true</code> to run marker operations under the marker
+	 *            rule of the file.
+	 */
+	public void setMarkerRule(final boolean markerRule) {
+		this.markerRule = markerRule;
+	}
+
+	/**
+	 * Validates the given files and releases this visitor when done.
+	 *
+	 * @param files
+	 *            the files to validate.
+	 * @throws CoreException
+	 *             if an error occurs while processing the files.
+	 */
+	public void validate(final List<IFile> files) throws CoreException {
+		try {
+			monitor.beginTask(Messages.TwigcsBuilder_Process_Files,
+					files.size());
+			for (final IFile file : files) {
+				if (monitor.isCanceled()) {
+					break;
+				}
+				visit(file);
+			}
+			flush();
+		} finally {
+			dispose();
+			TwigcsPlugin.getDefault().getStatistics().endBuild(statistics);
+			monitor.done();
+		}
 	}
 
 	/**
@@ -119,115 +338,191 @@ public class TwigcsValidationVisitor extends AbstractResouceVisitor
 	protected boolean doVisit(final IResource resource) throws CoreException {
 		if (isTwigFile(resource)) {
 			final IFile file = (IFile) resource;
-			monitor.subTask(file.getFullPath().toOSString());
-			deleteMarkers(file);
-			if (mustProcess(file)) {
-				process(file);
+			if (filter.isIncluded(file.getProjectRelativePath())) {
+				if (!restoreMarkers(file)) {
+					addPending(file);
+				}
+			} else {
+				deleteMarkers(file);
+				monitor.worked(1);
 			}
-			monitor.worked(1);
+		} else if (resource.getType() == IResource.FOLDER
+				&& !filter.mustVisit(resource.getProjectRelativePath())) {
+			// excluded or never included subtree
+			return false;
 		}
 
 		return !monitor.isCanceled();
 	}
 
 	/**
-	 * Creates and returns the marker for the given violation. Do nothing if the
-	 * violation severity is below the preferences severity.
+	 * Adds the given file to the list of files to validate. The pending files
+	 * are validated if the batch size or the maximum command length is
+	 * reached.
 	 *
 	 * @param file
-	 *            the file to update.
+	 *            the file to add.
+	 * @throws CoreException
+	 *             if an error occurs while processing the files.
+	 */
+	private void addPending(final IFile file) throws CoreException {
+		pendingFiles.add(file);
+		pendingLength += TwigcsBatch.getSearchPath(file).length() + 1;
+		if (TwigcsBatch.isFull(pendingFiles.size(), pendingLength,
+				batchSize)) {
+			submitPending();
+		}
+	}
+
+	/**
+	 * Builds the command to start a resident worker. If the command cannot be
+	 * built, the resident worker mode is disabled for this visitor.
+	 *
+	 * @return a string list containing the PHP interpreter and its arguments
+	 *         or <code>null</code> if the resident worker mode is disabled.
+	 */
+	private List<String> buildWorkerCommand() {
+		if (residentWorker && workerCommand == null) {
+			try {
+				final String script = TwigcsPlugin.getDefault()
+						.getWorkerScript();
+				workerCommand = getProcessor().buildWorkerCommand(
+						snapshot.getPhpPath(), script);
+			} catch (final CoreException e) {
+				TwigcsPlugin.log(e.getStatus());
+				residentWorker = false;
+			} catch (final IOException e) {
+				TwigcsPlugin.log(createErrorStatus(e.getMessage(), e));
+				residentWorker = false;
+			}
+		}
+		return workerCommand;
+	}
+
+	/**
+	 * Creates the marker attributes for the given violation.
+	 *
 	 * @param text
 	 *            the parsed file content.
 	 * @param violation
 	 *            the violation to get values from.
-	 * @return the new marker or <code>null</code> if the violation severity is
-	 *         below the preferences severity.
-	 * @throws CoreException
-	 *             if an exception occurs while creating the marker.
+	 * @return the marker attributes or <code>null</code> if the violation
+	 *         severity is below the preferences severity.
 	 */
-	private IMarker addMarker(final IFile file, final ResourceText text,
-			final TwigViolation violation) throws CoreException {
+	private Map<String, Object> createAttributes(final ResourceText text,
+			final TwigViolation violation) {
 		// below?
 		if (violation.getSeverity().isBelow(severity)) {
 			return null;
 		}
 
 		// get values
-		final String message = violation.getMessage();
+		final TwigMessage message = violation.getTwigMessage();
 		final int markerSeverity = violation.getMarkerSeverity();
 		final int line = violation.getLine();
 		final int column = violation.getColumn();
 		final int offset = getOffset(message, text, line, column);
 		final int length = getOffsetLength(message, text, offset);
-		final int errorId = getErrorId(message);
+		final int errorId = message.getErrorId();
 
 		// create
-		final IMarker marker = file.createMarker(MARKER_TYPE);
-		marker.setAttribute(IMarker.MESSAGE, message);
-		marker.setAttribute(IMarker.SEVERITY, markerSeverity);
-		marker.setAttribute(IMarker.LINE_NUMBER, line);
-		marker.setAttribute(IMarker.CHAR_START, offset);
-		marker.setAttribute(IMarker.CHAR_END, offset + length);
-		marker.setAttribute(IMarker.SOURCE_ID, errorId);
-
-		return marker;
+		final Map<String, Object> attributes = new HashMap<>();
+		attributes.put(IMarker.MESSAGE, message.getText());
+		attributes.put(IMarker.SEVERITY, markerSeverity);
+		attributes.put(IMarker.LINE_NUMBER, line);
+		attributes.put(IMarker.CHAR_START, offset);
+		attributes.put(IMarker.CHAR_END, offset + length);
+		attributes.put(IMarker.SOURCE_ID, errorId);
+
+		return attributes;
 	}
 
 	/**
-	 * Builds the execution command.
+	 * Delete all marker of the given file.
 	 *
 	 * @param file
-	 *            the file to process.
-	 * @return a string list containing the Twigcs program and its arguments.
+	 *            the file to update.
 	 * @throws CoreException
-	 *             if some parameters are missing or invalid.
+	 *             if an exception occurs while removing markers.
 	 */
-	private List<String> buildCommand(final IFile file) throws CoreException {
-		if (processor == null) {
-			processor = TwigcsProcessor.instance();
-			processor.setTwigVersion(version);
-		}
-
-		// update
-		final String path = file.getLocation().toPortableString();
-		processor.setSearchPath(path);
-
-		// build
-		return processor.buildCommand();
+	private void deleteMarkers(final IFile file) throws CoreException {
+		runMarkerOperation(file,
+				m -> file.deleteMarkers(MARKER_TYPE, false,
+						IResource.DEPTH_ZERO));
 	}
 
 	/**
-	 * Delete all marker of the given file.
+	 * Updates the markers of the given file from the given result. The
+	 * existing markers having the same message, severity, line, range and
+	 * source identifier as a violation are kept, the other existing markers
+	 * are deleted and the missing markers are created with all their
+	 * attributes at once.
 	 *
 	 * @param file
 	 *            the file to update.
+	 * @param result
+	 *            the file result.
 	 * @throws CoreException
-	 *             if an exception occurs while removing markers.
+	 *             if an exception occurs while updating markers.
 	 */
-	private void deleteMarkers(final IFile file) throws CoreException {
-		file.deleteMarkers(MARKER_TYPE, false, IResource.DEPTH_ZERO);
+	private void diffMarkers(final IFile file, final TwigFile result)
+			throws CoreException {
+		final IMarker[] markers = file.findMarkers(MARKER_TYPE, false,
+				IResource.DEPTH_ZERO);
+		if (markers.length == 0 && result.isEmpty()) {
+			return;
+		}
+
+		// existing markers
+		final List<IMarker> obsoletes = new ArrayList<>();
+		final Map<List<Object>, IMarker> existing = new HashMap<>();
+		for (final IMarker marker : markers) {
+			if (existing.putIfAbsent(getMarkerKey(marker), marker) != null) {
+				obsoletes.add(marker);
+			}
+		}
+
+		// create missing markers
+		if (!result.isEmpty()) {
+			final long start = statistics.start();
+			final ResourceText text = new ResourceText(file);
+			statistics.stop(TwigcsPhase.RESOURCE_TEXT, start);
+			for (final TwigViolation violation : result) {
+				final Map<String, Object> attributes = createAttributes(text,
+						violation);
+				if (attributes != null
+						&& existing.remove(getMarkerKey(attributes)) == null) {
+					file.createMarker(MARKER_TYPE, attributes);
+				}
+			}
+		}
+
+		// delete obsolete markers
+		obsoletes.addAll(existing.values());
+		if (!obsoletes.isEmpty()) {
+			file.getWorkspace().deleteMarkers(
+					obsoletes.toArray(new IMarker[obsoletes.size()]));
+		}
 	}
 
 	/**
-	 * Gets the error identifier.
+	 * Gets the batch of the given completed future.
 	 *
-	 * @param message
-	 *            the error message.
-	 * @return the error identifier, if any; -1 otherwise.
-	 */
-	private int getErrorId(final String message) {
-		if (isLowerCase(message)) {
-			return ERROR_LOWER_CASE;
-		} else if (isUnunsedMacro(message)) {
-			return ERROR_UNUSED_MACRO;
-		} else if (isUnunsedVariable(message)) {
-			return ERROR_UNUSED_VARIABLE;
-		} else if (isEndLineSpace(message) || isNoSpace(message)) {
-			return ERROR_NO_SPACE;
-		} else if (isOneSpace(message)) {
-			return ERROR_ONE_SPACE;
-		} else {
-			return ERROR_INVALID;
+	 * @param future
+	 *            the completed future.
+	 * @return the batch.
+	 * @throws CoreException
+	 *             if the batch execution throws an unexpected exception.
+	 */
+	private TwigcsBatch getBatch(final Future<TwigcsBatch> future)
+			throws CoreException {
+		try {
+			return future.get();
+		} catch (final ExecutionException e) {
+			throw createCoreException(e.getCause().getMessage(), e.getCause());
+		} catch (final InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw createCoreException(e.getMessage(), e);
 		}
 	}
 
@@ -244,15 +539,15 @@ public class TwigcsValidationVisitor extends AbstractResouceVisitor
 	 *            the violation column.
 	 * @return the offset.
 	 */
-	private int getOffset(final String message, final ResourceText text,
+	private int getOffset(final TwigMessage message, final ResourceText text,
 			final int line, final int column) {
 		int offset = text.getOffset(line - 1) + column;
-		if (isEndLineSpace(message)) {
+		if (message.isEndLineSpace()) {
 			final byte[] content = text.getContent();
 			while (offset > 0 && isWhitespace(content, offset - 1)) {
 				offset--;
 			}
-		} else if (isOneSpace(message)) {
+		} else if (message.isOneSpace()) {
 			final byte[] content = text.getContent();
 			if (isWhitespace(content, offset)) {
 				offset++;
@@ -272,25 +567,22 @@ public class TwigcsValidationVisitor extends AbstractResouceVisitor
 	 *            the start violation offset.
 	 * @return the offset length.
 	 */
-	private int getOffsetLength(final String message, final ResourceText text,
-			final int offset) {
+	private int getOffsetLength(final TwigMessage message,
+			final ResourceText text, final int offset) {
 		int length = 1;
-		if (isUnunsedVariable(message) //
-				|| isUnunsedMacro(message) //
-				|| isLowerCase(message)) {
-			final int start = message.indexOf(QUOTE_CHAR);
-			final int end = message.indexOf(QUOTE_CHAR, start + 1);
-			if (start != -1 && end != -1) {
-				length = end - start - 1;
+		if (message.hasIdentifier()) {
+			final int start = message.getIdentifierStart();
+			if (start != -1) {
+				length = message.getIdentifierEnd() - start;
 			}
-		} else if (isNoSpace(message)) {
+		} else if (message.isNoSpace()) {
 			int end = offset;
 			final byte[] content = text.getContent();
 			while (isWhitespace(content, end)) {
 				end++;
 			}
 			length = end - offset;
-		} else if (isOneSpace(message) || isEndLineSpace(message)) {
+		} else if (message.isOneSpace() || message.isEndLineSpace()) {
 			int end = offset + 1;
 			final byte[] content = text.getContent();
 			while (isWhitespace(content, end)) {
@@ -303,170 +595,237 @@ public class TwigcsValidationVisitor extends AbstractResouceVisitor
 	}
 
 	/**
-	 * Gets the Twig result parser.
+	 * Gets the processor.
 	 *
-	 * @return Twig result parser.
+	 * @return the processor.
 	 */
-	private TwigcsResultParser getParser() {
-		if (parser == null) {
-			parser = new TwigcsResultParser();
+	private TwigcsProcessor getProcessor() {
+		if (processor == null) {
+			processor = TwigcsProcessor.instance(snapshot);
 		}
-		return parser;
+		return processor;
 	}
 
 	/**
-	 * Returns if the given message concern the end line space error.
+	 * Updates the markers for the given completed batch.
 	 *
-	 * @param message
-	 *            the message to be tested.
-	 * @return <code>true</code> if end line space error.
+	 * @param batch
+	 *            the completed batch.
+	 * @throws CoreException
+	 *             if an exception occurs while updating markers.
 	 */
-	private boolean isEndLineSpace(final String message) {
-		return message.contains("A line should not end with blank space"); //$NON-NLS-1$
+	private void process(final TwigcsBatch batch) throws CoreException {
+		try {
+			final List<IFile> files = batch.getFiles();
+			if (batch.getStatus() == Status.CANCEL_STATUS) {
+				// keep the markers, the files are validated again later
+				cacheKeys.keySet().removeAll(files);
+				return;
+			}
+			if (batch.getStatus() != null) {
+				cacheKeys.keySet().removeAll(files);
+				for (final IFile file : files) {
+					deleteMarkers(file);
+				}
+				handleStatus(batch.getStatus());
+				return;
+			}
+			final Map<IFile, TwigFile> results = batch.getResults();
+			for (final IFile file : files) {
+				final TwigFile result = results.get(file);
+				updateMarkers(file, result != null ? result : new TwigFile());
+			}
+			updateCache(batch);
+		} finally {
+			monitor.worked(batch.getFiles().size());
+		}
 	}
 
 	/**
-	 * Returns if the given message concern the lower case variable error.
+	 * Restores the markers of the given file from the results cache.
 	 *
-	 * @param message
-	 *            the message to be tested.
-	 * @return <code>true</code> if lower case variable error.
+	 * @param file
+	 *            the file to update.
+	 * @return <code>true</code> if the markers are restored;
+	 *         <code>false</code> if the file must be validated.
+	 * @throws CoreException
+	 *             if an exception occurs while creating markers.
 	 */
-	private boolean isLowerCase(final String message) {
-		return message.contains("variable should be in lower case"); //$NON-NLS-1$
+	private boolean restoreMarkers(final IFile file) throws CoreException {
+		if (cache == null) {
+			return false;
+		}
+		if (signature == null) {
+			signature = getProcessor().getSignature();
+		}
+		final String key = cache.computeKey(file, signature);
+		final TwigFile result = cache.get(key);
+		if (result == null) {
+			cacheKeys.put(file, key);
+			return false;
+		}
+		updateMarkers(file, result);
+		statistics.addCachedFile();
+		monitor.worked(1);
+		return true;
 	}
 
 	/**
-	 * Returns if the given message concern the no space error.
+	 * Runs the given marker operation for the given file. If the marker rule
+	 * mode is set, the operation is run under the marker rule of the file.
 	 *
-	 * @param message
-	 *            the message to be tested.
-	 * @return <code>true</code> if no space error.
+	 * @param file
+	 *            the file to update.
+	 * @param action
+	 *            the marker operation.
+	 * @throws CoreException
+	 *             if the operation fails.
 	 */
-	private boolean isNoSpace(final String message) {
-		return message.contains("0 space"); //$NON-NLS-1$
+	private void runMarkerOperation(final IFile file,
+			final ICoreRunnable action) throws CoreException {
+		if (markerRule) {
+			final IWorkspace workspace = file.getWorkspace();
+			final ISchedulingRule rule = workspace.getRuleFactory()
+					.markerRule(file);
+			workspace.run(action, rule, IWorkspace.AVOID_UPDATE, null);
+		} else {
+			action.run(null);
+		}
 	}
 
 	/**
-	 * Returns if the given message concern the one space error.
-	 *
-	 * @param message
-	 *            the message to be tested.
-	 * @return <code>true</code> if one space error.
+	 * Creates the worker threads pool.
 	 */
-	private boolean isOneSpace(final String message) {
-		return message.contains("1 space"); //$NON-NLS-1$
+	private void startExecutor() {
+		final ThreadFactory factory = r -> {
+			final Thread thread = new Thread(r,
+					"Twigcs Worker-" + THREAD_COUNTER.incrementAndGet()); //$NON-NLS-1$
+			thread.setDaemon(true);
+			return thread;
+		};
+		executor = Executors.newFixedThreadPool(maxProcesses, factory);
+		completion = new ExecutorCompletionService<>(executor);
 	}
 
 	/**
-	 * Returns if the given message concern the unused macro.
+	 * Submits the pending files as a new batch. If the maximum number of
+	 * concurrent executions is reached, this method waits until a batch is
+	 * completed. The batches already completed are processed.
 	 *
-	 * @param message
-	 *            the message to be tested.
-	 * @return <code>true</code> if unused macro error.
+	 * @throws CoreException
+	 *             if an error occurs while processing the files.
 	 */
-	private boolean isUnunsedMacro(final String message) {
-		return message.contains("Unused macro"); //$NON-NLS-1$
-	}
+	private void submitPending() throws CoreException {
+		if (pendingFiles.isEmpty()) {
+			return;
+		}
+		final List<IFile> files = new ArrayList<>(pendingFiles);
+		pendingFiles.clear();
+		pendingLength = 0;
+		if (monitor.isCanceled()) {
+			return;
+		}
 
-	/**
-	 * Returns if the given message concern the unused variable.
-	 *
-	 * @param message
-	 *            the message to be tested.
-	 * @return <code>true</code> if unused variable error.
-	 */
-	private boolean isUnunsedVariable(final String message) {
-		return message.contains("Unused variable"); //$NON-NLS-1$
+		// wait for a free worker
+		while (running >= maxProcesses && !monitor.isCanceled()) {
+			waitForBatch();
+		}
+		if (monitor.isCanceled()) {
+			return;
+		}
+
+		// submit
+		final TwigcsBatch batch = TwigcsBatch.create(getProcessor(), files);
+		batch.setStatistics(statistics);
+		statistics.addFiles(files.size());
+		if (buildWorkerCommand() != null) {
+			batch.setWorker(TwigcsPlugin.getDefault().getWorkerPool(),
+					workerCommand, getProcessor().buildRequest(), maxProcesses);
+		}
+		if (executor == null) {
+			startExecutor();
+		}
+		monitor.subTask(files.get(0).getFullPath().toOSString());
+		completion.submit(batch);
+		running++;
+
+		// process completed batches
+		Future<TwigcsBatch> future;
+		while ((future = completion.poll()) != null) {
+			running--;
+			process(getBatch(future));
+		}
 	}
 
 	/**
-	 * Returns if the given file must be processed.
+	 * Adds the results of the given completed batch to the cache. If all the
+	 * violations reported by Twigcs are mapped, the files without violations
+	 * are cached with an empty result; otherwise only the mapped results are
+	 * cached.
 	 *
-	 * @param file
-	 *            the file to be tested.
-	 * @return <code>true</code> if processed; <code>false</code> to skip.
+	 * @param batch
+	 *            the completed batch.
 	 */
-	private boolean mustProcess(final IFile file) {
-		// include paths?
-		if (includePaths.isEmpty()) {
-			return false;
-		}
-
-		// paths
-		final IPath path = file.getProjectRelativePath();
-		final IPath parent = path.removeLastSegments(1);
-
-		// check within the parent
-		if (includePaths.contains(parent)) {
-			return true;
-		} else if (excludePaths.contains(parent)) {
-			return false;
+	private void updateCache(final TwigcsBatch batch) {
+		final Map<IFile, TwigFile> results = batch.getResults();
+		final boolean complete = batch.isComplete();
+		for (final IFile file : batch.getFiles()) {
+			final String key = cacheKeys.remove(file);
+			if (key != null) {
+				final TwigFile result = results.get(file);
+				if (result != null) {
+					cache.put(key, result);
+				} else if (complete) {
+					cache.put(key, new TwigFile());
+				}
+			}
 		}
-
-		// check children
-		final Predicate<IPath> predicate = p -> p.isPrefixOf(path);
-		return includePaths.stream().anyMatch(predicate);
 	}
 
 	/**
-	 * Parses the execution result.
+	 * Updates the markers of the given file from the given result.
 	 *
-	 * @param data
-	 *            the output data of the execution.
-	 * @return the first file result, if any; <code>null</code> otherwise.
-	 * @throws IOException
-	 *             if the data output is not a valid representation of a
-	 *             {@link TwigResult} type.
-	 */
-	private TwigFile parseResult(final String data) throws IOException {
-		final TwigResult result = getParser().parse(data);
-		return result.first();
+	 * @param file
+	 *            the file to update.
+	 * @param result
+	 *            the file result.
+	 * @throws CoreException
+	 *             if an exception occurs while updating markers.
+	 * @see #diffMarkers(IFile, TwigFile)
+	 */
+	private void updateMarkers(final IFile file, final TwigFile result)
+			throws CoreException {
+		final long start = statistics.start();
+		runMarkerOperation(file, m -> diffMarkers(file, result));
+		statistics.stop(TwigcsPhase.MARKERS, start);
 	}
 
 	/**
-	 * Validate the given file with the Twigcs component.
+	 * Waits for a submitted batch to complete and processes it. If the
+	 * progress monitor is cancelled while waiting, the running batches are
+	 * cancelled.
 	 *
-	 * @param file
-	 *            the file to validate.
 	 * @throws CoreException
-	 *             if an error occurs while processing the file.
+	 *             if an error occurs while processing the batch.
 	 */
-	private void process(final IFile file) throws CoreException {
+	private void waitForBatch() throws CoreException {
 		try {
-			// run
-			final List<String> command = buildCommand(file);
-			final IOExecutor executor = new IOExecutor();
-			final int exitCode = executor.run(command);
-
-			// output?
-			final String output = executor.getOutput();
-			if (!output.isEmpty()) {
-				// convert
-				final TwigFile result = parseResult(output);
-				if (result != null && !result.isEmpty()) {
-					// add violations
-					final ResourceText text = new ResourceText(file);
-					for (final TwigViolation violation : result) {
-						addMarker(file, text, violation);
-					}
+			while (running > 0) {
+				if (monitor.isCanceled()) {
+					dispose();
+					return;
 				}
-			} else if (exitCode != 0) { // error?
-				IOException e = executor.getErrorException();
-				final String error = executor.getError();
-				if (!error.isEmpty()) {
-					e = new IOException(error, e);
+				final Future<TwigcsBatch> future = completion.poll(POLL_DELAY,
+						TimeUnit.MILLISECONDS);
+				if (future != null) {
+					running--;
+					process(getBatch(future));
+					return;
 				}
-				final String msg = NLS.bind(
-						Messages.ValidationVisitor_Error_Validate_Code,
-						file.getName(), exitCode);
-				handleStatus(createErrorStatus(msg, e));
 			}
-		} catch (final IOException e) {
-			final String msg = NLS.bind(
-					Messages.ValidationVisitor_Error_Validate_Name,
-					file.getName());
-			handleStatus(createErrorStatus(msg, e));
+		} catch (final InterruptedException e) {
+			Thread.currentThread().interrupt();
+			dispose();
 		}
 	}
 }
@@ -0,0 +1,130 @@
+/**
+ * This file is part of the twigcs-plugin package.
+ *
+ * (c) Laurent Muller <bibi@bibi.nu>
+ *
+ * For the full copyright and license information, please view the LICENSE
+ * file that was distributed with this source code.
+ */
+package nu.bibi.twigcs.core;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+import nu.bibi.twigcs.internal.Messages;
+import nu.bibi.twigcs.io.IOWorker;
+
+/**
+ * Pool of resident Twigcs workers.
+ * <p>
+ * Workers are created on demand, up to the maximum number of concurrent
+ * executions, and are kept alive between builds. All workers are stopped when
+ * the command changes (for example after a change of the Twigcs executable).
+ * A command for which a worker fails to answer the health check is not used
+ * anymore, so callers can fall back to one process per execution.
+ * </p>
+ *
+ * @author Laurent Muller
+ * @version 1.0
+ */
+public class TwigcsWorkerPool {
+
+	/*
+	 * the idle workers
+	 */
+	private final List<IOWorker> idle = new ArrayList<>();
+
+	/*
+	 * the number of workers lent
+	 */
+	private int lent;
+
+	/*
+	 * the command used by the workers
+	 */
+	private List<String> command;
+
+	/*
+	 * the command that failed to start
+	 */
+	private List<String> failedCommand;
+
+	/**
+	 * Borrows a worker running the given command. If the maximum number of
+	 * workers is reached, this method waits until a worker is released.
+	 *
+	 * @param workerCommand
+	 *            the list containing the program and its arguments.
+	 * @param maxWorkers
+	 *            the maximum number of workers.
+	 * @return the worker.
+	 * @throws IOException
+	 *             if the worker cannot be started or does not answer the
+	 *             health check.
+	 * @throws InterruptedException
+	 *             if interrupted while waiting for a worker.
+	 */
+	public IOWorker borrow(final List<String> workerCommand,
+			final int maxWorkers) throws IOException, InterruptedException {
+		IOWorker worker;
+		synchronized (this) {
+			if (workerCommand.equals(failedCommand)) {
+				throw new IOException(Messages.TwigcsWorkerPool_Error_Start);
+			}
+			if (!workerCommand.equals(command)) {
+				shutdown();
+				command = new ArrayList<>(workerCommand);
+			}
+			while (idle.isEmpty() && lent >= maxWorkers) {
+				wait();
+			}
+			worker = idle.isEmpty() ? new IOWorker(command)
+					: idle.remove(idle.size() - 1);
+			lent++;
+		}
+
+		// health check (outside of the lock)
+		if (!worker.isAlive() && !worker.ping()) {
+			worker.close();
+			synchronized (this) {
+				failedCommand = worker.getCommand();
+				lent--;
+				notifyAll();
+			}
+			throw new IOException(Messages.TwigcsWorkerPool_Error_Start);
+		}
+		return worker;
+	}
+
+	/**
+	 * Gives back a borrowed worker. The worker is stopped if it was started
+	 * with an obsolete command.
+	 *
+	 * @param worker
+	 *            the worker to release.
+	 */
+	public synchronized void release(final IOWorker worker) {
+		lent = Math.max(0, lent - 1);
+		if (worker.getCommand().equals(command)) {
+			idle.add(worker);
+		} else {
+			worker.close();
+		}
+		notifyAll();
+	}
+
+	/**
+	 * Stops all idle workers. The lent workers are stopped when released. The
+	 * failed command is forgotten, so the next borrow tries again.
+	 */
+	public synchronized void shutdown() {
+		for (final IOWorker worker : idle) {
+			worker.close();
+		}
+		idle.clear();
+		command = null;
+		failedCommand = null;
+		notifyAll();
+	}
+}
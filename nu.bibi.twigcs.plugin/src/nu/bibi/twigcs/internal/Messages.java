@@ -33,11 +33,21 @@ public final class Messages extends NLS {
 	public static String FolderSelectionDialog_Title;
 	public static String IOExecutor_Error_Interrupted;
 	public static String Preferences_Error_Save;
+	public static String PreferencesPage_Background_Validation;
+	public static String PreferencesPage_Batch_Size;
+	public static String PreferencesPage_Cache_Cleared;
+	public static String PreferencesPage_Cache_Size;
+	public static String PreferencesPage_Clear_Cache;
 	public static String PreferencesPage_Description;
 	public static String PreferencesPage_Display;
+	public static String PreferencesPage_Error_Clear_Cache;
 	public static String PreferencesPage_Error_Path;
+	public static String PreferencesPage_Max_Processes;
 	public static String PreferencesPage_Path;
+	public static String PreferencesPage_Php_Path;
 	public static String PreferencesPage_Reporter;
+	public static String PreferencesPage_Resident_Worker;
+	public static String PreferencesPage_Result_Cache;
 	public static String PreferencesPage_Severity;
 	public static String PreferencesPage_Test;
 	public static String PreferencesPage_Test_Error;
@@ -63,13 +73,55 @@ public final class Messages extends NLS {
 	public static String ResourceText_Error_Read;
 	public static String ResourceText_Error_Content;
 	public static String SeverityDeserializer_Error;
+	public static String StatisticsView_Average;
+	public static String StatisticsView_Build;
+	public static String StatisticsView_Build_Text;
+	public static String StatisticsView_Clear;
+	public static String StatisticsView_Count;
+	public static String StatisticsView_Empty;
+	public static String StatisticsView_Export;
+	public static String StatisticsView_Histogram;
+	public static String StatisticsView_Maximum;
+	public static String StatisticsView_Minimum;
+	public static String StatisticsView_Phase;
+	public static String StatisticsView_Summary;
+	public static String StatisticsView_Total;
+	public static String TwigcsApplication_Error_Delete;
+	public static String TwigcsApplication_Error_No_File;
+	public static String TwigcsApplication_Error_Output;
+	public static String TwigcsApplication_Error_Project;
+	public static String TwigcsApplication_Summary;
+	public static String TwigcsApplication_Usage;
+	public static String TwigcsBatch_Error_Failures;
+	public static String TwigcsBatch_Error_No_Result;
+	public static String TwigcsBatch_Error_Unknown_File;
 	public static String TwigcsBuilder_Process_Files;
 	public static String TwigcsNatureHandler_Error_Execute;
+	public static String IOWorker_Error_Response;
+	public static String IOWorker_Error_Terminated;
+	public static String IOWorker_Error_Timeout;
+	public static String TwigcsPhase_Markers;
+	public static String TwigcsPhase_Parse;
+	public static String TwigcsPhase_Process;
+	public static String TwigcsPhase_Resource_Text;
+	public static String TwigcsPhase_Worker;
+	public static String TwigcsPlugin_Error_Save_Cache;
+	public static String TwigcsPlugin_Error_Worker_Script;
+	public static String TwigcsProcessor_Error_Autoload;
 	public static String TwigcsProcessor_Error_No_Path;
 	public static String TwigcsProcessor_Error_Not_Exist;
 	public static String TwigcsProcessor_Error_Paths_Empty;
 	public static String TwigcsProcessor_Error_Real_Path;
 	public static String TwigcsResultParser_Error;
+	public static String TwigcsRevalidationJob_Name;
+	public static String TwigcsStatistics_Bucket;
+	public static String TwigcsStatistics_Build;
+	public static String TwigcsStatistics_Export;
+	public static String TwigcsStatistics_Phase;
+	public static String TwigcsValidationJob_Name;
+	public static String TwigcsWorkerPool_Error_Start;
+	public static String ValidationVisitor_Error_Validate_Batch;
+	public static String ValidationVisitor_Error_Validate_Batch_Code;
 	public static String ValidationVisitor_Error_Validate_Code;
 	public static String ValidationVisitor_Error_Validate_Name;
 
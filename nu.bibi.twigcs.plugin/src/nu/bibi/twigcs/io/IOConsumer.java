@@ -0,0 +1,36 @@
+/**
+ * This file is part of the twigcs-plugin package.
+ *
+ * (c) Laurent Muller <bibi@bibi.nu>
+ *
+ * For the full copyright and license information, please view the LICENSE
+ * file that was distributed with this source code.
+ */
+package nu.bibi.twigcs.io;
+
+import java.io.IOException;
+import java.io.Reader;
+
+/**
+ * Consumer of the contents of a process stream.
+ * <p>
+ * The consumer is invoked by the thread reading the stream, so the contents is
+ * processed while the process writes it instead of being buffered.
+ * </p>
+ *
+ * @author Laurent Muller
+ * @version 1.0
+ */
+@FunctionalInterface
+public interface IOConsumer {
+
+	/**
+	 * Reads the stream contents.
+	 *
+	 * @param reader
+	 *            the UTF-8 reader of the stream.
+	 * @throws IOException
+	 *             if an I/O exception occurs or if the contents is not valid.
+	 */
+	void accept(Reader reader) throws IOException;
+}
@@ -17,7 +17,9 @@ import nu.bibi.twigcs.internal.Messages;
  * Class to execute a {@link Process}.
  * <p>
  * When the {@link #run(List)} method is invoked, an output string and error
- * string is available.
+ * string is available. When the {@link #run(List, IOConsumer)} method is
+ * invoked, the output is passed to the consumer while the process runs and only
+ * the error string is available.
  * </p>
  *
  * @author Laurent Muller
@@ -35,6 +37,11 @@ public class IOExecutor {
 	 */
 	private IOException outputException;
 
+	/*
+	 * the empty output state
+	 */
+	private boolean outputEmpty;
+
 	/*
 	 * the error message
 	 */
@@ -96,6 +103,15 @@ public class IOExecutor {
 		return outputException;
 	}
 
+	/**
+	 * Returns if the process has not written any output.
+	 *
+	 * @return <code>true</code> if the output is empty.
+	 */
+	public boolean isOutputEmpty() {
+		return outputEmpty;
+	}
+
 	/**
 	 * Runs the given command.
 	 *
@@ -109,17 +125,42 @@ public class IOExecutor {
 	 *             if an I/O exception occurs.
 	 */
 	public int run(final List<String> command) throws IOException {
+		return run(command, null);
+	}
+
+	/**
+	 * Runs the given command and passes its output to the given consumer. The
+	 * consumer is invoked by the thread reading the output, but only if the
+	 * output is not empty. The exceptions thrown by the consumer are available
+	 * with the {@link #getOutputException()} method.
+	 *
+	 * @param command
+	 *            the list containing the program and its arguments.
+	 * @param consumer
+	 *            the output consumer or <code>null</code> to buffer the
+	 *            output.
+	 * @return the exit code. By convention, the value 0 indicates normal
+	 *         termination.
+	 * @throws NullPointerException
+	 *             if the command is <code>null</code>.
+	 * @throws IOException
+	 *             if an I/O exception occurs.
+	 */
+	public int run(final List<String> command, final IOConsumer consumer)
+			throws IOException {
 		// clear
 		exitCode = 0;
 		output = error = null;
 		outputException = errorException = null;
+		outputEmpty = true;
 
 		// start
 		final ProcessBuilder builder = new ProcessBuilder(command);
 		final Process process = builder.start();
 
 		// handle output message
-		final IOStream outputStream = new IOStream(process.getInputStream());
+		final IOStream outputStream = new IOStream(process.getInputStream(),
+				consumer);
 		final Thread outputThread = new Thread(outputStream);
 
 		// handle error message
@@ -141,12 +182,15 @@ public class IOExecutor {
 			// save
 			output = outputStream.toString();
 			outputException = outputStream.getException();
+			outputEmpty = outputStream.isEmpty();
 			error = errorStream.toString();
 			errorException = errorStream.getException();
 
 			return exitCode;
 
 		} catch (final InterruptedException e) {
+			// the caller cancels the execution
+			process.destroyForcibly();
 			Thread.currentThread().interrupt();
 			throw new IOException(Messages.IOExecutor_Error_Interrupted, e);
 		}
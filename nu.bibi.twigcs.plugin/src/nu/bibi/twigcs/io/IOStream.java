@@ -11,6 +11,9 @@ package nu.bibi.twigcs.io;
 import java.io.ByteArrayOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.PushbackReader;
+import java.nio.charset.StandardCharsets;
 
 /**
  * Input/Output stream.
@@ -18,6 +21,12 @@ import java.io.InputStream;
  * The {@link #run()} method read all contents of the input stream. After the
  * run method is called, the contents is available in the {@link #toString()}
  * method.
+ * </p>
+ * <p>
+ * If a {@link IOConsumer consumer} is given, the contents is not buffered:
+ * the consumer reads it directly from the input stream and the
+ * {@link #toString()} method returns an empty string.
+ * </p>
  *
  * @author Laurent Muller
  * @version 1.0
@@ -55,11 +64,21 @@ public class IOStream implements Runnable {
 	 */
 	private final InputStream input;
 
+	/*
+	 * the contents consumer
+	 */
+	private final IOConsumer consumer;
+
 	/*
 	 * the output contents
 	 */
 	private byte[] output;
 
+	/*
+	 * the empty contents state
+	 */
+	private boolean empty = true;
+
 	/*
 	 * the I/O exception
 	 */
@@ -72,7 +91,21 @@ public class IOStream implements Runnable {
 	 *            the input stream to read from.
 	 */
 	public IOStream(final InputStream input) {
+		this(input, null);
+	}
+
+	/**
+	 * Creates a new instance of this class.
+	 *
+	 * @param input
+	 *            the input stream to read from.
+	 * @param consumer
+	 *            the consumer of the contents or <code>null</code> to buffer
+	 *            the contents.
+	 */
+	public IOStream(final InputStream input, final IOConsumer consumer) {
 		this.input = input;
+		this.consumer = consumer;
 	}
 
 	/**
@@ -84,17 +117,35 @@ public class IOStream implements Runnable {
 		return exception;
 	}
 
+	/**
+	 * Returns if the input stream has no contents.
+	 *
+	 * @return <code>true</code> if empty or if not yet started.
+	 */
+	public boolean isEmpty() {
+		return empty;
+	}
+
 	/**
 	 * The implementation of <code>IOStream</code> class read all the contents
 	 * of the input stream given as constructor parameter. The contents is
-	 * available in the {@link #toString()} method.
+	 * available in the {@link #toString()} method or is passed to the
+	 * consumer, if any.
 	 */
 	@Override
 	public void run() {
 		try {
-			output = readAll(input);
+			if (consumer != null) {
+				consume();
+			} else {
+				output = readAll(input);
+				empty = output.length == 0;
+			}
 		} catch (final IOException e) {
 			exception = e;
+		} catch (final RuntimeException e) {
+			// thrown by the consumer
+			exception = new IOException(e);
 		}
 	}
 
@@ -105,6 +156,32 @@ public class IOStream implements Runnable {
 	 */
 	@Override
 	public String toString() {
-		return output != null ? new String(output) : ""; //$NON-NLS-1$
+		return output != null ? new String(output, StandardCharsets.UTF_8) : ""; //$NON-NLS-1$
+	}
+
+	/**
+	 * Passes the contents to the consumer. The consumer is not invoked if the
+	 * input stream is empty. The remaining contents, if any, is discarded, so
+	 * the process is never blocked on a full pipe.
+	 *
+	 * @throws IOException
+	 *             if an I/O exception occurs or if the consumer fails.
+	 */
+	private void consume() throws IOException {
+		try {
+			final PushbackReader reader = new PushbackReader(
+					new InputStreamReader(input, StandardCharsets.UTF_8));
+			final int ch = reader.read();
+			if (ch != -1) {
+				empty = false;
+				reader.unread(ch);
+				consumer.accept(reader);
+			}
+		} finally {
+			final byte[] buffer = new byte[BUFFER_SIZE];
+			while (input.read(buffer) != -1) {
+				// discard
+			}
+		}
 	}
 }
\ No newline at end of file
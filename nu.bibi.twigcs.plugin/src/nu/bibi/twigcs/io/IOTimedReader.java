@@ -0,0 +1,79 @@
+/**
+ * This file is part of the twigcs-plugin package.
+ *
+ * (c) Laurent Muller <bibi@bibi.nu>
+ *
+ * For the full copyright and license information, please view the LICENSE
+ * file that was distributed with this source code.
+ */
+package nu.bibi.twigcs.io;
+
+import java.io.FilterReader;
+import java.io.IOException;
+import java.io.Reader;
+
+/**
+ * Reader accumulating the time spent in the read methods of the wrapped
+ * reader.
+ * <p>
+ * When reading the output of a process, this is mostly the time waiting for
+ * the process to write. Subtracting it from the time spent by a consumer gives
+ * the time really used to process the contents.
+ * </p>
+ *
+ * @author Laurent Muller
+ * @version 1.0
+ */
+public class IOTimedReader extends FilterReader {
+
+	/*
+	 * the time spent in the read methods, in nanoseconds
+	 */
+	private long readNanos;
+
+	/**
+	 * Creates a new instance.
+	 *
+	 * @param in
+	 *            the reader to wrap.
+	 */
+	public IOTimedReader(final Reader in) {
+		super(in);
+	}
+
+	/**
+	 * Gets the time spent in the read methods.
+	 *
+	 * @return the time, in nanoseconds.
+	 */
+	public long getReadNanos() {
+		return readNanos;
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public int read() throws IOException {
+		final long start = System.nanoTime();
+		try {
+			return super.read();
+		} finally {
+			readNanos += System.nanoTime() - start;
+		}
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public int read(final char[] cbuf, final int off, final int len)
+			throws IOException {
+		final long start = System.nanoTime();
+		try {
+			return super.read(cbuf, off, len);
+		} finally {
+			readNanos += System.nanoTime() - start;
+		}
+	}
+}
@@ -0,0 +1,335 @@
+/**
+ * This file is part of the twigcs-plugin package.
+ *
+ * (c) Laurent Muller <bibi@bibi.nu>
+ *
+ * For the full copyright and license information, please view the LICENSE
+ * file that was distributed with this source code.
+ */
+package nu.bibi.twigcs.io;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.InterruptedIOException;
+import java.io.OutputStreamWriter;
+import java.net.ProtocolException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+import org.eclipse.osgi.util.NLS;
+
+import nu.bibi.twigcs.internal.Messages;
+
+/**
+ * Class to communicate with a long-lived {@link Process}.
+ * <p>
+ * This is the resident counterpart of {@link IOExecutor}: the process is
+ * started once and each {@link #request(String)} writes a single line to its
+ * standard input and reads a single line from its standard output. The process
+ * is checked before each request and restarted if it has terminated.
+ * </p>
+ * <p>
+ * The requests and the responses are JSON objects. Each request is sent with
+ * an <code>"id"</code> member that the process must write first in the
+ * response, so a response not belonging to the request is detected. A process
+ * not answering in time, or answering with an other identifier, is stopped.
+ * </p>
+ *
+ * @author Laurent Muller
+ * @version 1.0
+ */
+public class IOWorker implements Closeable {
+
+	/**
+	 * The health check request.
+	 */
+	public static final String PING_REQUEST = "{\"ping\":true}"; //$NON-NLS-1$
+
+	/**
+	 * The health check response.
+	 */
+	public static final String PING_RESPONSE = "{\"pong\":true}"; //$NON-NLS-1$
+
+	/**
+	 * The default time, in milliseconds, to wait for a response.
+	 */
+	public static final long DEFAULT_TIMEOUT = 120_000;
+
+	/*
+	 * the start of the request and of the response identifier
+	 */
+	private static final String ID_PREFIX = "{\"id\":"; //$NON-NLS-1$
+
+	/*
+	 * the command
+	 */
+	private final List<String> command;
+
+	/*
+	 * the time, in milliseconds, to wait for a response
+	 */
+	private final long timeout;
+
+	/*
+	 * the identifier of the last request
+	 */
+	private long lastId;
+
+	/*
+	 * the running process
+	 */
+	private Process process;
+
+	/*
+	 * the process input
+	 */
+	private BufferedWriter writer;
+
+	/*
+	 * the process output
+	 */
+	private BufferedReader reader;
+
+	/*
+	 * the executor reading the responses
+	 */
+	private ExecutorService readerExecutor;
+
+	/**
+	 * Creates a new instance of this class with the default timeout. The
+	 * process is started on the first request.
+	 *
+	 * @param command
+	 *            the list containing the program and its arguments.
+	 */
+	public IOWorker(final List<String> command) {
+		this(command, DEFAULT_TIMEOUT);
+	}
+
+	/**
+	 * Creates a new instance of this class. The process is started on the
+	 * first request.
+	 *
+	 * @param command
+	 *            the list containing the program and its arguments.
+	 * @param timeout
+	 *            the time, in milliseconds, to wait for a response.
+	 */
+	public IOWorker(final List<String> command, final long timeout) {
+		this.command = new ArrayList<>(command);
+		this.timeout = timeout;
+	}
+
+	/**
+	 * Stops the process, if running.
+	 */
+	@Override
+	public synchronized void close() {
+		if (process != null) {
+			process.destroy();
+			readerExecutor.shutdownNow();
+			process = null;
+			writer = null;
+			reader = null;
+			readerExecutor = null;
+		}
+	}
+
+	/**
+	 * Gets the command used to start the process.
+	 *
+	 * @return the command.
+	 */
+	public List<String> getCommand() {
+		return command;
+	}
+
+	/**
+	 * Returns if the process is started and not yet terminated.
+	 *
+	 * @return <code>true</code> if alive.
+	 */
+	public synchronized boolean isAlive() {
+		return process != null && process.isAlive();
+	}
+
+	/**
+	 * Checks that the process answers to the health check request. The process
+	 * is started if not running.
+	 *
+	 * @return <code>true</code> if the process answers correctly.
+	 */
+	public synchronized boolean ping() {
+		try {
+			return PING_RESPONSE.equals(request(PING_REQUEST));
+		} catch (final IOException e) {
+			return false;
+		}
+	}
+
+	/**
+	 * Sends the given request and waits for the response. If the process has
+	 * terminated, it is restarted; if the exchange fails, the process is
+	 * restarted and the request is sent once again. A process not answering in
+	 * time or answering an other request is stopped and the request is not
+	 * sent again.
+	 *
+	 * @param request
+	 *            the JSON object to send. Must not contain line separators.
+	 * @return the response, without the request identifier.
+	 * @throws IOException
+	 *             if the process cannot be started, if the exchange fails
+	 *             twice, if the process does not answer in time or answers an
+	 *             other request.
+	 */
+	public synchronized String request(final String request)
+			throws IOException {
+		try {
+			return exchange(request);
+		} catch (final InterruptedIOException | ProtocolException e) {
+			throw e;
+		} catch (final IOException e) {
+			close();
+			return exchange(request);
+		}
+	}
+
+	/**
+	 * Sends the given request and reads the response.
+	 *
+	 * @param request
+	 *            the JSON object to send.
+	 * @return the response, without the request identifier.
+	 * @throws IOException
+	 *             if the process cannot be started or if the exchange fails.
+	 * @throws InterruptedIOException
+	 *             if the process does not answer in time or if the current
+	 *             thread is interrupted while waiting.
+	 * @throws ProtocolException
+	 *             if the response does not belong to the request.
+	 */
+	private String exchange(final String request) throws IOException {
+		if (!isAlive()) {
+			start();
+		}
+
+		// add the identifier
+		final String id = ID_PREFIX + ++lastId;
+		writer.write(id);
+		if (request.length() > 2) {
+			writer.write(',');
+		}
+		writer.write(request, 1, request.length() - 1);
+		writer.newLine();
+		writer.flush();
+
+		final String response = readResponse();
+		if (response == null) {
+			final int exitCode = process.isAlive() ? -1 : process.exitValue();
+			close();
+			throw new IOException(
+					NLS.bind(Messages.IOWorker_Error_Terminated, exitCode));
+		}
+
+		// check and remove the identifier
+		final int length = id.length();
+		if (!response.startsWith(id) || response.length() == length) {
+			close();
+			throw new ProtocolException(Messages.IOWorker_Error_Response);
+		}
+		switch (response.charAt(length)) {
+		case ',':
+			return '{' + response.substring(length + 1);
+		case '}':
+			return response.substring(length);
+		default:
+			close();
+			throw new ProtocolException(Messages.IOWorker_Error_Response);
+		}
+	}
+
+	/**
+	 * Reads a response line, waiting at most the timeout. The process is
+	 * forcibly stopped if it does not answer in time.
+	 *
+	 * @return the response or <code>null</code> if the end of the stream has
+	 *         been reached.
+	 * @throws IOException
+	 *             if an I/O error occurs.
+	 * @throws InterruptedIOException
+	 *             if the process does not answer in time or if the current
+	 *             thread is interrupted while waiting.
+	 */
+	private String readResponse() throws IOException {
+		final Future<String> future = readerExecutor.submit(reader::readLine);
+		try {
+			return future.get(timeout, TimeUnit.MILLISECONDS);
+		} catch (final TimeoutException e) {
+			process.destroyForcibly();
+			close();
+			throw new InterruptedIOException(
+					NLS.bind(Messages.IOWorker_Error_Timeout, timeout));
+		} catch (final InterruptedException e) {
+			// the caller cancels the request
+			process.destroyForcibly();
+			close();
+			Thread.currentThread().interrupt();
+			throw new InterruptedIOException(
+					Messages.IOExecutor_Error_Interrupted);
+		} catch (final ExecutionException e) {
+			final Throwable cause = e.getCause();
+			if (cause instanceof IOException) {
+				throw (IOException) cause;
+			}
+			throw new IOException(cause);
+		}
+	}
+
+	/**
+	 * Starts the process.
+	 *
+	 * @throws IOException
+	 *             if an I/O error occurs.
+	 */
+	private void start() throws IOException {
+		close();
+		final ProcessBuilder builder = new ProcessBuilder(command);
+		process = builder.start();
+		writer = new BufferedWriter(new OutputStreamWriter(
+				process.getOutputStream(), StandardCharsets.UTF_8));
+		reader = new BufferedReader(new InputStreamReader(
+				process.getInputStream(), StandardCharsets.UTF_8));
+		readerExecutor = Executors.newSingleThreadExecutor(runnable -> {
+			final Thread thread = new Thread(runnable,
+					"Twigcs Worker Output"); //$NON-NLS-1$
+			thread.setDaemon(true);
+			return thread;
+		});
+
+		// discard the error stream
+		final InputStream error = process.getErrorStream();
+		final Thread errorThread = new Thread(() -> {
+			final byte[] buffer = new byte[IOStream.BUFFER_SIZE];
+			try {
+				while (error.read(buffer) != -1) {
+					// discard
+				}
+			} catch (final IOException e) {
+				// process terminated
+			}
+		}, "Twigcs Worker Error"); //$NON-NLS-1$
+		errorThread.setDaemon(true);
+		errorThread.start();
+	}
+}
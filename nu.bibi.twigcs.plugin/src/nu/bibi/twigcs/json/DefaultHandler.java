@@ -33,6 +33,11 @@ public class DefaultHandler extends JsonHandler<JsonArray, JsonObject> {
 		value = bool ? Json.TRUE : Json.FALSE;
 	}
 
+	@Override
+	public void endLong(final long number) {
+		value = new JsonCompactNumber(number);
+	}
+
 	@Override
 	public void endNull() {
 		value = Json.NULL;
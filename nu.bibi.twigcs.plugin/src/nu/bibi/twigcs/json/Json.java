@@ -42,6 +42,11 @@ import java.io.Reader;
  * String[] names = ...
  * JsonArray array = Json.array(names);
  * </pre>
+ * <p>
+ * The <code>parse()</code> methods reuse a parser confined to the calling
+ * thread, so the input buffers and the cache of member names are not
+ * allocated for each call.
+ * </p>
  */
 public final class Json {
 
@@ -65,6 +70,11 @@ public final class Json {
 	 */
 	private static final String ARGUMENT_NULL = "The values argument is null."; //$NON-NLS-1$
 
+	/*
+	 * the handler, and its parser, available for the current thread
+	 */
+	private static final ThreadLocal<DefaultHandler> HANDLER = new ThreadLocal<>();
+
 	/**
 	 * Creates a new empty JsonArray. This is equivalent to creating a new
 	 * JsonArray using the constructor.
@@ -244,6 +254,30 @@ public final class Json {
 		return parse(new InputStreamReader(stream));
 	}
 
+	/**
+	 * Parses the given UTF-8 encoded bytes as JSON. The input must contain a
+	 * valid JSON value, optionally padded with whitespace.
+	 *
+	 * @param bytes
+	 *            the input bytes, must be valid JSON
+	 * @return a value that represents the parsed JSON
+	 * @throws JsonParseException
+	 *             if the <code>bytes</code> argument is <code>null</code> or if
+	 *             the input is not valid JSON
+	 */
+	public static JsonValue parse(final byte[] bytes) {
+		if (bytes == null) {
+			throw new JsonException("The bytes argument is null."); //$NON-NLS-1$
+		}
+		final DefaultHandler handler = acquireHandler();
+		try {
+			handler.parser.parse(bytes);
+			return handler.getValue();
+		} finally {
+			releaseHandler(handler);
+		}
+	}
+
 	/**
 	 * Reads the entire input from the given reader and parses it as JSON. The
 	 * input must contain a valid JSON value, optionally padded with whitespace.
@@ -266,9 +300,13 @@ public final class Json {
 		if (reader == null) {
 			throw new JsonException("The reader argument is null."); //$NON-NLS-1$
 		}
-		final DefaultHandler handler = new DefaultHandler();
-		new JsonParser<>(handler).parse(reader);
-		return handler.getValue();
+		final DefaultHandler handler = acquireHandler();
+		try {
+			handler.parser.parse(reader);
+			return handler.getValue();
+		} finally {
+			releaseHandler(handler);
+		}
 	}
 
 	/**
@@ -286,9 +324,13 @@ public final class Json {
 		if (string == null) {
 			throw new JsonException("The string argument is null."); //$NON-NLS-1$
 		}
-		final DefaultHandler handler = new DefaultHandler();
-		new JsonParser<>(handler).parse(string);
-		return handler.getValue();
+		final DefaultHandler handler = acquireHandler();
+		try {
+			handler.parser.parse(string);
+			return handler.getValue();
+		} finally {
+			releaseHandler(handler);
+		}
 	}
 
 	/**
@@ -321,7 +363,7 @@ public final class Json {
 			throw new JsonException(
 					"Infinite and NaN values are not permitted in JSON."); //$NON-NLS-1$
 		}
-		return new JsonNumber(cutOffPointZero(Double.toString(value)));
+		return new JsonCompactNumber(value);
 	}
 
 	/**
@@ -354,7 +396,7 @@ public final class Json {
 	 * @return a JSON value that represents the given value
 	 */
 	public static JsonValue value(final int value) {
-		return new JsonNumber(Integer.toString(value, 10));
+		return new JsonCompactNumber(value);
 	}
 
 	/**
@@ -366,7 +408,7 @@ public final class Json {
 	 * @return a JSON value that represents the given value
 	 */
 	public static JsonValue value(final long value) {
-		return new JsonNumber(Long.toString(value, 10));
+		return new JsonCompactNumber(value);
 	}
 
 	/**
@@ -380,13 +422,30 @@ public final class Json {
 		return string == null ? NULL : new JsonString(string);
 	}
 
-	private static String cutOffPointZero(final String string) {
+	static String cutOffPointZero(final String string) {
 		if (string.endsWith(".0")) { //$NON-NLS-1$
 			return string.substring(0, string.length() - 2);
 		}
 		return string;
 	}
 
+	private static DefaultHandler acquireHandler() {
+		final DefaultHandler handler = HANDLER.get();
+		if (handler == null) {
+			// first or nested call
+			final DefaultHandler newHandler = new DefaultHandler();
+			new JsonParser<>(newHandler);
+			return newHandler;
+		}
+		HANDLER.set(null);
+		return handler;
+	}
+
+	private static void releaseHandler(final DefaultHandler handler) {
+		handler.value = null;
+		HANDLER.set(handler);
+	}
+
 	private Json() {
 		throw new AssertionError("No Json instances is allowed."); //$NON-NLS-1$
 	}
@@ -0,0 +1,103 @@
+/**
+ * This file is part of the twigcs-plugin package.
+ *
+ * (c) Laurent Muller <bibi@bibi.nu>
+ *
+ * For the full copyright and license information, please view the LICENSE
+ * file that was distributed with this source code.
+ */
+package nu.bibi.twigcs.json;
+
+import java.io.IOException;
+
+/**
+ * A JSON number storing a <code>long</code> or a <code>double</code> value
+ * instead of its text. The conversions behave like the ones of a
+ * {@link JsonNumber} having the same text.
+ */
+/* package */
+@SuppressWarnings("serial") // use default serial UID
+class JsonCompactNumber extends JsonValue {
+
+	private final long bits;
+	private final boolean decimal;
+
+	JsonCompactNumber(final double value) {
+		bits = Double.doubleToRawLongBits(value);
+		decimal = true;
+	}
+
+	JsonCompactNumber(final long value) {
+		bits = value;
+		decimal = false;
+	}
+
+	@Override
+	public double asDouble() {
+		return decimal ? Double.longBitsToDouble(bits) : bits;
+	}
+
+	@Override
+	public float asFloat() {
+		return (float) asDouble();
+	}
+
+	@Override
+	public int asInt() {
+		if (decimal || bits < Integer.MIN_VALUE || bits > Integer.MAX_VALUE) {
+			return Integer.parseInt(toString(), 10);
+		}
+		return (int) bits;
+	}
+
+	@Override
+	public long asLong() {
+		if (decimal) {
+			return Long.parseLong(toString(), 10);
+		}
+		return bits;
+	}
+
+	@Override
+	public boolean equals(final Object object) {
+		if (this == object) {
+			return true;
+		}
+		if (object instanceof JsonCompactNumber) {
+			final JsonCompactNumber other = (JsonCompactNumber) object;
+			if (decimal == other.decimal) {
+				return bits == other.bits;
+			}
+			return toString().equals(other.toString());
+		}
+		if (object instanceof JsonNumber) {
+			return object.equals(this);
+		}
+		return false;
+	}
+
+	@Override
+	public int hashCode() {
+		return toString().hashCode();
+	}
+
+	@Override
+	public boolean isNumber() {
+		return true;
+	}
+
+	@Override
+	public String toString() {
+		if (decimal) {
+			return Json.cutOffPointZero(
+					Double.toString(Double.longBitsToDouble(bits)));
+		}
+		return Long.toString(bits);
+	}
+
+	@Override
+	protected void write(final JsonWriter writer) throws IOException {
+		writer.writeNumber(toString());
+	}
+
+}
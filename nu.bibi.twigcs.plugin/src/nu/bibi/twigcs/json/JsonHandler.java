@@ -36,6 +36,11 @@ package nu.bibi.twigcs.json;
  * object. They can be used to keep track the elements of a JSON array or
  * object.
  * </p>
+ * <p>
+ * Subclasses interested only in some values can call {@link #skipValue()} from
+ * {@link #startArrayValue(Object)} or {@link #startObjectValue(Object, String)}
+ * to skip the other values at a lower cost.
+ * </p>
  *
  * @param <A>
  *            The type of handlers used for JSON arrays
@@ -87,6 +92,41 @@ public abstract class JsonHandler<A, O> {
 		// no-operation
 	}
 
+	/**
+	 * Indicates the end of a number that is not a <code>long</code> in the
+	 * JSON input: a number with a fraction or an exponent, <code>-0</code> or
+	 * an integer out of the <code>long</code> range. This method will be
+	 * called after reading the last character of the number.
+	 * <p>
+	 * The default implementation calls {@link #endNumber(String)} with the
+	 * number as written in the input.
+	 * </p>
+	 *
+	 * @param value
+	 *            the parsed number value
+	 */
+	public void endDouble(final double value) {
+		endNumber(parser.getNumberText());
+	}
+
+	/**
+	 * Indicates the end of an integer number, without fraction and exponent,
+	 * in the JSON input. The value is computed while reading, so no string is
+	 * created. This method will be called after reading the last character of
+	 * the number.
+	 * <p>
+	 * The default implementation calls {@link #endNumber(String)} with the
+	 * decimal representation of the value, which is the number as written in
+	 * the input.
+	 * </p>
+	 *
+	 * @param value
+	 *            the parsed number value
+	 */
+	public void endLong(final long value) {
+		endNumber(Long.toString(value));
+	}
+
 	/**
 	 * Indicates the end of a <code>null</code> literal in the JSON input. This
 	 * method will be called after reading the last character of the literal.
@@ -97,7 +137,8 @@ public abstract class JsonHandler<A, O> {
 
 	/**
 	 * Indicates the end of a number in the JSON input. This method will be
-	 * called after reading the last character of the number.
+	 * called after reading the last character of the number, by the default
+	 * implementations of {@link #endLong(long)} and {@link #endDouble(double)}.
 	 *
 	 * @param string
 	 *            the parsed number string
@@ -295,4 +336,25 @@ public abstract class JsonHandler<A, O> {
 		}
 		return parser.getLocation();
 	}
+
+	/**
+	 * Skips the value about to be read. This method must be called from
+	 * {@link #startArrayValue(Object)} or
+	 * {@link #startObjectValue(Object, String)}. The value is then read
+	 * without capture and no further event is reported for it, including the
+	 * matching <code>endArrayValue</code> or <code>endObjectValue</code>.
+	 * <p>
+	 * Only the brackets, the braces and the quotes of a skipped value are
+	 * checked; its content is not validated.
+	 * </p>
+	 *
+	 * @throws JsonException
+	 *             if the <code>parser</code> is not set
+	 */
+	protected void skipValue() {
+		if (parser == null) {
+			throw new JsonException("The parser is not set."); //$NON-NLS-1$
+		}
+		parser.skipValue();
+	}
 }
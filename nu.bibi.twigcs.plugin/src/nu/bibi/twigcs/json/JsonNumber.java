@@ -51,6 +51,9 @@ class JsonNumber extends JsonValue {
 		if (object == null) {
 			return false;
 		}
+		if (object instanceof JsonCompactNumber) {
+			return string.equals(object.toString());
+		}
 		if (getClass() != object.getClass()) {
 			return false;
 		}
@@ -10,8 +10,10 @@ package nu.bibi.twigcs.json;
 
 import java.io.IOException;
 import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.util.AbstractList;
 import java.util.ArrayList;
-import java.util.Collections;
+import java.util.Arrays;
 import java.util.Iterator;
 import java.util.List;
 import java.util.Objects;
@@ -55,7 +57,9 @@ import nu.bibi.twigcs.json.JsonObject.Member;
  * access a <code>JsonObject</code> instance concurrently, while at least one of
  * these threads modifies the contents of this object, access to the instance
  * must be synchronized externally. Failure to do so may lead to an inconsistent
- * state.
+ * state. After a member is removed, the next access to the whole object
+ * (iteration, names, equality, etc.) compacts the members and counts as a
+ * modification.
  * </p>
  * <p>
  * This class is <strong>not supposed to be extended</strong> by clients.
@@ -170,6 +174,151 @@ public class JsonObject extends JsonValue implements Iterable<Member> {
 
 	}
 
+	/**
+	 * Resizable open addressing index of the member names, used for large
+	 * objects. The slots contain the index of the last member having a name,
+	 * or -1 if empty, and each member is chained to the previous member having
+	 * the same name. Collisions are resolved by linear probing and removed
+	 * slots are filled by shifting back the following slots, so lookups never
+	 * fall back to a linear scan. Removing the last member of a name restores
+	 * the previous one or clears the slot, without renumbering the other
+	 * members: the removed members are left as tombstones (<code>null</code>
+	 * names) until the object is compacted.
+	 */
+	private static class OpenHashIndex {
+
+		private static final int EMPTY = -1;
+
+		private int[] slots;
+		private int[] previous;
+		private int count;
+
+		private OpenHashIndex(final List<String> names) {
+			int capacity = MIN_CAPACITY;
+			while (capacity < names.size() * 2) {
+				capacity <<= 1;
+			}
+			slots = createSlots(capacity);
+			previous = new int[capacity];
+			final int size = names.size();
+			for (int i = 0; i < size; i++) {
+				add(names, names.get(i), i);
+			}
+		}
+
+		private static int[] createSlots(final int capacity) {
+			final int[] slots = new int[capacity];
+			Arrays.fill(slots, EMPTY);
+			return slots;
+		}
+
+		private static int hash(final String name) {
+			final int h = name.hashCode();
+			return h ^ h >>> 16;
+		}
+
+		private void add(final List<String> names, final String name,
+				final int index) {
+			if ((count + 1) * 2 > slots.length) {
+				resize(names);
+			}
+			if (index >= previous.length) {
+				previous = Arrays.copyOf(previous, previous.length * 2);
+			}
+			final int mask = slots.length - 1;
+			int slot = hash(name) & mask;
+			while (slots[slot] != EMPTY) {
+				if (name.equals(names.get(slots[slot]))) {
+					// duplicate name, the last member wins
+					previous[index] = slots[slot];
+					slots[slot] = index;
+					return;
+				}
+				slot = slot + 1 & mask;
+			}
+			previous[index] = EMPTY;
+			slots[slot] = index;
+			count++;
+		}
+
+		private int find(final List<String> names, final String name) {
+			final int mask = slots.length - 1;
+			int slot = hash(name) & mask;
+			while (slots[slot] != EMPTY) {
+				if (name.equals(names.get(slots[slot]))) {
+					return slot;
+				}
+				slot = slot + 1 & mask;
+			}
+			return EMPTY;
+		}
+
+		private int get(final List<String> names, final String name) {
+			final int slot = find(names, name);
+			return slot == EMPTY ? EMPTY : slots[slot];
+		}
+
+		/*
+		 * removes the last member having the name and returns its index, must
+		 * be called before the member is replaced by a tombstone
+		 */
+		private int remove(final List<String> names, final String name) {
+			final int slot = find(names, name);
+			if (slot == EMPTY) {
+				return EMPTY;
+			}
+			final int index = slots[slot];
+
+			// a previous member with the same name becomes visible
+			if (previous[index] != EMPTY) {
+				slots[slot] = previous[index];
+				return index;
+			}
+
+			// shift back the following slots of the same cluster
+			final int mask = slots.length - 1;
+			int hole = slot;
+			int next = hole + 1 & mask;
+			while (slots[next] != EMPTY) {
+				final int home = hash(names.get(slots[next])) & mask;
+				if ((next - home & mask) >= (next - hole & mask)) {
+					slots[hole] = slots[next];
+					hole = next;
+				}
+				next = next + 1 & mask;
+			}
+			slots[hole] = EMPTY;
+			count--;
+			return index;
+		}
+
+		private void resize(final List<String> names) {
+			final int[] oldSlots = slots;
+			slots = createSlots(oldSlots.length * 2);
+			final int mask = slots.length - 1;
+			for (final int index : oldSlots) {
+				if (index != EMPTY) {
+					// the names are distinct, the chains are kept
+					int slot = hash(names.get(index)) & mask;
+					while (slots[slot] != EMPTY) {
+						slot = slot + 1 & mask;
+					}
+					slots[slot] = index;
+				}
+			}
+		}
+	}
+
+	/*
+	 * the number of members above which the open addressing index is used
+	 */
+	private static final int LARGE_SIZE = 32;
+
+	/*
+	 * the initial capacity of the open addressing index (power of two)
+	 */
+	private static final int MIN_CAPACITY = 128;
+
 	/*
 	 * the name null message
 	 */
@@ -186,10 +335,20 @@ public class JsonObject extends JsonValue implements Iterable<Member> {
 	private final List<JsonValue> values;
 
 	/*
-	 * the hash table
+	 * the hash table used for small objects
 	 */
 	private transient HashIndexTable table;
 
+	/*
+	 * the hash index used for large objects, replacing the hash table
+	 */
+	private transient OpenHashIndex largeTable;
+
+	/*
+	 * the number of removed members left as tombstones in the large objects
+	 */
+	private transient int removed;
+
 	/**
 	 * Creates a new empty JsonObject.
 	 */
@@ -213,6 +372,7 @@ public class JsonObject extends JsonValue implements Iterable<Member> {
 		if (object == null) {
 			throw new JsonException("The object argument is null."); //$NON-NLS-1$
 		}
+		object.compact();
 		names = new ArrayList<>(object.names);
 		values = new ArrayList<>(object.values);
 		table = new HashIndexTable();
@@ -354,7 +514,15 @@ public class JsonObject extends JsonValue implements Iterable<Member> {
 		if (value == null) {
 			throw new JsonException("The value argument is null."); //$NON-NLS-1$
 		}
-		table.add(name, names.size());
+		if (largeTable == null && names.size() >= LARGE_SIZE) {
+			largeTable = new OpenHashIndex(names);
+			table = null;
+		}
+		if (largeTable != null) {
+			largeTable.add(names, name, names.size());
+		} else {
+			table.add(name, names.size());
+		}
 		names.add(name);
 		values.add(value);
 		return this;
@@ -427,7 +595,7 @@ public class JsonObject extends JsonValue implements Iterable<Member> {
 	 * @return whether or not the member is present
 	 */
 	public boolean contains(final String name) {
-		return names.contains(name);
+		return name != null && indexOf(name) != -1;
 	}
 
 	@Override
@@ -442,6 +610,8 @@ public class JsonObject extends JsonValue implements Iterable<Member> {
 			return false;
 		}
 		final JsonObject other = (JsonObject) obj;
+		compact();
+		other.compact();
 		return names.equals(other.names) && values.equals(other.values);
 	}
 
@@ -605,6 +775,7 @@ public class JsonObject extends JsonValue implements Iterable<Member> {
 
 	@Override
 	public int hashCode() {
+		compact();
 		return Objects.hash(names, values);
 	}
 
@@ -614,7 +785,7 @@ public class JsonObject extends JsonValue implements Iterable<Member> {
 	 * @return <code>true</code> if this object contains no members
 	 */
 	public boolean isEmpty() {
-		return names.isEmpty();
+		return size() == 0;
 	}
 
 	@Override
@@ -632,6 +803,7 @@ public class JsonObject extends JsonValue implements Iterable<Member> {
 	 */
 	@Override
 	public Iterator<Member> iterator() {
+		compact();
 		final Iterator<String> namesIterator = names.iterator();
 		final Iterator<JsonValue> valuesIterator = values.iterator();
 		return new Iterator<JsonObject.Member>() {
@@ -687,7 +859,19 @@ public class JsonObject extends JsonValue implements Iterable<Member> {
 	 * @return a list of the names in this object
 	 */
 	public List<String> names() {
-		return Collections.unmodifiableList(names);
+		return new AbstractList<String>() {
+
+			@Override
+			public String get(final int index) {
+				compact();
+				return names.get(index);
+			}
+
+			@Override
+			public int size() {
+				return JsonObject.this.size();
+			}
+		};
 	}
 
 	/**
@@ -706,6 +890,18 @@ public class JsonObject extends JsonValue implements Iterable<Member> {
 		if (name == null) {
 			throw new JsonException(ARGUMENT_NULL);
 		}
+		if (largeTable != null) {
+			final int index = largeTable.remove(names, name);
+			if (index != -1) {
+				// tombstone, compacted when the whole object is accessed
+				names.set(index, null);
+				values.set(index, null);
+				if (++removed > names.size() / 2) {
+					compact();
+				}
+			}
+			return this;
+		}
 		final int index = indexOf(name);
 		if (index != -1) {
 			table.remove(index);
@@ -908,7 +1104,7 @@ public class JsonObject extends JsonValue implements Iterable<Member> {
 	 * @return the number of members in this object
 	 */
 	public int size() {
-		return names.size();
+		return names.size() - removed;
 	}
 
 	@Override
@@ -929,7 +1125,34 @@ public class JsonObject extends JsonValue implements Iterable<Member> {
 		writer.writeObjectClose();
 	}
 
+	/**
+	 * Removes the tombstones left by the removed members of a large object and
+	 * rebuilds its index.
+	 */
+	private void compact() {
+		if (removed == 0) {
+			return;
+		}
+		final int count = names.size();
+		int size = 0;
+		for (int i = 0; i < count; i++) {
+			final String name = names.get(i);
+			if (name != null) {
+				names.set(size, name);
+				values.set(size, values.get(i));
+				size++;
+			}
+		}
+		names.subList(size, count).clear();
+		values.subList(size, count).clear();
+		removed = 0;
+		largeTable = new OpenHashIndex(names);
+	}
+
 	private int indexOf(final String name) {
+		if (largeTable != null) {
+			return largeTable.get(names, name);
+		}
 		final int index = table.get(name);
 		if (index != -1 && name.equals(names.get(index))) {
 			return index;
@@ -944,8 +1167,19 @@ public class JsonObject extends JsonValue implements Iterable<Member> {
 		updateHashIndex();
 	}
 
+	private void writeObject(final ObjectOutputStream outputStream)
+			throws IOException {
+		compact();
+		outputStream.defaultWriteObject();
+	}
+
 	private void updateHashIndex() {
 		final int size = names.size();
+		if (size > LARGE_SIZE) {
+			largeTable = new OpenHashIndex(names);
+			table = null;
+			return;
+		}
 		for (int i = 0; i < size; i++) {
 			table.add(names.get(i), i);
 		}
@@ -10,11 +10,29 @@ package nu.bibi.twigcs.json;
 
 import java.io.IOException;
 import java.io.Reader;
-import java.io.StringReader;
+import java.nio.ByteBuffer;
 
 /**
  * A streaming parser for JSON text. The parser reports all events to a given
  * handler.
+ * <p>
+ * The input is either read from a {@link Reader} or from UTF-8 encoded bytes.
+ * The bytes are parsed in place, without decoding the whole input to
+ * characters: only the strings and the numbers given to the handler are
+ * decoded.
+ * </p>
+ * <p>
+ * The characters are read by a tokenizer, shared with the {@link JsonReader}.
+ * </p>
+ * <p>
+ * A handler can skip the value of an array element or of an object member; the
+ * value is then read without capture and without event.
+ * </p>
+ * <p>
+ * A parser can be reused to parse several inputs with the same handler; the
+ * buffers and the cache of member names are then kept between the calls. A
+ * parser is not thread-safe.
+ * </p>
  *
  * @param <A>
  *            The type of handlers used for JSON arrays
@@ -23,27 +41,12 @@ import java.io.StringReader;
  */
 public class JsonParser<A, O> {
 
-	private static final int MAX_NESTING_LEVEL = 1000;
-	private static final int MIN_BUFFER_SIZE = 10;
-	private static final int DEFAULT_BUFFER_SIZE = 1024;
+	static final int MAX_NESTING_LEVEL = 1000;
 
 	private final JsonHandler<A, O> handler;
-	private Reader reader;
-	private char[] buffer;
-	private int bufferOffset;
-	private int index;
-	private int fill;
-	private int line;
-	private int lineOffset;
-	private int current;
-	private StringBuilder captureBuffer;
-	private int captureStart;
+	private final JsonTokenizer tokenizer = new JsonTokenizer();
 	private int nestingLevel;
-
-	/*
-	 * | bufferOffset v [a|b|c|d|e|f|g|h|i|j|k|l|m|n|o|p|q|r|s|t] < input
-	 * [l|m|n|o|p|q|r|s|t|?|?] < buffer ^ ^ | index fill
-	 */
+	private boolean skipping;
 
 	/**
 	 * Creates a new JsonParser with the given handler. The parser will report
@@ -62,10 +65,99 @@ public class JsonParser<A, O> {
 		this.handler.setParser(this);
 	}
 
+	/**
+	 * Gets the current location of the parser. For UTF-8 input, the offset and
+	 * the column are computed in characters from the beginning of the input,
+	 * so this method should not be called for every event.
+	 *
+	 * @return the location.
+	 */
 	public Location getLocation() {
-		final int offset = bufferOffset + index - 1;
-		final int column = offset - lineOffset + 1;
-		return new Location(offset, line, column);
+		return tokenizer.getLocation();
+	}
+
+	/**
+	 * Parses the given UTF-8 encoded bytes as JSON. The input must contain a
+	 * valid JSON value, optionally padded with whitespace.
+	 *
+	 * @param bytes
+	 *            the input bytes
+	 * @throws JsonException
+	 *             if the <code>bytes</code> argument is <code>null</code>
+	 * @throws JsonParseException
+	 *             if the input is not a valid JSON or if an unexpected
+	 *             character is found
+	 */
+	public void parse(final byte[] bytes) {
+		if (bytes == null) {
+			throw new JsonException("The bytes argument is null."); //$NON-NLS-1$
+		}
+		parse(bytes, 0, bytes.length);
+	}
+
+	/**
+	 * Parses the given range of UTF-8 encoded bytes as JSON. The input must
+	 * contain a valid JSON value, optionally padded with whitespace.
+	 *
+	 * @param bytes
+	 *            the input bytes
+	 * @param offset
+	 *            the index of the first byte to parse
+	 * @param length
+	 *            the number of bytes to parse
+	 * @throws JsonException
+	 *             if the <code>bytes</code> argument is <code>null</code> or
+	 *             if the range is out of the array bounds
+	 * @throws JsonParseException
+	 *             if the input is not a valid JSON or if an unexpected
+	 *             character is found
+	 */
+	public void parse(final byte[] bytes, final int offset, final int length) {
+		if (bytes == null) {
+			throw new JsonException("The bytes argument is null."); //$NON-NLS-1$
+		}
+		if (offset < 0 || length < 0 || offset > bytes.length - length) {
+			throw new JsonException("The range is out of bounds."); //$NON-NLS-1$
+		}
+		tokenizer.reset(bytes, offset, length);
+		try {
+			parseValue();
+		} catch (final IOException exception) {
+			// bytes are not read from a stream
+		} finally {
+			tokenizer.release();
+		}
+	}
+
+	/**
+	 * Parses the remaining UTF-8 encoded bytes of the given buffer as JSON. The
+	 * input must contain a valid JSON value, optionally padded with whitespace.
+	 * <p>
+	 * The content of a buffer backed by an accessible array is parsed in place;
+	 * the content of other buffers is copied first. The position of the buffer
+	 * is not modified.
+	 * </p>
+	 *
+	 * @param buffer
+	 *            the input buffer
+	 * @throws JsonException
+	 *             if the <code>buffer</code> argument is <code>null</code>
+	 * @throws JsonParseException
+	 *             if the input is not a valid JSON or if an unexpected
+	 *             character is found
+	 */
+	public void parse(final ByteBuffer buffer) {
+		if (buffer == null) {
+			throw new JsonException("The buffer argument is null."); //$NON-NLS-1$
+		}
+		if (buffer.hasArray()) {
+			parse(buffer.array(), buffer.arrayOffset() + buffer.position(),
+					buffer.remaining());
+		} else {
+			final byte[] copy = new byte[buffer.remaining()];
+			buffer.duplicate().get(copy);
+			parse(copy, 0, copy.length);
+		}
 	}
 
 	/**
@@ -88,7 +180,7 @@ public class JsonParser<A, O> {
 	 *             character is found
 	 */
 	public void parse(final Reader reader) throws IOException {
-		parse(reader, DEFAULT_BUFFER_SIZE);
+		parse(reader, JsonTokenizer.DEFAULT_BUFFER_SIZE);
 	}
 
 	/**
@@ -122,21 +214,11 @@ public class JsonParser<A, O> {
 			throw new JsonException(
 					"The bufferSize argument is zero or negative."); //$NON-NLS-1$
 		}
-		this.reader = reader;
-		buffer = new char[bufferSize];
-		bufferOffset = 0;
-		index = 0;
-		fill = 0;
-		line = 1;
-		lineOffset = 0;
-		current = 0;
-		captureStart = -1;
-		read();
-		skipWhiteSpace();
-		readValue();
-		skipWhiteSpace();
-		if (!isEndOfText()) {
-			throw new JsonException("An unexpected character was found."); //$NON-NLS-1$
+		tokenizer.reset(reader, bufferSize);
+		try {
+			parseValue();
+		} finally {
+			tokenizer.release();
 		}
 	}
 
@@ -156,321 +238,150 @@ public class JsonParser<A, O> {
 		if (string == null) {
 			throw new JsonException("The string argument is null."); //$NON-NLS-1$
 		}
-		final int bufferSize = Math.max(MIN_BUFFER_SIZE,
-				Math.min(DEFAULT_BUFFER_SIZE, string.length()));
+		tokenizer.reset(string);
 		try {
-			parse(new StringReader(string), bufferSize);
+			parseValue();
 		} catch (final IOException exception) {
 			// StringReader does not throw IOException
+		} finally {
+			tokenizer.release();
 		}
 	}
 
-	private String endCapture() {
-		final int start = captureStart;
-		final int end = index - 1;
-		captureStart = -1;
-		if (captureBuffer.length() > 0) {
-			captureBuffer.append(buffer, start, end - start);
-			final String captured = captureBuffer.toString();
-			captureBuffer.setLength(0);
-			return captured;
-		}
-		return new String(buffer, start, end - start);
-	}
-
-	private JsonParseException error(final String message) {
-		return new JsonParseException(message, getLocation());
-	}
-
-	private JsonParseException expected(final String expected) {
-		if (isEndOfText()) {
-			return error("Unexpected end of input."); //$NON-NLS-1$
-		}
-		return error("Expected " + expected + "."); //$NON-NLS-1$ //$NON-NLS-2$
-	}
-
-	private JsonParseException expectedDigit() {
-		return expected("digit"); //$NON-NLS-1$
-	}
-
-	private boolean isDigit() {
-		return current >= '0' && current <= '9';
-	}
-
-	private boolean isEndOfText() {
-		return current == -1;
-	}
-
-	private boolean isHexDigit() {
-		return current >= '0' && current <= '9'
-				|| current >= 'a' && current <= 'f'
-				|| current >= 'A' && current <= 'F';
-	}
-
-	private boolean isWhiteSpace() {
-		return current == ' ' || current == '\t' || current == '\n'
-				|| current == '\r';
+	/**
+	 * Gets the text of the last number that is not a <code>long</code>.
+	 *
+	 * @return the number text.
+	 * @see JsonHandler#endDouble(double)
+	 */
+	String getNumberText() {
+		return tokenizer.getNumberText();
 	}
 
-	private void pauseCapture() {
-		final int end = current == -1 ? index : index - 1;
-		captureBuffer.append(buffer, captureStart, end - captureStart);
-		captureStart = -1;
+	/**
+	 * Requests to skip the value whose start has just been reported.
+	 *
+	 * @see JsonHandler#skipValue()
+	 */
+	void skipValue() {
+		skipping = true;
 	}
 
-	private void read() throws IOException {
-		if (index == fill) {
-			if (captureStart != -1) {
-				captureBuffer.append(buffer, captureStart, fill - captureStart);
-				captureStart = 0;
-			}
-			bufferOffset += fill;
-			fill = reader.read(buffer, 0, buffer.length);
-			index = 0;
-			if (fill == -1) {
-				current = -1;
-				index++;
-				return;
-			}
-		}
-		if (current == '\n') {
-			line++;
-			lineOffset = bufferOffset + index;
+	private void parseValue() throws IOException {
+		nestingLevel = 0;
+		tokenizer.start();
+		tokenizer.skipWhiteSpace();
+		readValue();
+		tokenizer.skipWhiteSpace();
+		if (!tokenizer.isEndOfText()) {
+			throw new JsonException("An unexpected character was found."); //$NON-NLS-1$
 		}
-		current = buffer[index++];
 	}
 
 	private void readArray() throws IOException {
 		final A array = handler.startArray();
-		read();
+		tokenizer.read();
 		if (++nestingLevel > MAX_NESTING_LEVEL) {
-			throw error("Nesting too deep"); //$NON-NLS-1$
+			throw tokenizer.error("Nesting too deep"); //$NON-NLS-1$
 		}
-		skipWhiteSpace();
-		if (readChar(']')) {
+		tokenizer.skipWhiteSpace();
+		if (tokenizer.readChar(']')) {
 			nestingLevel--;
 			handler.endArray(array);
 			return;
 		}
 		do {
-			skipWhiteSpace();
+			tokenizer.skipWhiteSpace();
+			skipping = false;
 			handler.startArrayValue(array);
-			readValue();
-			handler.endArrayValue(array);
-			skipWhiteSpace();
-		} while (readChar(','));
-		if (!readChar(']')) {
-			throw expected("',' or ']'"); //$NON-NLS-1$
+			if (skipping) {
+				tokenizer.skipValue();
+			} else {
+				readValue();
+				handler.endArrayValue(array);
+			}
+			tokenizer.skipWhiteSpace();
+		} while (tokenizer.readChar(','));
+		if (!tokenizer.readChar(']')) {
+			throw tokenizer.expected("',' or ']'"); //$NON-NLS-1$
 		}
 		nestingLevel--;
 		handler.endArray(array);
 	}
 
-	private boolean readChar(final char ch) throws IOException {
-		if (current != ch) {
-			return false;
-		}
-		read();
-		return true;
-	}
-
-	private boolean readDigit() throws IOException {
-		if (!isDigit()) {
-			return false;
-		}
-		read();
-		return true;
-	}
-
-	private void readEscape() throws IOException {
-		read();
-		switch (current) {
-		case '"':
-		case '/':
-		case '\\':
-			captureBuffer.append((char) current);
-			break;
-		case 'b':
-			captureBuffer.append('\b');
-			break;
-		case 'f':
-			captureBuffer.append('\f');
-			break;
-		case 'n':
-			captureBuffer.append('\n');
-			break;
-		case 'r':
-			captureBuffer.append('\r');
-			break;
-		case 't':
-			captureBuffer.append('\t');
-			break;
-		case 'u':
-			final char[] hexChars = new char[4];
-			for (int i = 0; i < 4; i++) {
-				read();
-				if (!isHexDigit()) {
-					throw expected("hexadecimal digit"); //$NON-NLS-1$
-				}
-				hexChars[i] = (char) current;
-			}
-			captureBuffer
-					.append((char) Integer.parseInt(new String(hexChars), 16));
-			break;
-		default:
-			throw expected("valid escape sequence"); //$NON-NLS-1$
-		}
-		read();
-	}
-
-	private boolean readExponent() throws IOException {
-		if (!readChar('e') && !readChar('E')) {
-			return false;
-		}
-		if (!readChar('+')) {
-			readChar('-');
-		}
-		if (!readDigit()) {
-			throw expectedDigit();
-		}
-		while (readDigit()) {
-			// NO OP
-		}
-		return true;
-	}
-
 	private void readFalse() throws IOException {
 		handler.startBoolean();
-		read();
-		readRequiredChar('a');
-		readRequiredChar('l');
-		readRequiredChar('s');
-		readRequiredChar('e');
+		tokenizer.readLiteral("false"); //$NON-NLS-1$
 		handler.endBoolean(false);
 	}
 
-	private boolean readFraction() throws IOException {
-		if (!readChar('.')) {
-			return false;
-		}
-		if (!readDigit()) {
-			throw expectedDigit();
-		}
-		while (readDigit()) {
-			// NO OP
-		}
-		return true;
-	}
-
-	private String readName() throws IOException {
-		if (current != '"') {
-			throw expected("name"); //$NON-NLS-1$
-		}
-		return readStringInternal();
-	}
-
 	private void readNull() throws IOException {
 		handler.startNull();
-		read();
-		readRequiredChar('u');
-		readRequiredChar('l');
-		readRequiredChar('l');
+		tokenizer.readLiteral("null"); //$NON-NLS-1$
 		handler.endNull();
 	}
 
 	private void readNumber() throws IOException {
 		handler.startNumber();
-		startCapture();
-		readChar('-');
-		final int firstDigit = current;
-		if (!readDigit()) {
-			throw expectedDigit();
-		}
-		if (firstDigit != '0') {
-			while (readDigit()) {
-				// NO OP
-			}
+		if (tokenizer.readNumber()) {
+			handler.endLong(tokenizer.getLong());
+		} else {
+			handler.endDouble(tokenizer.getDouble());
 		}
-		readFraction();
-		readExponent();
-		handler.endNumber(endCapture());
 	}
 
 	private void readObject() throws IOException {
 		final O object = handler.startObject();
-		read();
+		tokenizer.read();
 		if (++nestingLevel > MAX_NESTING_LEVEL) {
-			throw error("Nesting too deep"); //$NON-NLS-1$
+			throw tokenizer.error("Nesting too deep"); //$NON-NLS-1$
 		}
-		skipWhiteSpace();
-		if (readChar('}')) {
+		tokenizer.skipWhiteSpace();
+		if (tokenizer.readChar('}')) {
 			nestingLevel--;
 			handler.endObject(object);
 			return;
 		}
 		do {
-			skipWhiteSpace();
+			tokenizer.skipWhiteSpace();
 			handler.startObjectName(object);
-			final String name = readName();
+			final String name = tokenizer.readName();
 			handler.endObjectName(object, name);
-			skipWhiteSpace();
-			if (!readChar(':')) {
-				throw expected("':'"); //$NON-NLS-1$
+			tokenizer.skipWhiteSpace();
+			if (!tokenizer.readChar(':')) {
+				throw tokenizer.expected("':'"); //$NON-NLS-1$
 			}
-			skipWhiteSpace();
+			tokenizer.skipWhiteSpace();
+			skipping = false;
 			handler.startObjectValue(object, name);
-			readValue();
-			handler.endObjectValue(object, name);
-			skipWhiteSpace();
-		} while (readChar(','));
-		if (!readChar('}')) {
-			throw expected("',' or '}'"); //$NON-NLS-1$
+			if (skipping) {
+				tokenizer.skipValue();
+			} else {
+				readValue();
+				handler.endObjectValue(object, name);
+			}
+			tokenizer.skipWhiteSpace();
+		} while (tokenizer.readChar(','));
+		if (!tokenizer.readChar('}')) {
+			throw tokenizer.expected("',' or '}'"); //$NON-NLS-1$
 		}
 		nestingLevel--;
 		handler.endObject(object);
 	}
 
-	private void readRequiredChar(final char ch) throws IOException {
-		if (!readChar(ch)) {
-			throw expected("'" + ch + "'"); //$NON-NLS-1$ //$NON-NLS-2$
-		}
-	}
-
 	private void readString() throws IOException {
 		handler.startString();
-		handler.endString(readStringInternal());
-	}
-
-	private String readStringInternal() throws IOException {
-		read();
-		startCapture();
-		while (current != '"') {
-			if (current == '\\') {
-				pauseCapture();
-				readEscape();
-				startCapture();
-			} else if (current < 0x20) {
-				throw expected("valid string character"); //$NON-NLS-1$
-			} else {
-				read();
-			}
-		}
-		final String string = endCapture();
-		read();
-		return string;
+		handler.endString(tokenizer.readString());
 	}
 
 	private void readTrue() throws IOException {
 		handler.startBoolean();
-		read();
-		readRequiredChar('r');
-		readRequiredChar('u');
-		readRequiredChar('e');
+		tokenizer.readLiteral("true"); //$NON-NLS-1$
 		handler.endBoolean(true);
 	}
 
 	private void readValue() throws IOException {
-		switch (current) {
+		switch (tokenizer.current()) {
 		case 'n':
 			readNull();
 			break;
@@ -503,21 +414,8 @@ public class JsonParser<A, O> {
 			readNumber();
 			break;
 		default:
-			throw expected("value"); //$NON-NLS-1$
-		}
-	}
-
-	private void skipWhiteSpace() throws IOException {
-		while (isWhiteSpace()) {
-			read();
-		}
-	}
-
-	private void startCapture() {
-		if (captureBuffer == null) {
-			captureBuffer = new StringBuilder();
+			throw tokenizer.expected("value"); //$NON-NLS-1$
 		}
-		captureStart = index - 1;
 	}
 
 }
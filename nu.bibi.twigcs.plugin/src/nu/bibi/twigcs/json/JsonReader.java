@@ -0,0 +1,523 @@
+/**
+ * This file is part of the twigcs-plugin package.
+ *
+ * (c) Laurent Muller <bibi@bibi.nu>
+ *
+ * For the full copyright and license information, please view the LICENSE
+ * file that was distributed with this source code.
+ */
+package nu.bibi.twigcs.json;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.Reader;
+import java.util.Arrays;
+
+/**
+ * A pull reader for JSON text. Unlike the {@link JsonParser}, the caller asks
+ * for the next token, so the fields can be read in order without a handler
+ * and without building a JSON value. Example:
+ *
+ * <pre>
+ * reader.beginObject();
+ * while (reader.hasNext()) {
+ *     switch (reader.nextName()) {
+ *     case "failures":
+ *         failures = reader.nextInt();
+ *         break;
+ *     default:
+ *         reader.skipValue();
+ *         break;
+ *     }
+ * }
+ * reader.endObject();
+ * </pre>
+ * <p>
+ * The characters are read by the same tokenizer as the {@link JsonParser}, so
+ * the same input is accepted and the same errors are reported. The memory used
+ * is bounded by the nesting level of the input, not by its size.
+ * </p>
+ *
+ * @see JsonToken
+ */
+public class JsonReader implements Closeable {
+
+	private static final int EMPTY_DOCUMENT = 0;
+	private static final int NONEMPTY_DOCUMENT = 1;
+	private static final int EMPTY_ARRAY = 2;
+	private static final int NONEMPTY_ARRAY = 3;
+	private static final int EMPTY_OBJECT = 4;
+	private static final int DANGLING_NAME = 5;
+	private static final int NONEMPTY_OBJECT = 6;
+	private static final int CLOSED = 7;
+
+	private final JsonTokenizer tokenizer = new JsonTokenizer();
+	private final Reader reader;
+	private int[] stack = new int[32];
+	private int stackSize;
+	private JsonToken peeked;
+
+	/**
+	 * Creates a new reader for the given UTF-8 encoded bytes. The bytes are
+	 * read in place.
+	 *
+	 * @param bytes
+	 *            the input bytes
+	 * @throws JsonException
+	 *             if the <code>bytes</code> argument is <code>null</code>
+	 */
+	public JsonReader(final byte[] bytes) {
+		this(bytes, 0, bytes == null ? 0 : bytes.length);
+	}
+
+	/**
+	 * Creates a new reader for the given range of UTF-8 encoded bytes. The
+	 * bytes are read in place.
+	 *
+	 * @param bytes
+	 *            the input bytes
+	 * @param offset
+	 *            the index of the first byte to read
+	 * @param length
+	 *            the number of bytes to read
+	 * @throws JsonException
+	 *             if the <code>bytes</code> argument is <code>null</code> or
+	 *             if the range is out of the array bounds
+	 */
+	public JsonReader(final byte[] bytes, final int offset, final int length) {
+		if (bytes == null) {
+			throw new JsonException("The bytes argument is null."); //$NON-NLS-1$
+		}
+		if (offset < 0 || length < 0 || offset > bytes.length - length) {
+			throw new JsonException("The range is out of bounds."); //$NON-NLS-1$
+		}
+		reader = null;
+		tokenizer.reset(bytes, offset, length);
+		push(EMPTY_DOCUMENT);
+	}
+
+	/**
+	 * Creates a new reader for the given reader. Characters are read in chunks
+	 * into a default-sized input buffer.
+	 *
+	 * @param reader
+	 *            the reader to read the input from
+	 * @throws JsonException
+	 *             if the <code>reader</code> argument is <code>null</code>
+	 */
+	public JsonReader(final Reader reader) {
+		if (reader == null) {
+			throw new JsonException("The reader argument is null."); //$NON-NLS-1$
+		}
+		this.reader = reader;
+		tokenizer.reset(reader, JsonTokenizer.DEFAULT_BUFFER_SIZE);
+		push(EMPTY_DOCUMENT);
+	}
+
+	/**
+	 * Creates a new reader for the given input string.
+	 *
+	 * @param string
+	 *            the input string
+	 * @throws JsonException
+	 *             if the <code>string</code> argument is <code>null</code>
+	 */
+	public JsonReader(final String string) {
+		if (string == null) {
+			throw new JsonException("The string argument is null."); //$NON-NLS-1$
+		}
+		reader = null;
+		tokenizer.reset(string);
+		push(EMPTY_DOCUMENT);
+	}
+
+	/**
+	 * Consumes the opening of a JSON array.
+	 *
+	 * @throws IOException
+	 *             if an I/O error occurs in the reader
+	 * @throws JsonParseException
+	 *             if the next token is not {@link JsonToken#BEGIN_ARRAY}
+	 */
+	public void beginArray() throws IOException {
+		expect(JsonToken.BEGIN_ARRAY);
+		tokenizer.read();
+		push(EMPTY_ARRAY);
+	}
+
+	/**
+	 * Consumes the opening of a JSON object.
+	 *
+	 * @throws IOException
+	 *             if an I/O error occurs in the reader
+	 * @throws JsonParseException
+	 *             if the next token is not {@link JsonToken#BEGIN_OBJECT}
+	 */
+	public void beginObject() throws IOException {
+		expect(JsonToken.BEGIN_OBJECT);
+		tokenizer.read();
+		push(EMPTY_OBJECT);
+	}
+
+	/**
+	 * Closes this reader and the underlying reader, if any.
+	 *
+	 * @throws IOException
+	 *             if an I/O error occurs in the reader
+	 */
+	@Override
+	public void close() throws IOException {
+		peeked = null;
+		stack[0] = CLOSED;
+		stackSize = 1;
+		tokenizer.release();
+		if (reader != null) {
+			reader.close();
+		}
+	}
+
+	/**
+	 * Consumes the closing of the current JSON array.
+	 *
+	 * @throws IOException
+	 *             if an I/O error occurs in the reader
+	 * @throws JsonParseException
+	 *             if the next token is not {@link JsonToken#END_ARRAY}
+	 */
+	public void endArray() throws IOException {
+		expect(JsonToken.END_ARRAY);
+		tokenizer.read();
+		stackSize--;
+	}
+
+	/**
+	 * Consumes the closing of the current JSON object.
+	 *
+	 * @throws IOException
+	 *             if an I/O error occurs in the reader
+	 * @throws JsonParseException
+	 *             if the next token is not {@link JsonToken#END_OBJECT}
+	 */
+	public void endObject() throws IOException {
+		expect(JsonToken.END_OBJECT);
+		tokenizer.read();
+		stackSize--;
+	}
+
+	/**
+	 * Gets the current location of this reader. For UTF-8 input, the offset
+	 * and the column are computed in characters from the beginning of the
+	 * input, so this method should not be called for every token.
+	 *
+	 * @return the location.
+	 */
+	public Location getLocation() {
+		return tokenizer.getLocation();
+	}
+
+	/**
+	 * Returns if the current array or object has another element.
+	 *
+	 * @return <code>true</code> if the next token is neither the closing of an
+	 *         array or of an object, nor the end of the input
+	 * @throws IOException
+	 *             if an I/O error occurs in the reader
+	 */
+	public boolean hasNext() throws IOException {
+		final JsonToken token = peek();
+		return token != JsonToken.END_ARRAY && token != JsonToken.END_OBJECT
+				&& token != JsonToken.END_DOCUMENT;
+	}
+
+	/**
+	 * Consumes the next JSON literal <code>true</code> or <code>false</code>.
+	 *
+	 * @return the boolean value
+	 * @throws IOException
+	 *             if an I/O error occurs in the reader
+	 * @throws JsonParseException
+	 *             if the next token is not {@link JsonToken#BOOLEAN}
+	 */
+	public boolean nextBoolean() throws IOException {
+		expect(JsonToken.BOOLEAN);
+		final boolean value = tokenizer.current() == 't';
+		tokenizer.readLiteral(value ? "true" : "false"); //$NON-NLS-1$ //$NON-NLS-2$
+		return value;
+	}
+
+	/**
+	 * Consumes the next JSON number as a <code>double</code>.
+	 *
+	 * @return the number value
+	 * @throws IOException
+	 *             if an I/O error occurs in the reader
+	 * @throws JsonParseException
+	 *             if the next token is not {@link JsonToken#NUMBER}
+	 */
+	public double nextDouble() throws IOException {
+		expect(JsonToken.NUMBER);
+		if (tokenizer.readNumber()) {
+			return tokenizer.getLong();
+		}
+		return tokenizer.getDouble();
+	}
+
+	/**
+	 * Consumes the next JSON number as an <code>int</code>.
+	 *
+	 * @return the number value
+	 * @throws IOException
+	 *             if an I/O error occurs in the reader
+	 * @throws JsonParseException
+	 *             if the next token is not {@link JsonToken#NUMBER} or if the
+	 *             number is not an <code>int</code> value
+	 */
+	public int nextInt() throws IOException {
+		expect(JsonToken.NUMBER);
+		if (tokenizer.readNumber()) {
+			final long value = tokenizer.getLong();
+			if ((int) value != value) {
+				throw tokenizer.error("Expected int but was " + value); //$NON-NLS-1$
+			}
+			return (int) value;
+		}
+		final double value = tokenizer.getDouble();
+		if ((int) value != value) {
+			throw tokenizer.error(
+					"Expected int but was " + tokenizer.getNumberText()); //$NON-NLS-1$
+		}
+		return (int) value;
+	}
+
+	/**
+	 * Consumes the next JSON number as a <code>long</code>.
+	 *
+	 * @return the number value
+	 * @throws IOException
+	 *             if an I/O error occurs in the reader
+	 * @throws JsonParseException
+	 *             if the next token is not {@link JsonToken#NUMBER} or if the
+	 *             number is not a <code>long</code> value
+	 */
+	public long nextLong() throws IOException {
+		expect(JsonToken.NUMBER);
+		if (tokenizer.readNumber()) {
+			return tokenizer.getLong();
+		}
+		final double value = tokenizer.getDouble();
+		if ((long) value != value) {
+			throw tokenizer.error(
+					"Expected long but was " + tokenizer.getNumberText()); //$NON-NLS-1$
+		}
+		return (long) value;
+	}
+
+	/**
+	 * Consumes the next object member name.
+	 *
+	 * @return the name
+	 * @throws IOException
+	 *             if an I/O error occurs in the reader
+	 * @throws JsonParseException
+	 *             if the next token is not {@link JsonToken#NAME}
+	 */
+	public String nextName() throws IOException {
+		expect(JsonToken.NAME);
+		final String name = tokenizer.readName();
+		stack[stackSize - 1] = DANGLING_NAME;
+		return name;
+	}
+
+	/**
+	 * Consumes the next JSON literal <code>null</code>.
+	 *
+	 * @throws IOException
+	 *             if an I/O error occurs in the reader
+	 * @throws JsonParseException
+	 *             if the next token is not {@link JsonToken#NULL}
+	 */
+	public void nextNull() throws IOException {
+		expect(JsonToken.NULL);
+		tokenizer.readLiteral("null"); //$NON-NLS-1$
+	}
+
+	/**
+	 * Consumes the next JSON string.
+	 *
+	 * @return the string value
+	 * @throws IOException
+	 *             if an I/O error occurs in the reader
+	 * @throws JsonParseException
+	 *             if the next token is not {@link JsonToken#STRING}
+	 */
+	public String nextString() throws IOException {
+		expect(JsonToken.STRING);
+		return tokenizer.readString();
+	}
+
+	/**
+	 * Gets the type of the next token without consuming it.
+	 *
+	 * @return the next token
+	 * @throws IOException
+	 *             if an I/O error occurs in the reader
+	 * @throws JsonParseException
+	 *             if the input is not a valid JSON
+	 * @throws JsonException
+	 *             if this reader is closed
+	 */
+	public JsonToken peek() throws IOException {
+		if (peeked == null) {
+			peeked = doPeek();
+		}
+		return peeked;
+	}
+
+	/**
+	 * Skips the next value. If the next token is the opening of an array or of
+	 * an object, all the nested values are skipped. If the next token is an
+	 * object member name, the name and its value are skipped.
+	 * <p>
+	 * The value is read without capture: only its brackets, braces and quotes
+	 * are checked, its content is not validated.
+	 * </p>
+	 *
+	 * @throws IOException
+	 *             if an I/O error occurs in the reader
+	 * @throws JsonParseException
+	 *             if there is no next value
+	 */
+	public void skipValue() throws IOException {
+		if (peek() == JsonToken.NAME) {
+			nextName();
+		}
+		switch (peek()) {
+		case END_ARRAY:
+		case END_OBJECT:
+		case END_DOCUMENT:
+			throw tokenizer.expected("value"); //$NON-NLS-1$
+		default:
+			peeked = null;
+			tokenizer.skipValue();
+			break;
+		}
+	}
+
+	private JsonToken doPeek() throws IOException {
+		final int top = stackSize - 1;
+		switch (stack[top]) {
+		case EMPTY_DOCUMENT:
+			stack[top] = NONEMPTY_DOCUMENT;
+			tokenizer.start();
+			tokenizer.skipWhiteSpace();
+			return peekValue();
+		case NONEMPTY_DOCUMENT:
+			tokenizer.skipWhiteSpace();
+			if (!tokenizer.isEndOfText()) {
+				throw new JsonException("An unexpected character was found."); //$NON-NLS-1$
+			}
+			return JsonToken.END_DOCUMENT;
+		case EMPTY_ARRAY:
+			tokenizer.skipWhiteSpace();
+			if (tokenizer.current() == ']') {
+				return JsonToken.END_ARRAY;
+			}
+			stack[top] = NONEMPTY_ARRAY;
+			return peekValue();
+		case NONEMPTY_ARRAY:
+			tokenizer.skipWhiteSpace();
+			if (tokenizer.current() == ']') {
+				return JsonToken.END_ARRAY;
+			}
+			if (!tokenizer.readChar(',')) {
+				throw tokenizer.expected("',' or ']'"); //$NON-NLS-1$
+			}
+			tokenizer.skipWhiteSpace();
+			return peekValue();
+		case EMPTY_OBJECT:
+			tokenizer.skipWhiteSpace();
+			if (tokenizer.current() == '}') {
+				return JsonToken.END_OBJECT;
+			}
+			return peekName();
+		case NONEMPTY_OBJECT:
+			tokenizer.skipWhiteSpace();
+			if (tokenizer.current() == '}') {
+				return JsonToken.END_OBJECT;
+			}
+			if (!tokenizer.readChar(',')) {
+				throw tokenizer.expected("',' or '}'"); //$NON-NLS-1$
+			}
+			tokenizer.skipWhiteSpace();
+			return peekName();
+		case DANGLING_NAME:
+			tokenizer.skipWhiteSpace();
+			if (!tokenizer.readChar(':')) {
+				throw tokenizer.expected("':'"); //$NON-NLS-1$
+			}
+			tokenizer.skipWhiteSpace();
+			stack[top] = NONEMPTY_OBJECT;
+			return peekValue();
+		default:
+			throw new JsonException("The reader is closed."); //$NON-NLS-1$
+		}
+	}
+
+	private void expect(final JsonToken expected) throws IOException {
+		final JsonToken token = peek();
+		if (token != expected) {
+			throw tokenizer.error("Expected " + expected + " but was " //$NON-NLS-1$ //$NON-NLS-2$
+					+ token);
+		}
+		peeked = null;
+	}
+
+	private JsonToken peekName() {
+		if (tokenizer.current() != '"') {
+			throw tokenizer.expected("name"); //$NON-NLS-1$
+		}
+		return JsonToken.NAME;
+	}
+
+	private JsonToken peekValue() {
+		switch (tokenizer.current()) {
+		case '[':
+			return JsonToken.BEGIN_ARRAY;
+		case '{':
+			return JsonToken.BEGIN_OBJECT;
+		case '"':
+			return JsonToken.STRING;
+		case 't':
+		case 'f':
+			return JsonToken.BOOLEAN;
+		case 'n':
+			return JsonToken.NULL;
+		case '-':
+		case '0':
+		case '1':
+		case '2':
+		case '3':
+		case '4':
+		case '5':
+		case '6':
+		case '7':
+		case '8':
+		case '9':
+			return JsonToken.NUMBER;
+		default:
+			throw tokenizer.expected("value"); //$NON-NLS-1$
+		}
+	}
+
+	private void push(final int scope) {
+		// the document scope is not a nesting level
+		if (stackSize > JsonParser.MAX_NESTING_LEVEL) {
+			throw tokenizer.error("Nesting too deep"); //$NON-NLS-1$
+		}
+		if (stackSize == stack.length) {
+			stack = Arrays.copyOf(stack, stackSize * 2);
+		}
+		stack[stackSize++] = scope;
+	}
+
+}
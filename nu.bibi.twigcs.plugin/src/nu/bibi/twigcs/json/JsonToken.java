@@ -0,0 +1,65 @@
+/**
+ * This file is part of the twigcs-plugin package.
+ *
+ * (c) Laurent Muller <bibi@bibi.nu>
+ *
+ * For the full copyright and license information, please view the LICENSE
+ * file that was distributed with this source code.
+ */
+package nu.bibi.twigcs.json;
+
+/**
+ * The tokens returned by {@link JsonReader#peek()}.
+ */
+public enum JsonToken {
+
+	/**
+	 * The opening of a JSON array (<code>'['</code>).
+	 */
+	BEGIN_ARRAY,
+
+	/**
+	 * The closing of a JSON array (<code>']'</code>).
+	 */
+	END_ARRAY,
+
+	/**
+	 * The opening of a JSON object (<code>'{'</code>).
+	 */
+	BEGIN_OBJECT,
+
+	/**
+	 * The closing of a JSON object (<code>'}'</code>).
+	 */
+	END_OBJECT,
+
+	/**
+	 * The name of an object member.
+	 */
+	NAME,
+
+	/**
+	 * A JSON string.
+	 */
+	STRING,
+
+	/**
+	 * A JSON number.
+	 */
+	NUMBER,
+
+	/**
+	 * The JSON literal <code>true</code> or <code>false</code>.
+	 */
+	BOOLEAN,
+
+	/**
+	 * The JSON literal <code>null</code>.
+	 */
+	NULL,
+
+	/**
+	 * The end of the input.
+	 */
+	END_DOCUMENT
+}
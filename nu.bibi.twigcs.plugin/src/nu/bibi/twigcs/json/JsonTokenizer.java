@@ -0,0 +1,665 @@
+/**
+ * This file is part of the twigcs-plugin package.
+ *
+ * (c) Laurent Muller <bibi@bibi.nu>
+ *
+ * For the full copyright and license information, please view the LICENSE
+ * file that was distributed with this source code.
+ */
+package nu.bibi.twigcs.json;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.io.StringReader;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * The lexical part of the JSON parsing, shared by the {@link JsonParser} and
+ * the {@link JsonReader}. The tokenizer reads the input one character at a
+ * time and captures the names, the strings and the numbers. It does not know
+ * the JSON grammar.
+ * <p>
+ * The input is either read from a {@link Reader} or from UTF-8 encoded bytes.
+ * The bytes are read in place, without decoding the whole input to
+ * characters: only the captured values are decoded.
+ * </p>
+ * <p>
+ * A tokenizer can be reset for several inputs; the input buffer and the
+ * capture buffer are kept between the inputs. The member names are interned
+ * in a small cache, so the names repeated in an input are created only once.
+ * </p>
+ */
+/* package */
+class JsonTokenizer {
+
+	static final int DEFAULT_BUFFER_SIZE = 1024;
+	private static final int MIN_BUFFER_SIZE = 10;
+	private static final int MAX_CAPTURE_CAPACITY = 64 * 1024;
+	private static final int NAME_CACHE_SIZE = 128;
+	private static final int MAX_NAME_LENGTH = 32;
+	private static final int MAX_LONG_DIGITS = 18;
+
+	private Reader reader;
+	private char[] buffer;
+	private byte[] bytes;
+	private int bytesStart;
+	private int bufferOffset;
+	private int index;
+	private int fill;
+	private int line;
+	private int lineOffset;
+	private int current;
+	private StringBuilder captureBuffer;
+	private int captureStart;
+	private String[] names;
+	private long longValue;
+	private double doubleValue;
+	private String numberText;
+
+	/*
+	 * | bufferOffset v [a|b|c|d|e|f|g|h|i|j|k|l|m|n|o|p|q|r|s|t] < input
+	 * [l|m|n|o|p|q|r|s|t|?|?] < buffer ^ ^ | index fill
+	 */
+
+	/**
+	 * Gets the current character.
+	 *
+	 * @return the current character or -1 at the end of the input.
+	 */
+	int current() {
+		return current;
+	}
+
+	JsonParseException error(final String message) {
+		return new JsonParseException(message, getLocation());
+	}
+
+	JsonParseException expected(final String expected) {
+		if (isEndOfText()) {
+			return error("Unexpected end of input."); //$NON-NLS-1$
+		}
+		return error("Expected " + expected + "."); //$NON-NLS-1$ //$NON-NLS-2$
+	}
+
+	/**
+	 * Gets the value of the last number read, if not a long.
+	 *
+	 * @return the value.
+	 * @see #readNumber()
+	 */
+	double getDouble() {
+		return doubleValue;
+	}
+
+	/**
+	 * Gets the location of the current character. For UTF-8 input, the offset
+	 * and the column are computed in characters from the beginning of the
+	 * input, so this method should not be called for every character.
+	 *
+	 * @return the location.
+	 */
+	Location getLocation() {
+		final int offset = bufferOffset + index - 1;
+		if (bytes != null) {
+			final int charOffset = countChars(0, offset);
+			final int charLineOffset = countChars(0, lineOffset);
+			return new Location(charOffset, line,
+					charOffset - charLineOffset + 1);
+		}
+		final int column = offset - lineOffset + 1;
+		return new Location(offset, line, column);
+	}
+
+	/**
+	 * Gets the value of the last number read, if a long.
+	 *
+	 * @return the value.
+	 * @see #readNumber()
+	 */
+	long getLong() {
+		return longValue;
+	}
+
+	/**
+	 * Gets the text of the last number read, if not a long.
+	 *
+	 * @return the text.
+	 * @see #readNumber()
+	 */
+	String getNumberText() {
+		return numberText;
+	}
+
+	boolean isEndOfText() {
+		return current == -1;
+	}
+
+	void read() throws IOException {
+		if (index == fill) {
+			if (bytes != null) {
+				// end of the bytes
+				current = -1;
+				index++;
+				return;
+			}
+			if (captureStart != -1) {
+				captureBuffer.append(buffer, captureStart, fill - captureStart);
+				captureStart = 0;
+			}
+			bufferOffset += fill;
+			fill = reader.read(buffer, 0, buffer.length);
+			index = 0;
+			if (fill == -1) {
+				current = -1;
+				index++;
+				return;
+			}
+		}
+		if (current == '\n') {
+			line++;
+			lineOffset = bufferOffset + index;
+		}
+		current = bytes != null ? bytes[index++] & 0xFF : buffer[index++];
+	}
+
+	boolean readChar(final char ch) throws IOException {
+		if (current != ch) {
+			return false;
+		}
+		read();
+		return true;
+	}
+
+	/**
+	 * Reads the given literal (<code>true</code>, <code>false</code> or
+	 * <code>null</code>). The current character must be the first character of
+	 * the literal.
+	 *
+	 * @param literal
+	 *            the literal to read.
+	 * @throws IOException
+	 *             if an I/O error occurs.
+	 */
+	void readLiteral(final String literal) throws IOException {
+		read();
+		for (int i = 1; i < literal.length(); i++) {
+			readRequiredChar(literal.charAt(i));
+		}
+	}
+
+	/**
+	 * Reads a member name. The names without escape sequence are interned.
+	 *
+	 * @return the name.
+	 * @throws IOException
+	 *             if an I/O error occurs.
+	 */
+	String readName() throws IOException {
+		if (current != '"') {
+			throw expected("name"); //$NON-NLS-1$
+		}
+		read();
+		startCapture();
+		scanString();
+		final String name;
+		final int end = index - 1;
+		if (captureBuffer.length() == 0
+				&& end - captureStart <= MAX_NAME_LENGTH) {
+			name = internName(captureStart, end);
+			captureStart = -1;
+		} else {
+			name = endCapture();
+		}
+		read();
+		return name;
+	}
+
+	/**
+	 * Reads a number. The current character must be a minus sign or a digit.
+	 * <p>
+	 * The value of an integer, without fraction and exponent, is computed
+	 * while reading; it is then available with {@link #getLong()} and no text
+	 * is created. The value of other numbers, including <code>-0</code> and
+	 * the integers out of the long range, is available with
+	 * {@link #getDouble()} and their text with {@link #getNumberText()}.
+	 * </p>
+	 *
+	 * @return <code>true</code> if the number is a long; <code>false</code>
+	 *         if a double.
+	 * @throws IOException
+	 *             if an I/O error occurs.
+	 */
+	boolean readNumber() throws IOException {
+		startCapture();
+		final boolean negative = readChar('-');
+		final int firstDigit = current;
+		if (!readDigit()) {
+			throw expectedDigit();
+		}
+		long value = firstDigit - '0';
+		int digits = 1;
+		if (firstDigit != '0') {
+			while (isDigit()) {
+				value = value * 10 + current - '0';
+				digits++;
+				read();
+			}
+		}
+		final boolean fraction = readFraction();
+		final boolean exponent = readExponent();
+		final boolean integer = !fraction && !exponent
+				&& !(negative && value == 0);
+		if (integer && digits <= MAX_LONG_DIGITS) {
+			discardCapture();
+			longValue = negative ? -value : value;
+			return true;
+		}
+
+		numberText = endCapture();
+		if (integer) {
+			try {
+				longValue = Long.parseLong(numberText, 10);
+				return true;
+			} catch (final NumberFormatException e) {
+				// out of the long range
+			}
+		}
+		doubleValue = Double.parseDouble(numberText);
+		return false;
+	}
+
+	void readRequiredChar(final char ch) throws IOException {
+		if (!readChar(ch)) {
+			throw expected("'" + ch + "'"); //$NON-NLS-1$ //$NON-NLS-2$
+		}
+	}
+
+	/**
+	 * Reads a string. The current character must be the opening quote.
+	 *
+	 * @return the unescaped content of the string.
+	 * @throws IOException
+	 *             if an I/O error occurs.
+	 */
+	String readString() throws IOException {
+		read();
+		startCapture();
+		scanString();
+		final String string = endCapture();
+		read();
+		return string;
+	}
+
+	/**
+	 * Releases the input. The buffers are kept, unless the capture buffer has
+	 * grown too large.
+	 */
+	void release() {
+		reader = null;
+		bytes = null;
+		if (captureBuffer != null
+				&& captureBuffer.capacity() > MAX_CAPTURE_CAPACITY) {
+			captureBuffer = null;
+		}
+	}
+
+	/**
+	 * Sets the given range of UTF-8 encoded bytes as input. The range must be
+	 * valid.
+	 *
+	 * @param bytes
+	 *            the input bytes.
+	 * @param offset
+	 *            the index of the first byte to read.
+	 * @param length
+	 *            the number of bytes to read.
+	 */
+	void reset(final byte[] bytes, final int offset, final int length) {
+		reader = null;
+		this.bytes = bytes;
+		bytesStart = offset;
+		bufferOffset = -offset;
+		index = offset;
+		fill = offset + length;
+	}
+
+	/**
+	 * Sets the given reader as input. The input buffer is reused if it is
+	 * large enough.
+	 *
+	 * @param reader
+	 *            the reader to read the input from.
+	 * @param bufferSize
+	 *            the minimum size of the input buffer in chars, must be
+	 *            positive.
+	 */
+	void reset(final Reader reader, final int bufferSize) {
+		this.reader = reader;
+		if (buffer == null || buffer.length < bufferSize) {
+			buffer = new char[bufferSize];
+		}
+		bytes = null;
+		bufferOffset = 0;
+		index = 0;
+		fill = 0;
+	}
+
+	/**
+	 * Sets the given string as input.
+	 *
+	 * @param string
+	 *            the input string.
+	 */
+	void reset(final String string) {
+		final int bufferSize = Math.max(MIN_BUFFER_SIZE,
+				Math.min(DEFAULT_BUFFER_SIZE, string.length()));
+		reset(new StringReader(string), bufferSize);
+	}
+
+	/**
+	 * Skips a value without capturing it. The current character must be the
+	 * first character of the value. Only the brackets, the braces and the
+	 * quotes are tracked, so the content of an array, of an object or of a
+	 * string is not validated.
+	 *
+	 * @throws IOException
+	 *             if an I/O error occurs.
+	 */
+	void skipValue() throws IOException {
+		int depth = 0;
+		do {
+			switch (current) {
+			case '"':
+				skipString();
+				break;
+			case '[':
+			case '{':
+				depth++;
+				read();
+				break;
+			case ']':
+			case '}':
+				if (depth == 0) {
+					throw expected("value"); //$NON-NLS-1$
+				}
+				depth--;
+				read();
+				break;
+			case -1:
+				throw expected("value"); //$NON-NLS-1$
+			default:
+				if (depth == 0) {
+					skipLiteral();
+				} else {
+					read();
+				}
+				break;
+			}
+		} while (depth > 0);
+	}
+
+	void skipWhiteSpace() throws IOException {
+		while (isWhiteSpace()) {
+			read();
+		}
+	}
+
+	/**
+	 * Reads the first character of the input.
+	 *
+	 * @throws IOException
+	 *             if an I/O error occurs.
+	 */
+	void start() throws IOException {
+		line = 1;
+		lineOffset = 0;
+		current = 0;
+		captureStart = -1;
+		if (captureBuffer != null) {
+			captureBuffer.setLength(0);
+		}
+		read();
+	}
+
+	private void appendCapture(final int start, final int end) {
+		if (bytes != null) {
+			captureBuffer.append(decode(start, end));
+		} else {
+			captureBuffer.append(buffer, start, end - start);
+		}
+	}
+
+	private int countChars(final int start, final int end) {
+		int count = 0;
+		final int last = Math.min(bytesStart + end, fill);
+		for (int i = bytesStart + start; i < last; i++) {
+			final int b = bytes[i] & 0xFF;
+			if ((b & 0xC0) != 0x80) {
+				// a 4 bytes sequence is decoded to a surrogate pair
+				count += b >= 0xF0 ? 2 : 1;
+			}
+		}
+		return count;
+	}
+
+	private String decode(final int start, final int end) {
+		return new String(bytes, start, end - start, StandardCharsets.UTF_8);
+	}
+
+	private void discardCapture() {
+		captureStart = -1;
+		captureBuffer.setLength(0);
+	}
+
+	private String endCapture() {
+		final int start = captureStart;
+		final int end = index - 1;
+		captureStart = -1;
+		if (captureBuffer.length() > 0) {
+			appendCapture(start, end);
+			final String captured = captureBuffer.toString();
+			captureBuffer.setLength(0);
+			return captured;
+		}
+		if (bytes != null) {
+			return decode(start, end);
+		}
+		return new String(buffer, start, end - start);
+	}
+
+	private JsonParseException expectedDigit() {
+		return expected("digit"); //$NON-NLS-1$
+	}
+
+	private String internName(final int start, final int end) {
+		int hash = 0;
+		if (bytes != null) {
+			for (int i = start; i < end; i++) {
+				final byte b = bytes[i];
+				if (b < 0) {
+					// not ASCII
+					return decode(start, end);
+				}
+				hash = 31 * hash + b;
+			}
+		} else {
+			for (int i = start; i < end; i++) {
+				hash = 31 * hash + buffer[i];
+			}
+		}
+
+		if (names == null) {
+			names = new String[NAME_CACHE_SIZE];
+		}
+		final int slot = (hash ^ hash >>> 16) & NAME_CACHE_SIZE - 1;
+		final String cached = names[slot];
+		if (cached != null && cached.hashCode() == hash
+				&& isName(cached, start, end)) {
+			return cached;
+		}
+		final String name = bytes != null ? decode(start, end)
+				: new String(buffer, start, end - start);
+		names[slot] = name;
+		return name;
+	}
+
+	private boolean isDigit() {
+		return current >= '0' && current <= '9';
+	}
+
+	private boolean isHexDigit() {
+		return current >= '0' && current <= '9'
+				|| current >= 'a' && current <= 'f'
+				|| current >= 'A' && current <= 'F';
+	}
+
+	private boolean isName(final String name, final int start,
+			final int end) {
+		if (name.length() != end - start) {
+			return false;
+		}
+		for (int i = start; i < end; i++) {
+			final int ch = bytes != null ? bytes[i] : buffer[i];
+			if (ch != name.charAt(i - start)) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	private boolean isWhiteSpace() {
+		return current == ' ' || current == '\t' || current == '\n'
+				|| current == '\r';
+	}
+
+	private void pauseCapture() {
+		final int end = current == -1 ? index : index - 1;
+		appendCapture(captureStart, end);
+		captureStart = -1;
+	}
+
+	private boolean readDigit() throws IOException {
+		if (!isDigit()) {
+			return false;
+		}
+		read();
+		return true;
+	}
+
+	private void readEscape() throws IOException {
+		read();
+		switch (current) {
+		case '"':
+		case '/':
+		case '\\':
+			captureBuffer.append((char) current);
+			break;
+		case 'b':
+			captureBuffer.append('\b');
+			break;
+		case 'f':
+			captureBuffer.append('\f');
+			break;
+		case 'n':
+			captureBuffer.append('\n');
+			break;
+		case 'r':
+			captureBuffer.append('\r');
+			break;
+		case 't':
+			captureBuffer.append('\t');
+			break;
+		case 'u':
+			final char[] hexChars = new char[4];
+			for (int i = 0; i < 4; i++) {
+				read();
+				if (!isHexDigit()) {
+					throw expected("hexadecimal digit"); //$NON-NLS-1$
+				}
+				hexChars[i] = (char) current;
+			}
+			captureBuffer
+					.append((char) Integer.parseInt(new String(hexChars), 16));
+			break;
+		default:
+			throw expected("valid escape sequence"); //$NON-NLS-1$
+		}
+		read();
+	}
+
+	private boolean readExponent() throws IOException {
+		if (!readChar('e') && !readChar('E')) {
+			return false;
+		}
+		if (!readChar('+')) {
+			readChar('-');
+		}
+		if (!readDigit()) {
+			throw expectedDigit();
+		}
+		while (readDigit()) {
+			// NO OP
+		}
+		return true;
+	}
+
+	private boolean readFraction() throws IOException {
+		if (!readChar('.')) {
+			return false;
+		}
+		if (!readDigit()) {
+			throw expectedDigit();
+		}
+		while (readDigit()) {
+			// NO OP
+		}
+		return true;
+	}
+
+	private void scanString() throws IOException {
+		while (current != '"') {
+			if (current == '\\') {
+				pauseCapture();
+				readEscape();
+				startCapture();
+			} else if (current < 0x20) {
+				throw expected("valid string character"); //$NON-NLS-1$
+			} else {
+				read();
+			}
+		}
+	}
+
+	private void skipLiteral() throws IOException {
+		if (current != '-' && !isDigit() && current != 't' && current != 'f'
+				&& current != 'n') {
+			throw expected("value"); //$NON-NLS-1$
+		}
+		do {
+			read();
+		} while (current != ',' && current != ']' && current != '}'
+				&& current != -1 && !isWhiteSpace());
+	}
+
+	private void skipString() throws IOException {
+		read();
+		while (current != '"') {
+			if (current == '\\') {
+				read();
+			}
+			if (current == -1) {
+				throw expected("valid string character"); //$NON-NLS-1$
+			}
+			read();
+		}
+		read();
+	}
+
+	private void startCapture() {
+		if (captureBuffer == null) {
+			captureBuffer = new StringBuilder();
+		}
+		captureStart = index - 1;
+	}
+
+}
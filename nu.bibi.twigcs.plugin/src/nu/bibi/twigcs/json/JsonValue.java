@@ -405,7 +405,9 @@ public abstract class JsonValue implements Serializable {
 		if (configuration == null) {
 			throw new JsonException("The configuration argument is null."); //$NON-NLS-1$
 		}
-		write(configuration.createWriter(writer));
+		final WritingBuffer buffer = new WritingBuffer(writer);
+		write(configuration.createWriter(buffer));
+		buffer.flush();
 		writer.flush();
 	}
 
@@ -16,11 +16,8 @@ class JsonWriter {
 
 	private static final int CONTROL_CHARACTERS_END = 0x001f;
 
-	private static final char[] QUOT_CHARS = { '\\', '"' };
-	private static final char[] BS_CHARS = { '\\', '\\' };
-	private static final char[] LF_CHARS = { '\\', 'n' };
-	private static final char[] CR_CHARS = { '\\', 'r' };
-	private static final char[] TAB_CHARS = { '\\', 't' };
+	// the replacement characters of the ASCII range, null if not escaped
+	private static final char[][] ESCAPE_TABLE = new char[128][];
 
 	// In JavaScript, U+2028 and U+2029 characters count as line endings and
 	// must be encoded.
@@ -32,36 +29,29 @@ class JsonWriter {
 	private static final char[] HEX_DIGITS = { '0', '1', '2', '3', '4', '5',
 			'6', '7', '8', '9', 'a', 'b', 'c', 'd', 'e', 'f' };
 
-	private static char[] getReplacementChars(final char ch) {
-		if (ch > '\\') {
-			if (ch < '\u2028' || ch > '\u2029') {
-				// The lower range contains 'a' .. 'z'. Only 2 checks required.
-				return new char[] {};
-			}
-			return ch == '\u2028' ? UNICODE_2028_CHARS : UNICODE_2029_CHARS;
-		} else if (ch == '\\') {
-			return BS_CHARS;
-		} else if (ch > '"') {
-			// This range contains '0' .. '9' and 'A' .. 'Z'. Need 3 checks to
-			// get here.
-			return new char[] {};
-		} else if (ch == '"') {
-			return QUOT_CHARS;
-		} else if (ch > CONTROL_CHARACTERS_END) {
-			return new char[] {};
+	static {
+		for (char ch = 0; ch <= CONTROL_CHARACTERS_END; ch++) {
+			ESCAPE_TABLE[ch] = new char[] { '\\', 'u', '0', '0',
+					HEX_DIGITS[ch >> 4 & 0x000f], HEX_DIGITS[ch & 0x000f] };
 		}
+		ESCAPE_TABLE['"'] = new char[] { '\\', '"' };
+		ESCAPE_TABLE['\\'] = new char[] { '\\', '\\' };
+		ESCAPE_TABLE['\n'] = new char[] { '\\', 'n' };
+		ESCAPE_TABLE['\r'] = new char[] { '\\', 'r' };
+		ESCAPE_TABLE['\t'] = new char[] { '\\', 't' };
+	}
 
-		switch (ch) {
-		case '\n':
-			return LF_CHARS;
-		case '\r':
-			return CR_CHARS;
-		case '\t':
-			return TAB_CHARS;
-		default:
-			return new char[] { '\\', 'u', '0', '0',
-					HEX_DIGITS[ch >> 4 & 0x000f], HEX_DIGITS[ch & 0x000f] };
+	private static char[] getReplacementChars(final char ch) {
+		if (ch < ESCAPE_TABLE.length) {
+			return ESCAPE_TABLE[ch];
+		}
+		if (ch == '\u2028') {
+			return UNICODE_2028_CHARS;
+		}
+		if (ch == '\u2029') {
+			return UNICODE_2029_CHARS;
 		}
+		return null;
 	}
 
 	protected final Writer writer;
@@ -88,7 +78,8 @@ class JsonWriter {
 		for (int index = 0; index < length; index++) {
 			final char[] replacement = getReplacementChars(
 					string.charAt(index));
-			if (replacement.length > 0) {
+			if (replacement != null) {
+				// write the unescaped run and the replacement
 				writer.write(string, start, index - start);
 				writer.write(replacement);
 				start = index + 1;
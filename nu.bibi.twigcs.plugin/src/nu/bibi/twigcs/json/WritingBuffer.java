@@ -0,0 +1,92 @@
+/**
+ * This file is part of the twigcs-plugin package.
+ *
+ * (c) Laurent Muller <bibi@bibi.nu>
+ *
+ * For the full copyright and license information, please view the LICENSE
+ * file that was distributed with this source code.
+ */
+package nu.bibi.twigcs.json;
+
+import java.io.IOException;
+import java.io.Writer;
+
+/**
+ * A lightweight writing buffer to reduce the amount of write operations to be
+ * performed on the underlying writer. This implementation is not thread-safe.
+ * It deliberately deviates from the contract of Writer. In particular, it
+ * does not flush or close the wrapped writer nor does it ensure that the
+ * wrapped writer is open.
+ */
+/* package */
+class WritingBuffer extends Writer {
+
+	private static final int DEFAULT_BUFFER_SIZE = 1024;
+
+	private final Writer writer;
+	private final char[] buffer;
+	private int fill;
+
+	WritingBuffer(final Writer writer) {
+		this(writer, DEFAULT_BUFFER_SIZE);
+	}
+
+	WritingBuffer(final Writer writer, final int bufferSize) {
+		this.writer = writer;
+		buffer = new char[bufferSize];
+	}
+
+	/**
+	 * Does not close or flush the wrapped writer.
+	 */
+	@Override
+	public void close() throws IOException {
+		// no-operation
+	}
+
+	/**
+	 * Flushes the internal buffer but does not flush the wrapped writer.
+	 */
+	@Override
+	public void flush() throws IOException {
+		writer.write(buffer, 0, fill);
+		fill = 0;
+	}
+
+	@Override
+	public void write(final char[] chars, final int offset, final int length)
+			throws IOException {
+		if (fill > buffer.length - length) {
+			flush();
+			if (length > buffer.length) {
+				writer.write(chars, offset, length);
+				return;
+			}
+		}
+		System.arraycopy(chars, offset, buffer, fill, length);
+		fill += length;
+	}
+
+	@Override
+	public void write(final int c) throws IOException {
+		if (fill > buffer.length - 1) {
+			flush();
+		}
+		buffer[fill++] = (char) c;
+	}
+
+	@Override
+	public void write(final String str, final int offset, final int length)
+			throws IOException {
+		if (fill > buffer.length - length) {
+			flush();
+			if (length > buffer.length) {
+				writer.write(str, offset, length);
+				return;
+			}
+		}
+		str.getChars(offset, offset + length, buffer, fill);
+		fill += length;
+	}
+
+}
@@ -8,39 +8,173 @@
  */
 package nu.bibi.twigcs.model;
 
-import java.util.ArrayList;
-import java.util.Collections;
+import java.util.AbstractList;
+import java.util.Arrays;
 import java.util.Iterator;
 import java.util.List;
+import java.util.NoSuchElementException;
 import java.util.Objects;
 
 /**
  * Represents a parsed Twig file.
+ * <p>
+ * The violations are stored by columns: the lines, the columns, the severities
+ * and the messages are kept in parallel arrays. The messages are classified
+ * from a table of message templates shared by all the files.
+ * The {@link TwigViolation} instances are only created to add or to read
+ * violations.
+ * </p>
  *
  * @author Laurent Muller
  * @version 1.0
  */
 public class TwigFile implements Iterable<TwigViolation>, Comparable<TwigFile> {
 
+	/**
+	 * Iterator filling the same violation with the values of each element.
+	 */
+	private class ViolationIterator implements Iterator<TwigViolation> {
+
+		/*
+		 * the reused violation
+		 */
+		private final TwigViolation violation = new TwigViolation();
+
+		/*
+		 * the index of the next element
+		 */
+		private int index;
+
+		@Override
+		public boolean hasNext() {
+			return index < size;
+		}
+
+		@Override
+		public TwigViolation next() {
+			if (index >= size) {
+				throw new NoSuchElementException();
+			}
+			return fill(violation, index++);
+		}
+	}
+
+	/*
+	 * the initial capacity of the columns
+	 */
+	private static final int INITIAL_CAPACITY = 10;
+
+	/*
+	 * the columns of an empty file
+	 */
+	private static final int[] EMPTY_INTS = {};
+	private static final byte[] EMPTY_BYTES = {};
+	private static final TwigMessage[] EMPTY_MESSAGES = {};
+
+	/*
+	 * the severities by ordinal
+	 */
+	private static final TwigSeverity[] SEVERITIES = TwigSeverity.values();
+
+	/*
+	 * the size under which the sort uses an insertion sort
+	 */
+	private static final int INSERTION_SORT_THRESHOLD = 7;
+
+	/**
+	 * Sorts the given range of indexes by their keys. This is a stable merge
+	 * sort; the source and the destination must contain the same indexes.
+	 *
+	 * @param src
+	 *            the source indexes.
+	 * @param dest
+	 *            the destination indexes.
+	 * @param keys
+	 *            the sort keys.
+	 * @param low
+	 *            the first index of the range, inclusive.
+	 * @param high
+	 *            the last index of the range, exclusive.
+	 */
+	private static void mergeSort(final int[] src, final int[] dest,
+			final long[] keys, final int low, final int high) {
+		final int length = high - low;
+		if (length < INSERTION_SORT_THRESHOLD) {
+			for (int i = low; i < high; i++) {
+				for (int j = i; j > low
+						&& keys[dest[j - 1]] > keys[dest[j]]; j--) {
+					final int swap = dest[j];
+					dest[j] = dest[j - 1];
+					dest[j - 1] = swap;
+				}
+			}
+			return;
+		}
+
+		// sort halves of the destination into the source
+		final int mid = (low + high) >>> 1;
+		mergeSort(dest, src, keys, low, mid);
+		mergeSort(dest, src, keys, mid, high);
+
+		// already sorted?
+		if (keys[src[mid - 1]] <= keys[src[mid]]) {
+			System.arraycopy(src, low, dest, low, length);
+			return;
+		}
+
+		// merge the sorted halves
+		for (int i = low, p = low, q = mid; i < high; i++) {
+			if (q >= high || p < mid && keys[src[p]] <= keys[src[q]]) {
+				dest[i] = src[p++];
+			} else {
+				dest[i] = src[q++];
+			}
+		}
+	}
+
 	/*
 	 * the file path
 	 */
 	private String path;
 
 	/*
-	 * the violations
+	 * the number of violations
+	 */
+	private int size;
+
+	/*
+	 * the violation lines
 	 */
-	private final List<TwigViolation> violations;
+	private int[] lines;
+
+	/*
+	 * the violation columns
+	 */
+	private int[] columns;
+
+	/*
+	 * the violation severity ordinals or -1 if none
+	 */
+	private byte[] severities;
+
+	/*
+	 * the violation messages or null if none
+	 */
+	private TwigMessage[] messages;
 
 	/**
 	 * Creates a new instance of this class.
 	 */
 	public TwigFile() {
-		violations = new ArrayList<>();
+		lines = EMPTY_INTS;
+		columns = EMPTY_INTS;
+		severities = EMPTY_BYTES;
+		messages = EMPTY_MESSAGES;
 	}
 
 	/**
-	 * Appends the specified violation to the end of this list of violations.
+	 * Appends the values of the specified violation to the end of this list
+	 * of violations. The violation itself is not referenced by this file.
 	 *
 	 * @param violation
 	 *            the violation to be appended.
@@ -48,7 +182,19 @@ public class TwigFile implements Iterable<TwigViolation>, Comparable<TwigFile> {
 	 *         the call.
 	 */
 	public boolean addViolation(final TwigViolation violation) {
-		return violation != null && violations.add(violation);
+		if (violation == null) {
+			return false;
+		}
+		if (size == lines.length) {
+			grow();
+		}
+		final TwigSeverity severity = violation.getSeverity();
+		lines[size] = violation.getLine();
+		columns[size] = violation.getColumn();
+		severities[size] = (byte) (severity == null ? -1 : severity.ordinal());
+		messages[size] = violation.getTwigMessage();
+		size++;
+		return true;
 	}
 
 	/**
@@ -87,12 +233,41 @@ public class TwigFile implements Iterable<TwigViolation>, Comparable<TwigFile> {
 	}
 
 	/**
-	 * Gets the violations.
+	 * Gets the violation at the given index. A new violation is created for
+	 * each call.
+	 *
+	 * @param index
+	 *            the index of the violation.
+	 * @return the violation.
+	 * @throws IndexOutOfBoundsException
+	 *             if the index is out of range.
+	 */
+	public TwigViolation getViolation(final int index) {
+		if (index < 0 || index >= size) {
+			throw new IndexOutOfBoundsException(
+					"Index: " + index + ", Size: " + size); //$NON-NLS-1$ //$NON-NLS-2$
+		}
+		return fill(new TwigViolation(), index);
+	}
+
+	/**
+	 * Gets the violations. The returned list is a read-only view of this file:
+	 * a new violation is created for each accessed element.
 	 *
 	 * @return the violations.
 	 */
 	public List<TwigViolation> getViolations() {
-		return violations;
+		return new AbstractList<TwigViolation>() {
+			@Override
+			public TwigViolation get(final int index) {
+				return getViolation(index);
+			}
+
+			@Override
+			public int size() {
+				return size;
+			}
+		};
 	}
 
 	/**
@@ -109,15 +284,21 @@ public class TwigFile implements Iterable<TwigViolation>, Comparable<TwigFile> {
 	 * @return <tt>true</tt> if empty.
 	 */
 	public boolean isEmpty() {
-		return violations.isEmpty();
+		return size == 0;
 	}
 
 	/**
 	 * {@inheritDoc}
+	 * <p>
+	 * The returned iterator fills the same violation for all the elements, so
+	 * the values of a returned violation are only valid until the next call to
+	 * <code>next()</code>. Use {@link #getViolation(int)} to get a distinct
+	 * violation.
+	 * </p>
 	 */
 	@Override
 	public Iterator<TwigViolation> iterator() {
-		return violations.iterator();
+		return new ViolationIterator();
 	}
 
 	/**
@@ -136,16 +317,55 @@ public class TwigFile implements Iterable<TwigViolation>, Comparable<TwigFile> {
 	 * @return the number of violations.
 	 */
 	public int size() {
-		return violations.size();
+		return size;
 	}
 
 	/**
-	 * Sort violations.
+	 * Sort violations by line and column. The order of the violations having
+	 * the same position is kept.
 	 */
 	public void sort() {
-		if (violations.size() > 1) {
-			Collections.sort(violations);
+		if (size < 2) {
+			return;
+		}
+
+		// compute keys
+		boolean sorted = true;
+		final long[] keys = new long[size];
+		for (int i = 0; i < size; i++) {
+			keys[i] = (long) lines[i] << 32
+					| columns[i] - Integer.MIN_VALUE & 0xFFFFFFFFL;
+			if (i > 0 && keys[i] < keys[i - 1]) {
+				sorted = false;
+			}
 		}
+		if (sorted) {
+			return;
+		}
+
+		// sort indexes
+		final int[] order = new int[size];
+		for (int i = 0; i < size; i++) {
+			order[i] = i;
+		}
+		mergeSort(order.clone(), order, keys, 0, size);
+
+		// reorder columns
+		final int[] sortedLines = new int[size];
+		final int[] sortedColumns = new int[size];
+		final byte[] sortedSeverities = new byte[size];
+		final TwigMessage[] sortedMessages = new TwigMessage[size];
+		for (int i = 0; i < size; i++) {
+			final int index = order[i];
+			sortedLines[i] = lines[index];
+			sortedColumns[i] = columns[index];
+			sortedSeverities[i] = severities[index];
+			sortedMessages[i] = messages[index];
+		}
+		lines = sortedLines;
+		columns = sortedColumns;
+		severities = sortedSeverities;
+		messages = sortedMessages;
 	}
 
 	/**
@@ -157,4 +377,35 @@ public class TwigFile implements Iterable<TwigViolation>, Comparable<TwigFile> {
 		return String.format("%s{path: \"%s\", violations: %d}", //$NON-NLS-1$
 				name, path, size());
 	}
+
+	/**
+	 * Fills the given violation with the values at the given index.
+	 *
+	 * @param violation
+	 *            the violation to fill.
+	 * @param index
+	 *            the index of the values.
+	 * @return the violation.
+	 */
+	private TwigViolation fill(final TwigViolation violation,
+			final int index) {
+		final int severity = severities[index];
+		violation.setLine(lines[index]);
+		violation.setColumn(columns[index]);
+		violation.setSeverity(severity < 0 ? null : SEVERITIES[severity]);
+		violation.setTwigMessage(messages[index]);
+		return violation;
+	}
+
+	/**
+	 * Increases the capacity of the columns.
+	 */
+	private void grow() {
+		final int capacity = Math.max(INITIAL_CAPACITY,
+				lines.length + (lines.length >> 1));
+		lines = Arrays.copyOf(lines, capacity);
+		columns = Arrays.copyOf(columns, capacity);
+		severities = Arrays.copyOf(severities, capacity);
+		messages = Arrays.copyOf(messages, capacity);
+	}
 }
@@ -0,0 +1,309 @@
+/**
+ * This file is part of the twigcs-plugin package.
+ *
+ * (c) Laurent Muller <bibi@bibi.nu>
+ *
+ * For the full copyright and license information, please view the LICENSE
+ * file that was distributed with this source code.
+ */
+package nu.bibi.twigcs.model;
+
+import nu.bibi.twigcs.resolution.IResolutionConstants;
+
+/**
+ * Represents a violation message. The messages sharing the same template (the
+ * text without the content of the quoted parts) share the same classification,
+ * computed once by the message table: the error identifier and the space rules
+ * are then available without scanning the text again. Only the quoted
+ * identifier is searched in the text of each message.
+ *
+ * @author Laurent Muller
+ * @version 1.0
+ */
+public final class TwigMessage implements IResolutionConstants {
+
+	/*
+	 * the double quote character
+	 */
+	private static final char QUOTE_CHAR = '"';
+
+	/**
+	 * Gets the start of the quoted identifier in the given message.
+	 *
+	 * @param text
+	 *            the message text.
+	 * @return the index of the first character of the identifier (inclusive),
+	 *         if found; -1 otherwise.
+	 */
+	private static int findIdentifierStart(final String text) {
+		final int quote = text.indexOf(QUOTE_CHAR);
+		if (quote == -1 || text.indexOf(QUOTE_CHAR, quote + 1) == -1) {
+			return -1;
+		}
+		return quote + 1;
+	}
+
+	/**
+	 * Gets the error identifier of the given message.
+	 *
+	 * @param text
+	 *            the message text.
+	 * @return the error identifier, if any; {@link #ERROR_INVALID} otherwise.
+	 */
+	private static int findErrorId(final String text) {
+		if (isLowerCase(text)) {
+			return ERROR_LOWER_CASE;
+		} else if (isUnunsedMacro(text)) {
+			return ERROR_UNUSED_MACRO;
+		} else if (isUnunsedVariable(text)) {
+			return ERROR_UNUSED_VARIABLE;
+		} else if (isEndLineSpace(text) || isNoSpace(text)) {
+			return ERROR_NO_SPACE;
+		} else if (isOneSpace(text)) {
+			return ERROR_ONE_SPACE;
+		} else {
+			return ERROR_INVALID;
+		}
+	}
+
+	/**
+	 * Returns if the given message concern the end line space error.
+	 *
+	 * @param text
+	 *            the message to be tested.
+	 * @return <code>true</code> if end line space error.
+	 */
+	private static boolean isEndLineSpace(final String text) {
+		return text.contains("A line should not end with blank space"); //$NON-NLS-1$
+	}
+
+	/**
+	 * Returns if the given message concern the lower case variable error.
+	 *
+	 * @param text
+	 *            the message to be tested.
+	 * @return <code>true</code> if lower case variable error.
+	 */
+	private static boolean isLowerCase(final String text) {
+		return text.contains("variable should be in lower case"); //$NON-NLS-1$
+	}
+
+	/**
+	 * Returns if the given message concern the no space error.
+	 *
+	 * @param text
+	 *            the message to be tested.
+	 * @return <code>true</code> if no space error.
+	 */
+	private static boolean isNoSpace(final String text) {
+		return text.contains("0 space"); //$NON-NLS-1$
+	}
+
+	/**
+	 * Returns if the given message concern the one space error.
+	 *
+	 * @param text
+	 *            the message to be tested.
+	 * @return <code>true</code> if one space error.
+	 */
+	private static boolean isOneSpace(final String text) {
+		return text.contains("1 space"); //$NON-NLS-1$
+	}
+
+	/**
+	 * Returns if the given message concern the unused macro.
+	 *
+	 * @param text
+	 *            the message to be tested.
+	 * @return <code>true</code> if unused macro error.
+	 */
+	private static boolean isUnunsedMacro(final String text) {
+		return text.contains("Unused macro"); //$NON-NLS-1$
+	}
+
+	/**
+	 * Returns if the given message concern the unused variable.
+	 *
+	 * @param text
+	 *            the message to be tested.
+	 * @return <code>true</code> if unused variable error.
+	 */
+	private static boolean isUnunsedVariable(final String text) {
+		return text.contains("Unused variable"); //$NON-NLS-1$
+	}
+
+	/*
+	 * the message text
+	 */
+	private final String text;
+
+	/*
+	 * the error identifier
+	 */
+	private final int errorId;
+
+	/*
+	 * the space rules
+	 */
+	private final boolean endLineSpace;
+	private final boolean noSpace;
+	private final boolean oneSpace;
+
+	/*
+	 * the quoted identifier and its span in the text
+	 */
+	private final String identifier;
+	private final int identifierStart;
+	private final int identifierEnd;
+
+	/**
+	 * Creates a new instance of this class and classifies the given text.
+	 *
+	 * @param text
+	 *            the message text or template.
+	 */
+	TwigMessage(final String text) {
+		this(text, findErrorId(text), isEndLineSpace(text), isNoSpace(text),
+				isOneSpace(text));
+	}
+
+	/**
+	 * Creates a new instance of this class with the classification of the
+	 * given template.
+	 *
+	 * @param text
+	 *            the message text.
+	 * @param template
+	 *            the classified message template.
+	 */
+	TwigMessage(final String text, final TwigMessage template) {
+		this(text, template.errorId, template.endLineSpace, template.noSpace,
+				template.oneSpace);
+	}
+
+	/**
+	 * Creates a new instance of this class.
+	 *
+	 * @param text
+	 *            the message text.
+	 * @param errorId
+	 *            the error identifier.
+	 * @param endLineSpace
+	 *            <code>true</code> if end line space error.
+	 * @param noSpace
+	 *            <code>true</code> if no space error.
+	 * @param oneSpace
+	 *            <code>true</code> if one space error.
+	 */
+	private TwigMessage(final String text, final int errorId,
+			final boolean endLineSpace, final boolean noSpace,
+			final boolean oneSpace) {
+		this.text = text;
+		this.errorId = errorId;
+		this.endLineSpace = endLineSpace;
+		this.noSpace = noSpace;
+		this.oneSpace = oneSpace;
+
+		// identifier
+		identifierStart = hasIdentifier() ? findIdentifierStart(text) : -1;
+		identifierEnd = identifierStart == -1 ? -1
+				: text.indexOf(QUOTE_CHAR, identifierStart);
+		identifier = identifierStart == -1 ? null
+				: text.substring(identifierStart, identifierEnd);
+	}
+
+	/**
+	 * Gets the error identifier.
+	 *
+	 * @return the error identifier, if any; {@link #ERROR_INVALID} otherwise.
+	 */
+	public int getErrorId() {
+		return errorId;
+	}
+
+	/**
+	 * Gets the quoted identifier (variable, macro, etc.).
+	 *
+	 * @return the identifier, if any; <code>null</code> otherwise.
+	 * @see #hasIdentifier()
+	 */
+	public String getIdentifier() {
+		return identifier;
+	}
+
+	/**
+	 * Gets the index, in the text, of the end of the quoted identifier
+	 * (exclusive).
+	 *
+	 * @return the end index, if an identifier is found; -1 otherwise.
+	 */
+	public int getIdentifierEnd() {
+		return identifierEnd;
+	}
+
+	/**
+	 * Gets the index, in the text, of the start of the quoted identifier
+	 * (inclusive).
+	 *
+	 * @return the start index, if an identifier is found; -1 otherwise.
+	 */
+	public int getIdentifierStart() {
+		return identifierStart;
+	}
+
+	/**
+	 * Gets the message text.
+	 *
+	 * @return the text.
+	 */
+	public String getText() {
+		return text;
+	}
+
+	/**
+	 * Returns if the error concerns an identifier: the lower case, the unused
+	 * macro and the unused variable errors.
+	 *
+	 * @return <code>true</code> if the error concerns an identifier.
+	 * @see #getIdentifier()
+	 */
+	public boolean hasIdentifier() {
+		return errorId == ERROR_LOWER_CASE || errorId == ERROR_UNUSED_MACRO
+				|| errorId == ERROR_UNUSED_VARIABLE;
+	}
+
+	/**
+	 * Returns if this message concern the end line space error.
+	 *
+	 * @return <code>true</code> if end line space error.
+	 */
+	public boolean isEndLineSpace() {
+		return endLineSpace;
+	}
+
+	/**
+	 * Returns if this message concern the no space error.
+	 *
+	 * @return <code>true</code> if no space error.
+	 */
+	public boolean isNoSpace() {
+		return noSpace;
+	}
+
+	/**
+	 * Returns if this message concern the one space error.
+	 *
+	 * @return <code>true</code> if one space error.
+	 */
+	public boolean isOneSpace() {
+		return oneSpace;
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public String toString() {
+		return text;
+	}
+}
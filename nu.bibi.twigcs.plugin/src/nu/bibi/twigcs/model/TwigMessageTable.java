@@ -0,0 +1,109 @@
+/**
+ * This file is part of the twigcs-plugin package.
+ *
+ * (c) Laurent Muller <bibi@bibi.nu>
+ *
+ * For the full copyright and license information, please view the LICENSE
+ * file that was distributed with this source code.
+ */
+package nu.bibi.twigcs.model;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Table of the violation message templates. A template is the text of a
+ * message without the content of its quoted parts, for example
+ * <code>Unused variable ""</code>. Each template is classified once and the
+ * messages built from it share its classification, so a message already seen
+ * is classified with a single hash lookup. The table is shared by all the files
+ * and is thread-safe.
+ * <p>
+ * The identifiers (variables, macros, etc.) are always quoted by Twigcs, so the
+ * number of templates only depends on the Twigcs rules and the table stays
+ * small. As a safety, the table is cleared if it ever reaches its maximum size.
+ * </p>
+ *
+ * @author Laurent Muller
+ * @version 1.0
+ */
+final class TwigMessageTable {
+
+	/*
+	 * the double quote character
+	 */
+	private static final char QUOTE_CHAR = '"';
+
+	/*
+	 * the maximum number of templates
+	 */
+	private static final int MAX_TEMPLATES = 1024;
+
+	/*
+	 * the classified templates by text
+	 */
+	private static final Map<String, TwigMessage> TEMPLATES = new ConcurrentHashMap<>();
+
+	/*
+	 * prevent instance creation
+	 */
+	private TwigMessageTable() {
+	}
+
+	/**
+	 * Gets the message for the given text. The message template is classified
+	 * and added to the table if not already present.
+	 *
+	 * @param text
+	 *            the message text.
+	 * @return the message or <code>null</code> if the text is
+	 *         <code>null</code>.
+	 */
+	static TwigMessage getMessage(final String text) {
+		if (text == null) {
+			return null;
+		}
+		final String key = toTemplate(text);
+		TwigMessage template = TEMPLATES.get(key);
+		if (template == null) {
+			if (TEMPLATES.size() >= MAX_TEMPLATES) {
+				TEMPLATES.clear();
+			}
+			template = TEMPLATES.computeIfAbsent(key, TwigMessage::new);
+		}
+
+		// no quoted part: the template is the message
+		if (key == text) {
+			return template;
+		}
+		return new TwigMessage(text, template);
+	}
+
+	/**
+	 * Gets the template of the given message text: the content of each quoted
+	 * part is removed.
+	 *
+	 * @param text
+	 *            the message text.
+	 * @return the template or the text itself if it does not contain any
+	 *         quoted part.
+	 */
+	private static String toTemplate(final String text) {
+		int start = text.indexOf(QUOTE_CHAR);
+		if (start == -1) {
+			return text;
+		}
+		final StringBuilder builder = new StringBuilder(text.length());
+		int from = 0;
+		while (start != -1) {
+			final int end = text.indexOf(QUOTE_CHAR, start + 1);
+			if (end == -1) {
+				break;
+			}
+			builder.append(text, from, start + 1);
+			from = end;
+			start = text.indexOf(QUOTE_CHAR, end + 1);
+		}
+		return builder.append(text, from, text.length()).toString();
+	}
+}
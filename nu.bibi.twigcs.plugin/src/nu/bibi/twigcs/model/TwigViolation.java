@@ -36,9 +36,9 @@ public class TwigViolation implements Comparable<TwigViolation> {
 	private TwigSeverity severity;
 
 	/*
-	 * the message
+	 * the classified message
 	 */
-	private String message;
+	private TwigMessage message;
 
 	/**
 	 * {@inheritDoc}
@@ -108,7 +108,7 @@ public class TwigViolation implements Comparable<TwigViolation> {
 	 * @return the message.
 	 */
 	public String getMessage() {
-		return message;
+		return message == null ? null : message.getText();
 	}
 
 	/**
@@ -120,6 +120,15 @@ public class TwigViolation implements Comparable<TwigViolation> {
 		return severity;
 	}
 
+	/**
+	 * Gets the message, with its classification.
+	 *
+	 * @return the message, if any; <code>null</code> otherwise.
+	 */
+	public TwigMessage getTwigMessage() {
+		return message;
+	}
+
 	/**
 	 * {@inheritDoc}
 	 */
@@ -149,13 +158,14 @@ public class TwigViolation implements Comparable<TwigViolation> {
 	}
 
 	/**
-	 * Sets the message.
+	 * Sets the message. The message is classified from the table of the
+	 * message templates.
 	 *
 	 * @param message
 	 *            the message to set.
 	 */
 	public void setMessage(final String message) {
-		this.message = message;
+		this.message = TwigMessageTable.getMessage(message);
 	}
 
 	/**
@@ -186,6 +196,16 @@ public class TwigViolation implements Comparable<TwigViolation> {
 		final String name = getClass().getSimpleName();
 		return String.format(
 				"%s{line: %d, column: %d, severity: %s, message: \"%s\"}", //$NON-NLS-1$
-				name, line, column, severity, message);
+				name, line, column, severity, getMessage());
+	}
+
+	/**
+	 * Sets the classified message.
+	 *
+	 * @param message
+	 *            the classified message to set.
+	 */
+	void setTwigMessage(final TwigMessage message) {
+		this.message = message;
 	}
 }
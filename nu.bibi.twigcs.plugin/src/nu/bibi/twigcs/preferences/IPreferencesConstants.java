@@ -21,16 +21,51 @@ import nu.bibi.twigcs.model.TwigVersion;
  */
 public interface IPreferencesConstants {
 
+	/**
+	 * The default background validation mode.
+	 */
+	boolean DEFAULT_BACKGROUND_VALIDATION = false;
+
+	/**
+	 * The default number of files validated by a single Twigcs execution.
+	 */
+	int DEFAULT_BATCH_SIZE = 25;
+
+	/**
+	 * The default maximum number of cached validation results.
+	 */
+	int DEFAULT_CACHE_SIZE = 10000;
+
 	/**
 	 * The default display.
 	 */
 	TwigDisplay DEFAULT_DISPLAY = TwigDisplay.BLOCKING;
 
+	/**
+	 * The default number of concurrent Twigcs executions.
+	 */
+	int DEFAULT_MAX_PROCESSES = Runtime.getRuntime().availableProcessors();
+
+	/**
+	 * The default PHP interpreter path.
+	 */
+	String DEFAULT_PHP_PATH = "php"; //$NON-NLS-1$
+
 	/**
 	 * The default output reporter.
 	 */
 	TwigReporter DEFAULT_REPORTER = TwigReporter.JSON;
 
+	/**
+	 * The default resident worker mode.
+	 */
+	boolean DEFAULT_RESIDENT_WORKER = false;
+
+	/**
+	 * The default validation results cache mode.
+	 */
+	boolean DEFAULT_RESULT_CACHE = true;
+
 	/**
 	 * The default severity.
 	 */
@@ -41,11 +76,61 @@ public interface IPreferencesConstants {
 	 */
 	TwigVersion DEFAULT_VERSION = TwigVersion.VERSION_2;
 
+	/**
+	 * The maximum number of files validated by a single Twigcs execution.
+	 */
+	int MAX_BATCH_SIZE = 500;
+
+	/**
+	 * The maximum number of cached validation results.
+	 */
+	int MAX_CACHE_SIZE = 1000000;
+
+	/**
+	 * The maximum number of concurrent Twigcs executions.
+	 */
+	int MAX_PROCESSES = 128;
+
+	/**
+	 * The background validation mode property.
+	 */
+	String P_BACKGROUND_VALIDATION = "twigcs.background_validation"; //$NON-NLS-1$
+
+	/**
+	 * The batch size property.
+	 */
+	String P_BATCH_SIZE = "twigcs.batch_size"; //$NON-NLS-1$
+
+	/**
+	 * The maximum number of cached validation results property.
+	 */
+	String P_CACHE_SIZE = "twigcs.cache_size"; //$NON-NLS-1$
+
 	/**
 	 * The Twigcs executable path property.
 	 */
 	String P_EXECUTABLE_PATH = "twigcs.executable_path"; //$NON-NLS-1$
 
+	/**
+	 * The number of concurrent Twigcs executions property.
+	 */
+	String P_MAX_PROCESSES = "twigcs.max_processes"; //$NON-NLS-1$
+
+	/**
+	 * The PHP interpreter path property.
+	 */
+	String P_PHP_PATH = "twigcs.php_path"; //$NON-NLS-1$
+
+	/**
+	 * The resident worker mode property.
+	 */
+	String P_RESIDENT_WORKER = "twigcs.resident_worker"; //$NON-NLS-1$
+
+	/**
+	 * The validation results cache mode property.
+	 */
+	String P_RESULT_CACHE = "twigcs.result_cache"; //$NON-NLS-1$
+
 	/**
 	 * The twig display property.
 	 */
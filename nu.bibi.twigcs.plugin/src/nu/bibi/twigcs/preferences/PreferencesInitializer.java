@@ -28,6 +28,31 @@ import nu.bibi.twigcs.model.TwigVersion;
 public class PreferencesInitializer extends AbstractPreferenceInitializer
 		implements IPreferencesConstants {
 
+	/**
+	 * Gets the number of files to validate by a single Twigcs execution from
+	 * the preference store.
+	 *
+	 * @return the batch size, always between 1 and {@link #MAX_BATCH_SIZE}.
+	 */
+	public static int getBatchSize() {
+		final IPreferenceStore store = getPreferenceStore();
+		final int size = store.getInt(P_BATCH_SIZE);
+		return Math.max(1, Math.min(size, MAX_BATCH_SIZE));
+	}
+
+	/**
+	 * Gets the maximum number of cached validation results from the preference
+	 * store.
+	 *
+	 * @return the maximum number of cached results, between 1 and
+	 *         {@link #MAX_CACHE_SIZE}.
+	 */
+	public static int getCacheSize() {
+		final IPreferenceStore store = getPreferenceStore();
+		final int size = store.getInt(P_CACHE_SIZE);
+		return Math.max(1, Math.min(size, MAX_CACHE_SIZE));
+	}
+
 	/**
 	 * Gets the Twigcs executable path from the preference store.
 	 *
@@ -38,6 +63,30 @@ public class PreferencesInitializer extends AbstractPreferenceInitializer
 		return store.getString(P_EXECUTABLE_PATH);
 	}
 
+	/**
+	 * Gets the number of concurrent Twigcs executions from the preference
+	 * store.
+	 *
+	 * @return the number of executions, always between 1 and
+	 *         {@link #MAX_PROCESSES}.
+	 */
+	public static int getMaxProcesses() {
+		final IPreferenceStore store = getPreferenceStore();
+		final int processes = store.getInt(P_MAX_PROCESSES);
+		return Math.max(1, Math.min(processes, MAX_PROCESSES));
+	}
+
+	/**
+	 * Gets the PHP interpreter path from the preference store.
+	 *
+	 * @return the PHP interpreter path.
+	 */
+	public static String getPhpPath() {
+		final IPreferenceStore store = getPreferenceStore();
+		final String path = store.getString(P_PHP_PATH);
+		return path.isEmpty() ? DEFAULT_PHP_PATH : path;
+	}
+
 	/**
 	 * Gets the preference store.
 	 *
@@ -83,6 +132,34 @@ public class PreferencesInitializer extends AbstractPreferenceInitializer
 		return valueOf(P_VERSION, TwigVersion.class, DEFAULT_VERSION);
 	}
 
+	/**
+	 * Returns if the files are validated by a background job instead of the
+	 * builder.
+	 *
+	 * @return <code>true</code> if the background validation is enabled.
+	 */
+	public static boolean isBackgroundValidation() {
+		return getPreferenceStore().getBoolean(P_BACKGROUND_VALIDATION);
+	}
+
+	/**
+	 * Returns if the files are validated by a resident worker process.
+	 *
+	 * @return <code>true</code> if the resident worker mode is enabled.
+	 */
+	public static boolean isResidentWorker() {
+		return getPreferenceStore().getBoolean(P_RESIDENT_WORKER);
+	}
+
+	/**
+	 * Returns if the validation results of unchanged files are reused.
+	 *
+	 * @return <code>true</code> if the validation results cache is enabled.
+	 */
+	public static boolean isResultCache() {
+		return getPreferenceStore().getBoolean(P_RESULT_CACHE);
+	}
+
 	/**
 	 * Returns the enum constant of the specified enum type
 	 *
@@ -121,6 +198,14 @@ public class PreferencesInitializer extends AbstractPreferenceInitializer
 		store.setDefault(P_VERSION, DEFAULT_VERSION.name());
 		store.setDefault(P_SEVERITY, DEFAULT_SEVERITY.name());
 		store.setDefault(P_REPORTER, DEFAULT_REPORTER.name());
+		store.setDefault(P_BATCH_SIZE, DEFAULT_BATCH_SIZE);
+		store.setDefault(P_MAX_PROCESSES, DEFAULT_MAX_PROCESSES);
+		store.setDefault(P_RESIDENT_WORKER, DEFAULT_RESIDENT_WORKER);
+		store.setDefault(P_PHP_PATH, DEFAULT_PHP_PATH);
+		store.setDefault(P_RESULT_CACHE, DEFAULT_RESULT_CACHE);
+		store.setDefault(P_CACHE_SIZE, DEFAULT_CACHE_SIZE);
+		store.setDefault(P_BACKGROUND_VALIDATION,
+				DEFAULT_BACKGROUND_VALIDATION);
 
 		// find path for windows
 		final String home = System.getProperty("user.home"); //$NON-NLS-1$
@@ -0,0 +1,348 @@
+/**
+ * This file is part of the twigcs-plugin package.
+ *
+ * (c) Laurent Muller <bibi@bibi.nu>
+ *
+ * For the full copyright and license information, please view the LICENSE
+ * file that was distributed with this source code.
+ */
+package nu.bibi.twigcs.preferences;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.Objects;
+
+import org.eclipse.core.resources.IProject;
+import org.eclipse.core.runtime.IPath;
+
+import nu.bibi.twigcs.TwigcsPlugin;
+import nu.bibi.twigcs.core.TwigcsPathFilter;
+import nu.bibi.twigcs.model.TwigReporter;
+import nu.bibi.twigcs.model.TwigSeverity;
+import nu.bibi.twigcs.model.TwigVersion;
+
+/**
+ * Immutable snapshot of the settings used to validate the files of a project.
+ * <p>
+ * The snapshot contains both the project preferences and the global
+ * preferences. The snapshots are held by the {@link ProjectSnapshotCache} of
+ * the plugin and are rebuilt only when the preferences change, so the builds
+ * and the listeners do not access the preference store.
+ * </p>
+ * <p>
+ * The include and exclude paths are the paths as saved in the project
+ * preferences; the existence of the corresponding resources is not verified.
+ * </p>
+ *
+ * @author Laurent Muller
+ * @version 1.0
+ */
+public final class ProjectSnapshot {
+
+	/**
+	 * Gets the snapshot of the current settings of the given project.
+	 *
+	 * @param project
+	 *            the project to get settings for.
+	 * @return the snapshot.
+	 */
+	public static ProjectSnapshot of(final IProject project) {
+		return TwigcsPlugin.getDefault().getSnapshotCache().get(project);
+	}
+
+	/*
+	 * the project
+	 */
+	private final IProject project;
+
+	/*
+	 * the Twigcs executable path
+	 */
+	private final String executable;
+
+	/*
+	 * the Twig version
+	 */
+	private final TwigVersion version;
+
+	/*
+	 * the severity given to the Twigcs executable
+	 */
+	private final TwigSeverity processSeverity;
+
+	/*
+	 * the severity used to create markers
+	 */
+	private final TwigSeverity severity;
+
+	/*
+	 * the reporter given to the Twigcs executable
+	 */
+	private final TwigReporter reporter;
+
+	/*
+	 * the include paths
+	 */
+	private final List<IPath> includePaths;
+
+	/*
+	 * the exclude paths
+	 */
+	private final List<IPath> excludePaths;
+
+	/*
+	 * the paths filter
+	 */
+	private final TwigcsPathFilter filter;
+
+	/*
+	 * the maximum number of files to validate by a single execution
+	 */
+	private final int batchSize;
+
+	/*
+	 * the maximum number of concurrent Twigcs executions
+	 */
+	private final int maxProcesses;
+
+	/*
+	 * the resident worker mode
+	 */
+	private final boolean residentWorker;
+
+	/*
+	 * the PHP interpreter path
+	 */
+	private final String phpPath;
+
+	/*
+	 * the results cache mode
+	 */
+	private final boolean resultCache;
+
+	/*
+	 * the maximum number of cached results
+	 */
+	private final int cacheSize;
+
+	/*
+	 * the background validation mode
+	 */
+	private final boolean backgroundValidation;
+
+	/**
+	 * Creates a new instance of this class.
+	 *
+	 * @param project
+	 *            the project to get settings for.
+	 */
+	ProjectSnapshot(final IProject project) {
+		this.project = project;
+
+		// project
+		final ProjectPreferences preferences = new ProjectPreferences(project);
+		version = preferences.getTwigVersion();
+		severity = preferences.getTwigSeverity();
+		includePaths = Collections
+				.unmodifiableList(preferences.getIncludeRawPaths());
+		excludePaths = Collections
+				.unmodifiableList(preferences.getExcludeRawPaths());
+		filter = new TwigcsPathFilter(includePaths, excludePaths);
+
+		// global
+		executable = PreferencesInitializer.getExecutable();
+		processSeverity = PreferencesInitializer.getTwigSeverity();
+		reporter = PreferencesInitializer.getTwigReporter();
+		batchSize = PreferencesInitializer.getBatchSize();
+		maxProcesses = PreferencesInitializer.getMaxProcesses();
+		residentWorker = PreferencesInitializer.isResidentWorker();
+		phpPath = PreferencesInitializer.getPhpPath();
+		resultCache = PreferencesInitializer.isResultCache();
+		cacheSize = PreferencesInitializer.getCacheSize();
+		backgroundValidation = PreferencesInitializer.isBackgroundValidation();
+	}
+
+	/**
+	 * Gets the number of files to validate by a single Twigcs execution.
+	 *
+	 * @return the batch size.
+	 */
+	public int getBatchSize() {
+		return batchSize;
+	}
+
+	/**
+	 * Gets the maximum number of cached validation results.
+	 *
+	 * @return the maximum number of cached results.
+	 */
+	public int getCacheSize() {
+		return cacheSize;
+	}
+
+	/**
+	 * Gets the exclude paths.
+	 *
+	 * @return the unmodifiable list of exclude paths.
+	 */
+	public List<IPath> getExcludePaths() {
+		return excludePaths;
+	}
+
+	/**
+	 * Gets the Twigcs executable path.
+	 *
+	 * @return the executable path.
+	 */
+	public String getExecutable() {
+		return executable;
+	}
+
+	/**
+	 * Gets the paths filter compiled from the include and exclude paths.
+	 *
+	 * @return the paths filter.
+	 */
+	public TwigcsPathFilter getFilter() {
+		return filter;
+	}
+
+	/**
+	 * Gets the include paths.
+	 *
+	 * @return the unmodifiable list of include paths.
+	 */
+	public List<IPath> getIncludePaths() {
+		return includePaths;
+	}
+
+	/**
+	 * Gets the number of concurrent Twigcs executions.
+	 *
+	 * @return the number of executions.
+	 */
+	public int getMaxProcesses() {
+		return maxProcesses;
+	}
+
+	/**
+	 * Gets the minimum severity of the markers. This is the highest value of
+	 * the severity given to the Twigcs executable and of the severity used to
+	 * create markers.
+	 *
+	 * @return the minimum severity.
+	 */
+	public TwigSeverity getMinimumSeverity() {
+		return severity.isBelow(processSeverity) ? processSeverity : severity;
+	}
+
+	/**
+	 * Gets the PHP interpreter path.
+	 *
+	 * @return the PHP interpreter path.
+	 */
+	public String getPhpPath() {
+		return phpPath;
+	}
+
+	/**
+	 * Gets the severity given to the Twigcs executable.
+	 *
+	 * @return the global Twig severity.
+	 */
+	public TwigSeverity getProcessSeverity() {
+		return processSeverity;
+	}
+
+	/**
+	 * Gets the project.
+	 *
+	 * @return the project.
+	 */
+	public IProject getProject() {
+		return project;
+	}
+
+	/**
+	 * Gets the reporter given to the Twigcs executable.
+	 *
+	 * @return the Twig reporter.
+	 */
+	public TwigReporter getTwigReporter() {
+		return reporter;
+	}
+
+	/**
+	 * Gets the Twig severity used to create markers.
+	 *
+	 * @return the Twig severity.
+	 */
+	public TwigSeverity getTwigSeverity() {
+		return severity;
+	}
+
+	/**
+	 * Gets the Twig version.
+	 *
+	 * @return the Twig version.
+	 */
+	public TwigVersion getTwigVersion() {
+		return version;
+	}
+
+	/**
+	 * Returns if the files are validated in a background job.
+	 *
+	 * @return <code>true</code> if the background validation is enabled.
+	 */
+	public boolean isBackgroundValidation() {
+		return backgroundValidation;
+	}
+
+	/**
+	 * Returns if the validation results of the given snapshot are obsolete
+	 * with this snapshot. This is the case when the executable or the Twig
+	 * version differ.
+	 *
+	 * @param other
+	 *            the previous snapshot.
+	 * @return <code>true</code> if all files must be validated again.
+	 */
+	public boolean isFullValidation(final ProjectSnapshot other) {
+		return !Objects.equals(executable, other.executable)
+				|| version != other.version;
+	}
+
+	/**
+	 * Returns if the batches are validated by resident workers.
+	 *
+	 * @return <code>true</code> if the resident worker mode is enabled.
+	 */
+	public boolean isResidentWorker() {
+		return residentWorker;
+	}
+
+	/**
+	 * Returns if the validation results are cached.
+	 *
+	 * @return <code>true</code> if the results cache is enabled.
+	 */
+	public boolean isResultCache() {
+		return resultCache;
+	}
+
+	/**
+	 * Returns if this snapshot validates the files like the given snapshot.
+	 *
+	 * @param other
+	 *            the snapshot to compare to.
+	 * @return <code>true</code> if the settings are the same.
+	 */
+	public boolean isSame(final ProjectSnapshot other) {
+		return !isFullValidation(other)
+				&& processSeverity == other.processSeverity
+				&& severity == other.severity
+				&& includePaths.equals(other.includePaths)
+				&& excludePaths.equals(other.excludePaths);
+	}
+}
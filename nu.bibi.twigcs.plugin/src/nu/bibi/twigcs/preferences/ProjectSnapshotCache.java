@@ -0,0 +1,158 @@
+/**
+ * This file is part of the twigcs-plugin package.
+ *
+ * (c) Laurent Muller <bibi@bibi.nu>
+ *
+ * For the full copyright and license information, please view the LICENSE
+ * file that was distributed with this source code.
+ */
+package nu.bibi.twigcs.preferences;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.eclipse.core.resources.IProject;
+import org.eclipse.core.resources.IResource;
+import org.eclipse.core.resources.IResourceChangeEvent;
+import org.eclipse.core.resources.IResourceChangeListener;
+import org.eclipse.core.resources.ProjectScope;
+import org.eclipse.core.runtime.preferences.IEclipsePreferences;
+import org.eclipse.core.runtime.preferences.IEclipsePreferences.IPreferenceChangeListener;
+import org.eclipse.core.runtime.preferences.IEclipsePreferences.PreferenceChangeEvent;
+import org.eclipse.core.runtime.preferences.InstanceScope;
+
+import nu.bibi.twigcs.core.IConstants;
+
+/**
+ * Cache of the project settings snapshots.
+ * <p>
+ * The snapshot of a project is built on first access and is kept until a
+ * preference of the project node or of the instance (global) node changes. A
+ * change of a project preference invalidates the snapshot of this project
+ * only; a change of a global preference invalidates all snapshots.
+ * </p>
+ * <p>
+ * This cache must be registered as resource change listener with the
+ * {@link IResourceChangeEvent#PRE_CLOSE PRE_CLOSE} and
+ * {@link IResourceChangeEvent#PRE_DELETE PRE_DELETE} event mask, so the
+ * snapshots of the closed or deleted projects are released. The
+ * {@link #dispose()} method must be called to remove the preference
+ * listeners.
+ * </p>
+ *
+ * @author Laurent Muller
+ * @version 1.0
+ * @see ProjectSnapshot
+ */
+public class ProjectSnapshotCache implements IPreferenceChangeListener,
+		IResourceChangeListener, IConstants {
+
+	/*
+	 * the snapshots mapped by project
+	 */
+	private final Map<IProject, ProjectSnapshot> snapshots = new ConcurrentHashMap<>();
+
+	/*
+	 * the listened project nodes mapped to their project
+	 */
+	private final Map<IEclipsePreferences, IProject> nodes = new ConcurrentHashMap<>();
+
+	/*
+	 * the listened instance node
+	 */
+	private final IEclipsePreferences instanceNode;
+
+	/**
+	 * Creates a new instance of this class.
+	 */
+	public ProjectSnapshotCache() {
+		instanceNode = InstanceScope.INSTANCE.getNode(PLUGIN_ID);
+		instanceNode.addPreferenceChangeListener(this);
+	}
+
+	/**
+	 * Removes all the snapshots and the preference listeners.
+	 */
+	public void dispose() {
+		instanceNode.removePreferenceChangeListener(this);
+		for (final IEclipsePreferences node : nodes.keySet()) {
+			node.removePreferenceChangeListener(this);
+		}
+		nodes.clear();
+		snapshots.clear();
+	}
+
+	/**
+	 * Gets the snapshot of the given project. The snapshot is built if the
+	 * project has no snapshot or if the preferences have changed. The
+	 * snapshots of closed projects are not cached.
+	 *
+	 * @param project
+	 *            the project to get snapshot for.
+	 * @return the snapshot.
+	 */
+	public ProjectSnapshot get(final IProject project) {
+		if (!project.isAccessible()) {
+			return new ProjectSnapshot(project);
+		}
+		return snapshots.computeIfAbsent(project, this::create);
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public void preferenceChange(final PreferenceChangeEvent event) {
+		final IProject project = nodes.get(event.getNode());
+		if (project != null) {
+			snapshots.remove(project);
+		} else {
+			snapshots.clear();
+		}
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public void resourceChanged(final IResourceChangeEvent event) {
+		final IResource resource = event.getResource();
+		if (resource instanceof IProject) {
+			remove((IProject) resource);
+		}
+	}
+
+	/**
+	 * Creates the snapshot of the given project and listens to the changes of
+	 * the project preferences.
+	 *
+	 * @param project
+	 *            the project to create snapshot for.
+	 * @return the snapshot.
+	 */
+	private ProjectSnapshot create(final IProject project) {
+		final IEclipsePreferences node = new ProjectScope(project)
+				.getNode(PLUGIN_ID);
+		if (nodes.putIfAbsent(node, project) == null) {
+			node.addPreferenceChangeListener(this);
+		}
+		return new ProjectSnapshot(project);
+	}
+
+	/**
+	 * Removes the snapshot and the preference listener of the given project.
+	 *
+	 * @param project
+	 *            the project to remove.
+	 */
+	private void remove(final IProject project) {
+		snapshots.remove(project);
+		nodes.entrySet().removeIf(entry -> {
+			if (entry.getValue().equals(project)) {
+				entry.getKey().removePreferenceChangeListener(this);
+				return true;
+			}
+			return false;
+		});
+	}
+}
@@ -15,9 +15,12 @@ import java.util.List;
 
 import org.eclipse.core.runtime.CoreException;
 import org.eclipse.jface.dialogs.MessageDialog;
+import org.eclipse.jface.preference.BooleanFieldEditor;
 import org.eclipse.jface.preference.ComboFieldEditor;
 import org.eclipse.jface.preference.FieldEditorPreferencePage;
 import org.eclipse.jface.preference.FileFieldEditor;
+import org.eclipse.jface.preference.IntegerFieldEditor;
+import org.eclipse.jface.preference.StringFieldEditor;
 import org.eclipse.swt.SWT;
 import org.eclipse.swt.custom.BusyIndicator;
 import org.eclipse.swt.layout.GridLayout;
@@ -30,8 +33,8 @@ import org.eclipse.ui.preferences.ScopedPreferenceStore;
 
 import nu.bibi.twigcs.TwigcsPlugin;
 import nu.bibi.twigcs.core.ICoreException;
-import nu.bibi.twigcs.core.TwigcsBuilder;
 import nu.bibi.twigcs.core.TwigcsProcessor;
+import nu.bibi.twigcs.core.TwigcsRevalidationJob;
 import nu.bibi.twigcs.internal.Messages;
 import nu.bibi.twigcs.io.IOExecutor;
 import nu.bibi.twigcs.model.TwigDisplay;
@@ -39,6 +42,7 @@ import nu.bibi.twigcs.model.TwigReporter;
 import nu.bibi.twigcs.model.TwigSeverity;
 import nu.bibi.twigcs.model.TwigVersion;
 import nu.bibi.twigcs.preferences.IPreferencesConstants;
+import nu.bibi.twigcs.preferences.ProjectSnapshot;
 
 /**
  * Twigcs preferences page.
@@ -88,6 +92,22 @@ public class PreferencesPage extends FieldEditorPreferencePage
 				TwigReporter.class).setEnabled(false, getFieldEditorParent());
 		addEnumEditor(P_DISPLAY, Messages.PreferencesPage_Display,
 				TwigDisplay.class).setEnabled(false, getFieldEditorParent());
+		addIntegerEditor(P_BATCH_SIZE, Messages.PreferencesPage_Batch_Size, 1,
+				MAX_BATCH_SIZE);
+		addIntegerEditor(P_MAX_PROCESSES,
+				Messages.PreferencesPage_Max_Processes, 1, MAX_PROCESSES);
+		addField(new BooleanFieldEditor(P_BACKGROUND_VALIDATION,
+				Messages.PreferencesPage_Background_Validation,
+				getFieldEditorParent()));
+		addField(new BooleanFieldEditor(P_RESIDENT_WORKER,
+				Messages.PreferencesPage_Resident_Worker,
+				getFieldEditorParent()));
+		addField(new StringFieldEditor(P_PHP_PATH,
+				Messages.PreferencesPage_Php_Path, getFieldEditorParent()));
+		addField(new BooleanFieldEditor(P_RESULT_CACHE,
+				Messages.PreferencesPage_Result_Cache, getFieldEditorParent()));
+		addIntegerEditor(P_CACHE_SIZE, Messages.PreferencesPage_Cache_Size, 1,
+				MAX_CACHE_SIZE);
 	}
 
 	/**
@@ -111,6 +131,15 @@ public class PreferencesPage extends FieldEditorPreferencePage
 	 */
 	@Override
 	public boolean performOk() {
+		// settings before the change
+		final List<ProjectSnapshot> snapshots;
+		try {
+			snapshots = TwigcsRevalidationJob.takeSnapshots();
+		} catch (final CoreException e) {
+			handleStatusShow(e.getStatus());
+			return false;
+		}
+
 		// default
 		boolean result = super.performOk();
 
@@ -121,16 +150,16 @@ public class PreferencesPage extends FieldEditorPreferencePage
 				// save
 				store.save();
 
-				// clean
-				TwigcsBuilder.triggerCleanBuild();
+				// restart resident workers with the new settings
+				TwigcsPlugin.getDefault().getWorkerPool().shutdown();
+
+				// update markers
+				new TwigcsRevalidationJob(snapshots).schedule();
 
 			} catch (final IOException e) {
 				handleStatusShow(
 						createErrorStatus(Messages.Preferences_Error_Save, e));
 				result = false;
-			} catch (final CoreException e) {
-				handleStatusShow(e.getStatus());
-				result = false;
 			}
 		}
 		return result;
@@ -160,6 +189,12 @@ public class PreferencesPage extends FieldEditorPreferencePage
 		btnTest.setEnabled(isValid());
 		btnTest.addListener(SWT.Selection, e -> testCommand());
 		setButtonLayoutData(btnTest);
+
+		((GridLayout) parent.getLayout()).numColumns++;
+		final Button btnClear = new Button(parent, SWT.PUSH);
+		btnClear.setText(Messages.PreferencesPage_Clear_Cache);
+		btnClear.addListener(SWT.Selection, e -> clearCache());
+		setButtonLayoutData(btnClear);
 	}
 
 	/**
@@ -200,6 +235,42 @@ public class PreferencesPage extends FieldEditorPreferencePage
 		addField(fileEditor);
 	}
 
+	/**
+	 * Adds an integer field editor.
+	 *
+	 * @param key
+	 *            the name of the preference this field editor works on.
+	 * @param labelText
+	 *            the label text of the field editor.
+	 * @param min
+	 *            the minimum allowed value (inclusive).
+	 * @param max
+	 *            the maximum allowed value (inclusive).
+	 * @return the field editor.
+	 */
+	private IntegerFieldEditor addIntegerEditor(final String key,
+			final String labelText, final int min, final int max) {
+		final IntegerFieldEditor editor = new IntegerFieldEditor(key,
+				labelText, getFieldEditorParent());
+		editor.setValidRange(min, max);
+		addField(editor);
+		return editor;
+	}
+
+	/**
+	 * Clears the validation results cache.
+	 */
+	private void clearCache() {
+		try {
+			TwigcsPlugin.getDefault().getResultCache().clear();
+			MessageDialog.openInformation(getShell(), getTitle(),
+					Messages.PreferencesPage_Cache_Cleared);
+		} catch (final IOException e) {
+			handleStatusShow(createErrorStatus(
+					Messages.PreferencesPage_Error_Clear_Cache, e));
+		}
+	}
+
 	/**
 	 * Creates an empty template file.
 	 *
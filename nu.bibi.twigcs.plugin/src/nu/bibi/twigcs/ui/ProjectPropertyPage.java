@@ -9,6 +9,7 @@
 package nu.bibi.twigcs.ui;
 
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
 
 import org.eclipse.core.resources.IProject;
@@ -29,12 +30,13 @@ import org.eclipse.swt.widgets.Table;
 import org.eclipse.ui.dialogs.PropertyPage;
 
 import nu.bibi.twigcs.core.ICoreException;
-import nu.bibi.twigcs.core.TwigcsBuilder;
+import nu.bibi.twigcs.core.TwigcsRevalidationJob;
 import nu.bibi.twigcs.internal.Messages;
 import nu.bibi.twigcs.model.TwigSeverity;
 import nu.bibi.twigcs.model.TwigVersion;
 import nu.bibi.twigcs.preferences.PreferencesInitializer;
 import nu.bibi.twigcs.preferences.ProjectPreferences;
+import nu.bibi.twigcs.preferences.ProjectSnapshot;
 
 /**
  * Properties page for Twigcs project.
@@ -86,6 +88,8 @@ public class ProjectPropertyPage extends PropertyPage
 		try {
 			// preferences
 			final ProjectPreferences preferences = getPreferences();
+			final ProjectSnapshot snapshot = ProjectSnapshot
+					.of(preferences.getProject());
 
 			// save paths
 			preferences.setIncludeResources(includeList);
@@ -101,10 +105,11 @@ public class ProjectPropertyPage extends PropertyPage
 			preferences.setTwigVersion(version);
 			preferences.setTwigSeverity(severity);
 
-			// save and build if dirty
+			// save and update markers if dirty
 			if (preferences.isDirty()) {
 				preferences.flush();
-				TwigcsBuilder.triggerCleanBuild(preferences.getProject());
+				new TwigcsRevalidationJob(Collections.singletonList(snapshot))
+						.schedule();
 			}
 
 		} catch (final CoreException e) {
@@ -0,0 +1,301 @@
+/**
+ * This file is part of the twigcs-plugin package.
+ *
+ * (c) Laurent Muller <bibi@bibi.nu>
+ *
+ * For the full copyright and license information, please view the LICENSE
+ * file that was distributed with this source code.
+ */
+package nu.bibi.twigcs.ui;
+
+import java.text.DateFormat;
+import java.util.Date;
+import java.util.List;
+import java.util.function.Consumer;
+import java.util.function.Function;
+
+import org.eclipse.jface.action.Action;
+import org.eclipse.jface.action.IToolBarManager;
+import org.eclipse.jface.layout.GridDataFactory;
+import org.eclipse.jface.layout.GridLayoutFactory;
+import org.eclipse.jface.viewers.ArrayContentProvider;
+import org.eclipse.jface.viewers.ColumnLabelProvider;
+import org.eclipse.jface.viewers.ComboViewer;
+import org.eclipse.jface.viewers.LabelProvider;
+import org.eclipse.jface.viewers.StructuredSelection;
+import org.eclipse.jface.viewers.TableViewer;
+import org.eclipse.jface.viewers.TableViewerColumn;
+import org.eclipse.osgi.util.NLS;
+import org.eclipse.swt.SWT;
+import org.eclipse.swt.widgets.Composite;
+import org.eclipse.swt.widgets.Label;
+import org.eclipse.swt.widgets.Table;
+import org.eclipse.ui.part.ViewPart;
+
+import nu.bibi.twigcs.TwigcsPlugin;
+import nu.bibi.twigcs.core.TwigcsBuildStatistics;
+import nu.bibi.twigcs.core.TwigcsPhase;
+import nu.bibi.twigcs.core.TwigcsStatistics;
+import nu.bibi.twigcs.internal.Messages;
+
+/**
+ * View to display the timings of the recent validations.
+ * <p>
+ * The timings are collected only while this view is open.
+ * </p>
+ *
+ * @author Laurent Muller
+ * @version 1.0
+ * @see TwigcsStatistics
+ */
+public class StatisticsView extends ViewPart {
+
+	/**
+	 * The view identifier.
+	 */
+	public static final String ID = "nu.bibi.twigcs.ui.StatisticsView"; //$NON-NLS-1$
+
+	/*
+	 * the statistics
+	 */
+	private TwigcsStatistics statistics;
+
+	/*
+	 * the listener notified when a build ends
+	 */
+	private final Consumer<TwigcsBuildStatistics> listener = this::buildEnded;
+
+	/*
+	 * the builds viewer
+	 */
+	private ComboViewer buildViewer;
+
+	/*
+	 * the build summary
+	 */
+	private Label summary;
+
+	/*
+	 * the phases viewer
+	 */
+	private TableViewer phaseViewer;
+
+	/*
+	 * the displayed build
+	 */
+	private TwigcsBuildStatistics build;
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public void createPartControl(final Composite parent) {
+		GridLayoutFactory.fillDefaults().numColumns(2).margins(5, 5)
+				.applyTo(parent);
+
+		// builds
+		final Label label = new Label(parent, SWT.NONE);
+		label.setText(Messages.StatisticsView_Build);
+		buildViewer = new ComboViewer(parent, SWT.DROP_DOWN | SWT.READ_ONLY);
+		buildViewer.setContentProvider(ArrayContentProvider.getInstance());
+		buildViewer.setLabelProvider(new LabelProvider() {
+			@Override
+			public String getText(final Object element) {
+				return getBuildText((TwigcsBuildStatistics) element);
+			}
+		});
+		buildViewer.addSelectionChangedListener(e -> {
+			build = (TwigcsBuildStatistics) buildViewer.getStructuredSelection()
+					.getFirstElement();
+			updateBuild();
+		});
+		GridDataFactory.fillDefaults().grab(true, false)
+				.applyTo(buildViewer.getControl());
+
+		// summary
+		summary = new Label(parent, SWT.NONE);
+		GridDataFactory.fillDefaults().span(2, 1).grab(true, false)
+				.applyTo(summary);
+
+		// phases
+		phaseViewer = new TableViewer(parent,
+				SWT.SINGLE | SWT.H_SCROLL | SWT.V_SCROLL | SWT.FULL_SELECTION
+						| SWT.BORDER);
+		phaseViewer.setContentProvider(ArrayContentProvider.getInstance());
+		final Table table = phaseViewer.getTable();
+		table.setHeaderVisible(true);
+		table.setLinesVisible(true);
+		GridDataFactory.fillDefaults().span(2, 1).grab(true, true)
+				.applyTo(table);
+
+		createColumn(Messages.StatisticsView_Phase, 160,
+				TwigcsPhase::getLabel);
+		createColumn(Messages.StatisticsView_Count, 70,
+				p -> Long.toString(build.getCount(p)));
+		createColumn(Messages.StatisticsView_Total, 100,
+				p -> TwigcsBuildStatistics.formatDuration(build.getTotal(p)));
+		createColumn(Messages.StatisticsView_Average, 100,
+				p -> TwigcsBuildStatistics
+						.formatDuration(build.getAverage(p)));
+		createColumn(Messages.StatisticsView_Minimum, 100,
+				p -> TwigcsBuildStatistics
+						.formatDuration(build.getMinimum(p)));
+		createColumn(Messages.StatisticsView_Maximum, 100,
+				p -> TwigcsBuildStatistics
+						.formatDuration(build.getMaximum(p)));
+		createColumn(Messages.StatisticsView_Histogram, 300,
+				this::getHistogramText);
+
+		// actions
+		final IToolBarManager manager = getViewSite().getActionBars()
+				.getToolBarManager();
+		manager.add(new Action(Messages.StatisticsView_Export) {
+			@Override
+			public void run() {
+				statistics.export();
+			}
+		});
+		manager.add(new Action(Messages.StatisticsView_Clear) {
+			@Override
+			public void run() {
+				statistics.clear();
+				updateBuilds();
+			}
+		});
+
+		// start collecting
+		statistics = TwigcsPlugin.getDefault().getStatistics();
+		statistics.addListener(listener);
+		statistics.setEnabled(true);
+		updateBuilds();
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public void dispose() {
+		if (statistics != null) {
+			statistics.setEnabled(false);
+			statistics.removeListener(listener);
+			statistics = null;
+		}
+		super.dispose();
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public void setFocus() {
+		phaseViewer.getControl().setFocus();
+	}
+
+	/**
+	 * Called when a build ends. The builds are updated in the UI thread.
+	 *
+	 * @param build
+	 *            the ended build.
+	 */
+	private void buildEnded(final TwigcsBuildStatistics build) {
+		final Table table = phaseViewer.getTable();
+		if (!table.isDisposed()) {
+			table.getDisplay().asyncExec(() -> {
+				if (!table.isDisposed()) {
+					updateBuilds();
+				}
+			});
+		}
+	}
+
+	/**
+	 * Creates a column of the phases viewer.
+	 *
+	 * @param text
+	 *            the column header text.
+	 * @param width
+	 *            the column width.
+	 * @param function
+	 *            the function to get the text of a phase.
+	 */
+	private void createColumn(final String text, final int width,
+			final Function<TwigcsPhase, String> function) {
+		final TableViewerColumn column = new TableViewerColumn(phaseViewer,
+				SWT.NONE);
+		column.getColumn().setText(text);
+		column.getColumn().setWidth(width);
+		column.setLabelProvider(new ColumnLabelProvider() {
+			@Override
+			public String getText(final Object element) {
+				return function.apply((TwigcsPhase) element);
+			}
+		});
+	}
+
+	/**
+	 * Gets the text to display for the given build.
+	 *
+	 * @param build
+	 *            the build.
+	 * @return the text.
+	 */
+	private String getBuildText(final TwigcsBuildStatistics build) {
+		final DateFormat format = DateFormat.getTimeInstance();
+		return NLS.bind(Messages.StatisticsView_Build_Text, build.getName(),
+				format.format(new Date(build.getStartTime())));
+	}
+
+	/**
+	 * Gets the histogram text of the given phase.
+	 *
+	 * @param phase
+	 *            the phase.
+	 * @return the histogram text.
+	 */
+	private String getHistogramText(final TwigcsPhase phase) {
+		final long[] histogram = build.getHistogram(phase);
+		final StringBuilder builder = new StringBuilder();
+		for (int i = 0; i < histogram.length; i++) {
+			if (histogram[i] != 0) {
+				if (builder.length() > 0) {
+					builder.append(", "); //$NON-NLS-1$
+				}
+				builder.append(NLS.bind(Messages.TwigcsStatistics_Bucket,
+						TwigcsBuildStatistics.getBucketLabel(i),
+						histogram[i]));
+			}
+		}
+		return builder.toString();
+	}
+
+	/**
+	 * Updates the summary and the phases of the displayed build.
+	 */
+	private void updateBuild() {
+		if (build == null) {
+			summary.setText(Messages.StatisticsView_Empty);
+			phaseViewer.setInput(new TwigcsPhase[0]);
+		} else {
+			summary.setText(NLS.bind(Messages.StatisticsView_Summary,
+					new Object[] {
+							TwigcsBuildStatistics
+									.formatDuration(build.getElapsed()),
+							build.getFiles(), build.getCachedFiles() }));
+			phaseViewer.setInput(TwigcsPhase.values());
+		}
+		summary.getParent().layout();
+	}
+
+	/**
+	 * Updates the builds and displays the most recent one.
+	 */
+	private void updateBuilds() {
+		final List<TwigcsBuildStatistics> builds = statistics.getBuilds();
+		buildViewer.setInput(builds);
+		build = builds.isEmpty() ? null : builds.get(0);
+		if (build != null) {
+			buildViewer.setSelection(new StructuredSelection(build));
+		}
+		updateBuild();
+	}
+}